@@ -0,0 +1,44 @@
+package ca.umanitoba.cs.abdullmm.checks;
+
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Helpers shared by the cross-checks.
+ */
+final class Checks {
+
+    private Checks() {
+    }
+
+    /**
+     * Checks that a route runs from start to end through allowed points, each adjacent to the one
+     * before it.
+     *
+     * @param route the route's points
+     * @param start the expected first point
+     * @param end the expected last point
+     * @param allowed the points a route may pass through
+     * @return true if the route is a valid chain
+     */
+    static boolean isChain(List<GridPoint> route, GridPoint start, GridPoint end, Predicate<GridPoint> allowed) {
+        if (route.isEmpty() || !route.get(0).equals(start) || !route.get(route.size() - 1).equals(end)) {
+            return false;
+        }
+        for (int i = 0; i < route.size(); i++) {
+            GridPoint point = route.get(i);
+            if (!allowed.test(point)) {
+                return false;
+            }
+            if (i > 0) {
+                GridPoint previous = route.get(i - 1);
+                if (Math.abs(point.x() - previous.x()) + Math.abs(point.y() - previous.y()) != 1) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,119 @@
+package ca.umanitoba.cs.abdullmm.checks;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.logic.AStarSearch;
+import ca.umanitoba.cs.abdullmm.logic.BreadthFirstSearch;
+import ca.umanitoba.cs.abdullmm.logic.JumpPointSearch;
+import ca.umanitoba.cs.abdullmm.logic.PathSearchResult;
+import ca.umanitoba.cs.abdullmm.logic.PathSearchStrategy;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointIndex;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Cross-checks JumpPointSearch against BreadthFirstSearch and AStarSearch. Half the trials use a
+ * random fill of a square, which exercises the forced-neighbor rules around many small gaps; the
+ * other half use only horizontal and vertical corridors, where jumps are long. Every query must
+ * find a route of the same length with all three strategies, and every route must be a chain of
+ * adjacent points of the graph from start to end.
+ *
+ * Prints the number of queries, the number with a route and the total expansions per strategy,
+ * and exits with status 1 on any mismatch.
+ */
+public class JumpPointSearchCheck {
+    private static final int TRIALS = 60;
+    private static final int QUERIES_PER_TRIAL = 100;
+
+    public static void main(String[] args) {
+        PathSearchStrategy[] strategies = {new BreadthFirstSearch(), new AStarSearch(), new JumpPointSearch()};
+        long[] expanded = new long[strategies.length];
+        int queries = 0;
+        int found = 0;
+        int mismatches = 0;
+
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Random random = new Random(trial);
+            List<GridPoint> points = trial % 2 == 0 ? randomFill(random) : corridors(random);
+            PointIndex graph = new PointIndex(points);
+
+            for (int query = 0; query < QUERIES_PER_TRIAL; query++) {
+                GridPoint start = points.get(random.nextInt(points.size()));
+                GridPoint end = points.get(random.nextInt(points.size()));
+                int[] lengths = new int[strategies.length];
+                for (int i = 0; i < strategies.length; i++) {
+                    try {
+                        PathSearchResult result = strategies[i].search(start, end, graph);
+                        List<GridPoint> route = result.route().getPoints();
+                        if (!Checks.isChain(route, start, end, graph::contains)) {
+                            mismatches++;
+                            System.out.println("Invalid route from " + strategies[i].getClass().getSimpleName()
+                                    + " in trial " + trial + ": " + start + " -> " + end);
+                        }
+                        lengths[i] = route.size();
+                        expanded[i] += result.nodesExpanded();
+                    } catch (PathNotFoundException e) {
+                        lengths[i] = -1;
+                    }
+                }
+                if (lengths[1] != lengths[0] || lengths[2] != lengths[0]) {
+                    mismatches++;
+                    System.out.println("Route lengths differ in trial " + trial + ": " + start + " -> " + end
+                            + " BFS " + lengths[0] + ", A* " + lengths[1] + ", JPS " + lengths[2]);
+                }
+                queries++;
+                if (lengths[0] > 0) {
+                    found++;
+                }
+            }
+        }
+
+        System.out.println(queries + " queries, " + found + " with a route, " + mismatches + " mismatches");
+        System.out.println("Expanded: BFS " + expanded[0] + ", A* " + expanded[1] + ", JPS " + expanded[2]);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Fills a square of 20 to 79 points a side, keeping each point with a random density.
+     */
+    private static List<GridPoint> randomFill(Random random) {
+        int size = 20 + random.nextInt(60);
+        double density = 0.3 + random.nextDouble() * 0.65;
+        List<GridPoint> points = new ArrayList<>();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (random.nextDouble() < density) {
+                    points.add(new GridPoint(x, y));
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Lays random horizontal and vertical corridors over a square of 20 to 79 points a side.
+     */
+    private static List<GridPoint> corridors(Random random) {
+        int size = 20 + random.nextInt(60);
+        Set<GridPoint> points = new LinkedHashSet<>();
+        for (int corridor = 0; corridor < size / 2; corridor++) {
+            boolean horizontal = random.nextBoolean();
+            int line = random.nextInt(size);
+            int from = random.nextInt(size);
+            int to = from + random.nextInt(size);
+            for (int i = from; i < to; i++) {
+                points.add(horizontal ? new GridPoint(i, line) : new GridPoint(line, i));
+            }
+        }
+        if (points.isEmpty()) {
+            points.add(new GridPoint(0, 0));
+        }
+        return new ArrayList<>(points);
+    }
+}
@@ -0,0 +1,180 @@
+package ca.umanitoba.cs.abdullmm.checks;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.logic.ActivityManager;
+import ca.umanitoba.cs.abdullmm.logic.PathFinder;
+import ca.umanitoba.cs.abdullmm.logic.SearchScope;
+import ca.umanitoba.cs.abdullmm.logic.UserManager;
+import ca.umanitoba.cs.abdullmm.model.Dimension;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.Helmet;
+import ca.umanitoba.cs.abdullmm.model.Map;
+import ca.umanitoba.cs.abdullmm.model.Obstacle;
+import ca.umanitoba.cs.abdullmm.model.PointSet;
+import ca.umanitoba.cs.abdullmm.model.Route;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Cross-checks PathFinder.reachableWithin, which runs ReachabilitySearch over id bitmaps, against a
+ * plain breadth-first search over GridPoints. Random-walk routes are split between a user and
+ * someone they follow, and the map has an obstacle, so the feed scope and obstacle filtering are
+ * both exercised. For every query the returned PointSet must hold exactly the points the reference
+ * search reaches within the step limit, by iteration, by contains and by walking nextId.
+ *
+ * Then times the query on a 360,000-point feed (a 600 by 600 lattice of rows, with every fifth
+ * column) from its center with a limit of 400 steps.
+ *
+ * Prints the number of queries checked and the timings, and exits with status 1 on any mismatch.
+ */
+public class ReachabilitySearchCheck {
+    private static final int MAP_SIZE = 60;
+    private static final int QUERIES = 200;
+    private static final int LATTICE_SIZE = 600;
+    private static final int[][] STEPS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    public static void main(String[] args) throws Exception {
+        int mismatches = checkAgainstBreadthFirst();
+        timeLargeFeed();
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int checkAgainstBreadthFirst() throws Exception {
+        Random random = new Random(2);
+        UserManager userManager = new UserManager();
+        ActivityManager activityManager = new ActivityManager(userManager);
+        Map map = new Map(new Dimension(MAP_SIZE, MAP_SIZE), "Check Map");
+        map.addObstacle(new Obstacle("Block", new GridPoint(20, 20), new Dimension(10, 10)));
+        PathFinder pathFinder = new PathFinder(userManager, activityManager, map);
+        userManager.createUser("u");
+        userManager.createUser("v");
+        activityManager.followUser("u", "v");
+
+        Set<GridPoint> points = new HashSet<>();
+        for (int walk = 0; walk < 100; walk++) {
+            Route route = new Route("Walk " + walk);
+            int x = random.nextInt(MAP_SIZE);
+            int y = random.nextInt(MAP_SIZE);
+            for (int step = 0; step < 50; step++) {
+                route.addPoint(new GridPoint(x, y));
+                points.add(new GridPoint(x, y));
+                if (random.nextBoolean()) {
+                    x = Math.max(0, Math.min(MAP_SIZE - 1, x + (random.nextBoolean() ? 1 : -1)));
+                } else {
+                    y = Math.max(0, Math.min(MAP_SIZE - 1, y + (random.nextBoolean() ? 1 : -1)));
+                }
+            }
+            activityManager.createActivity(walk % 2 == 0 ? "u" : "v", route, new Helmet("Helmet", "M"),
+                    LocalDate.of(2025, 1, 1), 1, 1, "Walk " + walk);
+        }
+
+        List<GridPoint> pointList = new ArrayList<>(points);
+        int checked = 0;
+        int mismatches = 0;
+        for (int query = 0; query < QUERIES; query++) {
+            GridPoint start = pointList.get(random.nextInt(pointList.size()));
+            if (map.isBlocked(start.x(), start.y())) {
+                continue;
+            }
+            int limit = random.nextInt(40);
+            Set<GridPoint> expected = reachable(points, map, start, limit);
+            PointSet reached = pathFinder.reachableWithin(SearchScope.FEED, "u", start, limit);
+            checked++;
+
+            Set<GridPoint> iterated = new HashSet<>();
+            for (GridPoint point : reached) {
+                iterated.add(point);
+            }
+            int walked = 0;
+            for (int id = reached.nextId(0); id >= 0; id = reached.nextId(id + 1)) {
+                walked++;
+            }
+            boolean containsAgrees = true;
+            for (GridPoint point : pointList) {
+                containsAgrees &= reached.contains(point) == expected.contains(point);
+            }
+            if (!iterated.equals(expected) || reached.size() != expected.size() || walked != expected.size()
+                    || !containsAgrees) {
+                mismatches++;
+                System.out.println("Mismatch from " + start + " within " + limit + ": got " + reached.size()
+                        + " points, expected " + expected.size());
+            }
+        }
+
+        try {
+            pathFinder.reachableWithin(SearchScope.FEED, "u", new GridPoint(25, 25), 3);
+            mismatches++;
+            System.out.println("A start under an obstacle was accepted");
+        } catch (PathNotFoundException e) {
+            // Expected: the start is covered by the obstacle
+        }
+
+        System.out.println(checked + " queries checked against BFS, " + mismatches + " mismatches");
+        return mismatches;
+    }
+
+    /**
+     * Reference search: every point reachable from start in at most limit steps through points
+     * not covered by an obstacle.
+     */
+    private static Set<GridPoint> reachable(Set<GridPoint> points, Map map, GridPoint start, int limit) {
+        HashMap<GridPoint, Integer> distances = new HashMap<>();
+        ArrayDeque<GridPoint> queue = new ArrayDeque<>();
+        distances.put(start, 0);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            GridPoint current = queue.poll();
+            int distance = distances.get(current);
+            if (distance == limit) {
+                continue;
+            }
+            for (int[] step : STEPS) {
+                GridPoint next = new GridPoint(current.x() + step[0], current.y() + step[1]);
+                if (points.contains(next) && !map.isBlocked(next.x(), next.y()) && !distances.containsKey(next)) {
+                    distances.put(next, distance + 1);
+                    queue.add(next);
+                }
+            }
+        }
+        return distances.keySet();
+    }
+
+    private static void timeLargeFeed() throws Exception {
+        UserManager userManager = new UserManager();
+        ActivityManager activityManager = new ActivityManager(userManager);
+        PathFinder pathFinder = new PathFinder(userManager, activityManager);
+        userManager.createUser("b");
+        for (int y = 0; y < LATTICE_SIZE; y++) {
+            Route row = new Route("Row " + y);
+            for (int x = 0; x < LATTICE_SIZE; x++) {
+                row.addPoint(new GridPoint(x, y));
+            }
+            activityManager.createActivity("b", row, new Helmet("Helmet", "M"), LocalDate.of(2025, 1, 1), 1, 1, "Row");
+        }
+        for (int x = 0; x < LATTICE_SIZE; x += 5) {
+            Route column = new Route("Column " + x);
+            for (int y = 0; y < LATTICE_SIZE; y++) {
+                column.addPoint(new GridPoint(x, y));
+            }
+            activityManager.createActivity("b", column, new Helmet("Helmet", "M"), LocalDate.of(2025, 1, 1), 1, 1,
+                    "Column");
+        }
+
+        GridPoint center = new GridPoint(LATTICE_SIZE / 2, LATTICE_SIZE / 2);
+        for (int run = 0; run < 3; run++) {
+            long started = System.nanoTime();
+            PointSet reached = pathFinder.reachableWithin(SearchScope.FEED, "b", center, 400);
+            System.out.printf("%d-point feed: %d points within 400 steps in %.1f ms%n",
+                    LATTICE_SIZE * LATTICE_SIZE, reached.size(), (System.nanoTime() - started) / 1e6);
+        }
+    }
+}
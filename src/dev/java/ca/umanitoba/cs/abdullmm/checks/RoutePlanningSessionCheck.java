@@ -0,0 +1,205 @@
+package ca.umanitoba.cs.abdullmm.checks;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.logic.ActivityManager;
+import ca.umanitoba.cs.abdullmm.logic.BreadthFirstSearch;
+import ca.umanitoba.cs.abdullmm.logic.PathFinder;
+import ca.umanitoba.cs.abdullmm.logic.PathRepair;
+import ca.umanitoba.cs.abdullmm.logic.RoutePlanningSession;
+import ca.umanitoba.cs.abdullmm.logic.SearchScope;
+import ca.umanitoba.cs.abdullmm.logic.UserManager;
+import ca.umanitoba.cs.abdullmm.model.Dimension;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.Helmet;
+import ca.umanitoba.cs.abdullmm.model.Map;
+import ca.umanitoba.cs.abdullmm.model.Obstacle;
+import ca.umanitoba.cs.abdullmm.model.Route;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Cross-checks the incremental repair of RoutePlanningSession (D* Lite) against a from-scratch
+ * breadth-first search. Each trial opens a session over a feed of rows and random columns, then
+ * applies a random sequence of obstacle additions, removals and moves, with the start advanced
+ * along the route now and then. After every step the session's route must be a valid chain
+ * avoiding the obstacles, of the same length as the shortest route found from scratch (or both
+ * must find none). A closed session must ignore later obstacle changes.
+ *
+ * Prints the number of obstacle changes checked, and, over the repairs that changed any point,
+ * the average nodes a repair touched next to the average a full BFS expanded. Exits with status 1
+ * on any mismatch.
+ */
+public class RoutePlanningSessionCheck {
+    private static final int MAP_SIZE = 60;
+    private static final int TRIALS = 20;
+    private static final int STEPS_PER_TRIAL = 40;
+    private static final int[][] STEPS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    public static void main(String[] args) throws Exception {
+        int mismatches = 0;
+        int obstacleChanges = 0;
+        int repairs = 0;
+        long touched = 0;
+        long fullExpanded = 0;
+
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Random random = new Random(trial);
+            UserManager userManager = new UserManager();
+            ActivityManager activityManager = new ActivityManager(userManager);
+            Map map = new Map(new Dimension(MAP_SIZE, MAP_SIZE), "Check Map");
+            PathFinder pathFinder = new PathFinder(userManager, activityManager, map);
+            userManager.createUser("u");
+            userManager.createUser("v");
+            activityManager.followUser("u", "v");
+            Set<GridPoint> points = buildFeed(random, activityManager);
+
+            List<GridPoint> pointList = new ArrayList<>(points);
+            GridPoint start = pointList.get(random.nextInt(pointList.size()));
+            GridPoint end = pointList.get(random.nextInt(pointList.size()));
+            RoutePlanningSession session = pathFinder.openRouteSession(SearchScope.FEED, "u", start, end);
+            List<Obstacle> obstacles = new ArrayList<>();
+
+            for (int step = 0; step < STEPS_PER_TRIAL; step++) {
+                int operation = random.nextInt(4);
+                if (operation == 0 || obstacles.isEmpty()) {
+                    Obstacle obstacle = new Obstacle("Obstacle", randomPoint(random),
+                            new Dimension(1 + random.nextInt(4), 1 + random.nextInt(4)));
+                    map.addObstacle(obstacle);
+                    obstacles.add(obstacle);
+                    obstacleChanges++;
+                } else if (operation == 1) {
+                    map.removeObstacle(obstacles.remove(random.nextInt(obstacles.size())));
+                    obstacleChanges++;
+                } else if (operation == 2) {
+                    obstacles.get(random.nextInt(obstacles.size())).setPosition(randomPoint(random));
+                    obstacleChanges++;
+                } else {
+                    try {
+                        List<GridPoint> route = session.getRoute().getPoints();
+                        if (route.size() > 3) {
+                            start = route.get(2);
+                            session.advance(start);
+                        }
+                    } catch (PathNotFoundException e) {
+                        // No route to advance along
+                    }
+                }
+                session.repair();
+
+                int expected = shortestLength(points, map, start, end);
+                int actual;
+                try {
+                    List<GridPoint> route = session.getRoute().getPoints();
+                    actual = route.size();
+                    if (!Checks.isChain(route, start, end,
+                            point -> points.contains(point) && !map.isBlocked(point.x(), point.y()))) {
+                        mismatches++;
+                        System.out.println("Invalid route in trial " + trial + " step " + step);
+                    }
+                } catch (PathNotFoundException e) {
+                    actual = -1;
+                }
+                if (actual != expected) {
+                    mismatches++;
+                    System.out.println("Trial " + trial + " step " + step + ": route of " + actual
+                            + " points, shortest is " + expected);
+                }
+
+                PathRepair repair = session.getLastRepair();
+                if (repair.changedPoints() > 0) {
+                    repairs++;
+                    touched += repair.nodesTouched();
+                    try {
+                        fullExpanded += pathFinder.searchFromFeed("u", start, end, new BreadthFirstSearch())
+                                .nodesExpanded();
+                    } catch (PathNotFoundException e) {
+                        fullExpanded += points.size();
+                    }
+                }
+            }
+
+            session.close();
+            map.addObstacle(new Obstacle("Late", new GridPoint(0, 0), new Dimension(MAP_SIZE, MAP_SIZE)));
+            if (session.repair().changedPoints() != 0) {
+                mismatches++;
+                System.out.println("Closed session in trial " + trial + " saw a later obstacle");
+            }
+        }
+
+        System.out.println(obstacleChanges + " obstacle changes checked, " + mismatches + " mismatches");
+        System.out.println(repairs + " repairs touched " + touched / Math.max(1, repairs)
+                + " nodes on average; a full BFS expanded " + fullExpanded / Math.max(1, repairs));
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Records every other row, split between the two users, and 25 random columns for the
+     * followed user.
+     *
+     * @return every point of the feed
+     */
+    private static Set<GridPoint> buildFeed(Random random, ActivityManager activityManager) throws Exception {
+        Set<GridPoint> points = new HashSet<>();
+        for (int y = 0; y < MAP_SIZE; y += 2) {
+            Route row = new Route("Row " + y);
+            for (int x = 0; x < MAP_SIZE; x++) {
+                row.addPoint(new GridPoint(x, y));
+                points.add(new GridPoint(x, y));
+            }
+            activityManager.createActivity(y % 4 == 0 ? "u" : "v", row, new Helmet("Helmet", "M"),
+                    LocalDate.of(2025, 1, 1), 1, 1, "Row");
+        }
+        for (int column = 0; column < 25; column++) {
+            Route route = new Route("Column " + column);
+            int x = random.nextInt(MAP_SIZE);
+            for (int y = 0; y < MAP_SIZE; y++) {
+                route.addPoint(new GridPoint(x, y));
+                points.add(new GridPoint(x, y));
+            }
+            activityManager.createActivity("v", route, new Helmet("Helmet", "M"), LocalDate.of(2025, 1, 1), 1, 1,
+                    "Column");
+        }
+        return points;
+    }
+
+    private static GridPoint randomPoint(Random random) {
+        return new GridPoint(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE));
+    }
+
+    /**
+     * Reference search: the number of points on a shortest route avoiding the obstacles, or -1 if
+     * there is none.
+     */
+    private static int shortestLength(Set<GridPoint> points, Map map, GridPoint start, GridPoint end) {
+        if (map.isBlocked(start.x(), start.y()) || map.isBlocked(end.x(), end.y())) {
+            return -1;
+        }
+        HashMap<GridPoint, Integer> lengths = new HashMap<>();
+        ArrayDeque<GridPoint> queue = new ArrayDeque<>();
+        lengths.put(start, 1);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            GridPoint current = queue.poll();
+            if (current.equals(end)) {
+                return lengths.get(current);
+            }
+            for (int[] step : STEPS) {
+                GridPoint next = new GridPoint(current.x() + step[0], current.y() + step[1]);
+                if (points.contains(next) && !map.isBlocked(next.x(), next.y()) && !lengths.containsKey(next)) {
+                    lengths.put(next, lengths.get(current) + 1);
+                    queue.add(next);
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,53 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+
+/**
+ * A* search guided by the Manhattan distance to the end point. The heuristic never overestimates
+ * on a 4-connected grid, so the path returned is a shortest one, found while expanding fewer
+ * points than breadth-first search when the end lies in a known direction.
+ */
+public class AStarSearch implements PathSearchStrategy {
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned route has the fewest points of any route between start and end.
+     */
+    @Override
+    public PathSearchResult search(GridPoint start, GridPoint end, PointGraph points) throws PathNotFoundException {
+        PathSearches.checkEndpoints(start, end, points);
+
+        int startId = points.indexOf(start);
+        int endId = points.indexOf(end);
+        int[] neighbors = new int[4];
+        SearchState state = SearchState.acquire(points.capacity());
+        int expanded = 0;
+
+        state.discover(startId, -1, 0);
+        state.offer(startId, PathSearches.manhattan(points, startId, endId));
+
+        while (state.frontierSize() > 0) {
+            int current = state.poll();
+            expanded++;
+
+            if (current == endId) {
+                return new PathSearchResult(state.reconstructPath(points, endId), expanded);
+            }
+
+            int g = state.cost(current) + 1;
+            int neighborCount = points.neighbors(current, neighbors);
+            for (int i = 0; i < neighborCount; i++) {
+                int neighbor = neighbors[i];
+                if (!state.isDiscovered(neighbor) || g < state.cost(neighbor)) {
+                    state.discover(neighbor, current, g);
+                    state.offer(neighbor, g + PathSearches.manhattan(points, neighbor, endId));
+                }
+            }
+        }
+
+        throw new PathNotFoundException("No path exists between the two points");
+    }
+}
@@ -4,18 +4,42 @@ import ca.umanitoba.cs.abdullmm.exceptions.InvalidActivityException;
 import ca.umanitoba.cs.abdullmm.exceptions.InvalidUserException;
 import ca.umanitoba.cs.abdullmm.model.Activity;
 import ca.umanitoba.cs.abdullmm.model.ActivityFeed;
+import ca.umanitoba.cs.abdullmm.model.ActivityView;
+import ca.umanitoba.cs.abdullmm.model.FeedMetrics;
+import ca.umanitoba.cs.abdullmm.model.FeedStats;
 import ca.umanitoba.cs.abdullmm.model.Gear;
 import ca.umanitoba.cs.abdullmm.model.Route;
+import ca.umanitoba.cs.abdullmm.model.Timeline;
 import ca.umanitoba.cs.abdullmm.model.UserProfile;
 import com.google.common.base.Preconditions;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Manager for activities. Responsible for creating activities, managing activity history,
  * and providing feed operations. Validates business rules related to activities.
  *
+ * In FeedMode.PUSH, feeds are precomputed on write: recording an activity appends it to the
+ * Timeline of its author and of every user following them, found through the author's reverse
+ * follow index, and followUser and unfollowUser backfill or purge the follower's timeline. A
+ * user's timeline is created when their feed is first requested. A timeline left out of sync by a
+ * follow that bypassed the manager is rebuilt when the feed is next requested or the user next
+ * follows or unfollows someone; the rebuild also registers the user with the reverse follow index
+ * of everyone they follow, so those follows count toward the pull threshold like any other.
+ *
+ * FeedMode.HYBRID caps that fan-out. A user whose follower count rises above the pull threshold
+ * has their feed marked pulled and their activities purged from their followers' timelines;
+ * from then on followers merge their history on read instead. The user goes back to being
+ * pushed, and is backfilled, once the count drops to half the threshold, so that a count hovering
+ * around the threshold does not rewrite the timelines on every follow.
+ *
+ * The writes each activity causes and the sources each feed read merges are counted in the
+ * manager's FeedMetrics (see getFeedStats).
+ *
  * Preconditions for public methods:
  * - Parameters must not be null unless explicitly stated
  * - userManager must be provided and non-null
@@ -24,7 +48,14 @@ import java.util.ArrayList;
  * - Activity state changes are reflected in user profiles immediately
  */
 public class ActivityManager {
+    private static final int DEFAULT_TIMELINE_CAPACITY = 200;
+    private static final int DEFAULT_PULL_THRESHOLD = 500;
+
     private UserManager userManager;
+    private FeedMode feedMode;
+    private int timelineCapacity;
+    private int pullThreshold;
+    private FeedMetrics feedMetrics;
 
     /**
      * Constructs an ActivityManager with a given UserManager.
@@ -35,8 +66,45 @@ public class ActivityManager {
      * @param userManager the UserManager for user profile access
      */
     public ActivityManager(UserManager userManager) {
+        this(userManager, FeedMode.PULL, DEFAULT_TIMELINE_CAPACITY);
+    }
+
+    /**
+     * Constructs an ActivityManager that assembles feeds in the given mode.
+     *
+     * Precondition: userManager and feedMode are not null; timelineCapacity > 0
+     * Postcondition: initialized with provided UserManager and feed mode
+     *
+     * @param userManager the UserManager for user profile access
+     * @param feedMode how feeds are assembled
+     * @param timelineCapacity the most activities each timeline holds in FeedMode.PUSH
+     */
+    public ActivityManager(UserManager userManager, FeedMode feedMode, int timelineCapacity) {
+        this(userManager, feedMode, timelineCapacity, DEFAULT_PULL_THRESHOLD);
+    }
+
+    /**
+     * Constructs an ActivityManager that assembles feeds in the given mode and, in FeedMode.HYBRID,
+     * pulls the activities of users with more followers than a threshold.
+     *
+     * Precondition: userManager and feedMode are not null; timelineCapacity > 0; pullThreshold > 0
+     * Postcondition: initialized with provided UserManager, feed mode and threshold
+     *
+     * @param userManager the UserManager for user profile access
+     * @param feedMode how feeds are assembled
+     * @param timelineCapacity the most activities each timeline holds in FeedMode.PUSH or HYBRID
+     * @param pullThreshold the most followers a user can have and still be pushed in FeedMode.HYBRID
+     */
+    public ActivityManager(UserManager userManager, FeedMode feedMode, int timelineCapacity, int pullThreshold) {
         Preconditions.checkNotNull(userManager, "UserManager cannot be null");
+        Preconditions.checkNotNull(feedMode, "Feed mode cannot be null");
+        Preconditions.checkArgument(timelineCapacity > 0, "Timeline capacity must be positive");
+        Preconditions.checkArgument(pullThreshold > 0, "Pull threshold must be positive");
         this.userManager = userManager;
+        this.feedMode = feedMode;
+        this.timelineCapacity = timelineCapacity;
+        this.pullThreshold = pullThreshold;
+        this.feedMetrics = new FeedMetrics();
     }
 
     /**
@@ -51,7 +119,10 @@ public class ActivityManager {
      * - durationMinutes > 0
      * - name is not null and not empty
      *
-     * Postcondition: activity is created and added to user's activity history
+     * Postcondition: activity is created and added to user's activity history; its route points
+     * are added to the user's route point index; in FeedMode.PUSH it is on every synced timeline
+     * of the user and their followers, and in FeedMode.HYBRID on their followers' only if the
+     * user's feed is not pulled
      *
      * @param userId the ID of the user creating the activity
      * @param route the route taken in this activity
@@ -78,6 +149,7 @@ public class ActivityManager {
         try {
             Activity activity = new Activity(route, gear, date, distance, durationMinutes, name);
             userProfile.addActivity(activity);
+            feedMetrics.recordActivity(feedMode == FeedMode.PULL ? 0 : fanOut(userProfile));
             return activity;
         } catch (IllegalStateException | IllegalArgumentException e) {
             throw new InvalidActivityException("Failed to create activity: " + e.getMessage(), e);
@@ -88,16 +160,36 @@ public class ActivityManager {
      * Gets a user's activity history.
      *
      * Precondition: userId is not null, not empty, and user exists
-     * Postcondition: returns a copy of the user's activities
+     * Postcondition: returns a read-only snapshot of the user's activities; no state change
      *
      * @param userId the user ID
-     * @return list of the user's activities
+     * @return view of the user's activities, unaffected by activities recorded later
      * @throws InvalidUserException if the user does not exist
      */
-    public ArrayList<Activity> getUserActivities(String userId) throws InvalidUserException {
+    public ActivityView getUserActivities(String userId) throws InvalidUserException {
         Preconditions.checkNotNull(userId, "User ID cannot be null");
         UserProfile userProfile = userManager.getUser(userId);
-        return new ArrayList<>(userProfile.getActivities());
+        return userProfile.getActivities();
+    }
+
+    /**
+     * Gets the activities a user did within a date range, found by binary search in the user's
+     * date-ordered index rather than by filtering the whole history.
+     *
+     * Precondition: userId, from and to are not null; user exists; from is not after to
+     * Postcondition: returns the user's activities dated from through to, oldest first
+     *
+     * @param userId the user ID
+     * @param from the first date of the range
+     * @param to the last date of the range, inclusive
+     * @return list of the user's activities in the range
+     * @throws InvalidUserException if the user does not exist
+     */
+    public List<Activity> getUserActivitiesBetween(String userId, LocalDate from, LocalDate to)
+            throws InvalidUserException {
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        UserProfile userProfile = userManager.getUser(userId);
+        return userProfile.getActivitiesBetween(from, to);
     }
 
     /**
@@ -127,7 +219,7 @@ public class ActivityManager {
         Preconditions.checkNotNull(userId, "User ID cannot be null");
         UserProfile userProfile = userManager.getUser(userId);
 
-        ArrayList<Activity> activities = userProfile.getActivities();
+        ActivityView activities = userProfile.getActivities();
         if (sourceActivityIndex < 0 || sourceActivityIndex >= activities.size()) {
             throw new InvalidActivityException("Invalid activity index: " + sourceActivityIndex);
         }
@@ -143,7 +235,8 @@ public class ActivityManager {
      * Gets an activity feed for a user (own activities + followed users' activities).
      *
      * Precondition: userId is not null and user exists
-     * Postcondition: returns a new ActivityFeed object
+     * Postcondition: returns a new ActivityFeed object; outside FeedMode.PULL the user has a
+     * timeline and it is in sync
      *
      * @param userId the user ID
      * @return the ActivityFeed for this user
@@ -151,8 +244,178 @@ public class ActivityManager {
      */
     public ActivityFeed getActivityFeed(String userId) throws InvalidUserException {
         Preconditions.checkNotNull(userId, "User ID cannot be null");
-        userManager.getUser(userId); // Validate user exists
-        return new ActivityFeed(userId, userManager.getAllProfiles());
+        UserProfile userProfile = userManager.getUser(userId); // Validate user exists
+        if (feedMode != FeedMode.PULL) {
+            userProfile.enableTimeline(timelineCapacity);
+            syncTimeline(userProfile);
+        }
+        return new ActivityFeed(userId, userManager.getAllProfiles(), feedMetrics);
     }
-}
 
+    /**
+     * Gets the feed counters: timeline writes per recorded activity and sources merged per read.
+     *
+     * Postcondition: no state change
+     *
+     * @return the current feed statistics
+     */
+    public FeedStats getFeedStats() {
+        return feedMetrics.stats();
+    }
+
+    /**
+     * Makes one user follow another, adding the followed user's recent activities to the
+     * follower's timeline if they have one and the followed user's feed is not pulled.
+     *
+     * Precondition: userId and targetUserId are not null; both users exist and are different;
+     * the user is not already following the target
+     * Postcondition: the user follows the target and is one of the target's followers; in
+     * FeedMode.HYBRID the target's feed is pulled if they now have more followers than the threshold
+     *
+     * @param userId the ID of the follower
+     * @param targetUserId the ID of the user to follow
+     * @throws InvalidUserException if either user does not exist
+     */
+    public void followUser(String userId, String targetUserId) throws InvalidUserException {
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(targetUserId, "Target user ID cannot be null");
+        Preconditions.checkArgument(!userId.equals(targetUserId), "Users cannot follow themselves");
+        UserProfile userProfile = userManager.getUser(userId);
+        UserProfile targetProfile = userManager.getUser(targetUserId);
+
+        Timeline timeline = userProfile.getTimeline();
+        boolean synced = timeline != null && timeline.isSynced();
+        userProfile.followUser(targetProfile);
+        updateDelivery(targetProfile);
+        if (synced) {
+            timeline.backfill(targetProfile);
+        } else {
+            syncTimeline(userProfile);
+        }
+    }
+
+    /**
+     * Makes one user stop following another, removing the unfollowed user's activities from the
+     * follower's timeline if they have one.
+     *
+     * Precondition: userId and targetUserId are not null; the user exists and follows the target
+     * Postcondition: the user no longer follows the target and is not one of its followers; in
+     * FeedMode.HYBRID the target's feed is pushed again if their followers have dropped to half
+     * the threshold
+     *
+     * @param userId the ID of the follower
+     * @param targetUserId the ID of the user to unfollow
+     * @throws InvalidUserException if the user does not exist
+     */
+    public void unfollowUser(String userId, String targetUserId) throws InvalidUserException {
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(targetUserId, "Target user ID cannot be null");
+        UserProfile userProfile = userManager.getUser(userId);
+        UserProfile targetProfile = userManager.getAllProfiles().get(targetUserId); // May no longer exist
+
+        Timeline timeline = userProfile.getTimeline();
+        boolean synced = timeline != null && timeline.isSynced();
+        if (targetProfile == null) {
+            userProfile.unfollowUser(targetUserId);
+        } else {
+            userProfile.unfollowUser(targetProfile);
+        }
+        if (synced) {
+            timeline.purge(targetUserId);
+        }
+        if (targetProfile != null) {
+            updateDelivery(targetProfile);
+        }
+        if (!synced) {
+            syncTimeline(userProfile);
+        }
+    }
+
+    /**
+     * Rebuilds a user's timeline if a follow or unfollow has bypassed it, first registering the
+     * user with the reverse follow index of each followed user that is missing them.
+     *
+     * @param user the profile whose timeline to bring in sync
+     */
+    private void syncTimeline(UserProfile user) {
+        Timeline timeline = user.getTimeline();
+        if (timeline == null || timeline.isSynced()) {
+            return;
+        }
+
+        Map<String, UserProfile> profiles = userManager.getAllProfiles();
+        Map<String, UserProfile> members = new LinkedHashMap<>();
+        members.put(user.getUserId(), user);
+        for (String followedUserId : user.getFollowedUserIds()) {
+            UserProfile followed = profiles.get(followedUserId);
+            if (followed != null && members.putIfAbsent(followedUserId, followed) == null
+                    && followed.addFollower(user.getUserId())) {
+                updateDelivery(followed);
+            }
+        }
+        timeline.rebuild(new ArrayList<>(members.values()));
+    }
+
+    /**
+     * Pushes an author's newest activity onto the author's own timeline and, unless the author's
+     * feed is pulled, the timeline of every user following them. Timelines that are out of sync
+     * are skipped, since they are rebuilt from the histories before they are read again, as are
+     * followers in the reverse index who no longer follow the author.
+     *
+     * @param author the profile that just recorded an activity
+     * @return the number of timelines written to
+     */
+    private int fanOut(UserProfile author) {
+        int writes = 0;
+        Timeline own = author.getTimeline();
+        if (own != null && own.isSynced()) {
+            own.addLatest(author);
+            writes++;
+        }
+        if (author.isFeedPulled()) {
+            return writes;
+        }
+        Map<String, UserProfile> profiles = userManager.getAllProfiles();
+        for (String followerId : author.getFollowerIds()) {
+            UserProfile follower = profiles.get(followerId);
+            Timeline timeline = follower == null ? null : follower.getTimeline();
+            if (timeline != null && timeline.isSynced() && follower.isFollowing(author.getUserId())) {
+                timeline.addLatest(author);
+                writes++;
+            }
+        }
+        return writes;
+    }
+
+    /**
+     * In FeedMode.HYBRID, switches a user between pushed and pulled delivery when their follower
+     * count has crossed the threshold, purging them from or backfilling them into their followers'
+     * synced timelines.
+     *
+     * @param author the profile whose follower count just changed
+     */
+    private void updateDelivery(UserProfile author) {
+        if (feedMode != FeedMode.HYBRID) {
+            return;
+        }
+        int followers = author.getFollowerCount();
+        boolean pull = author.isFeedPulled() ? followers > pullThreshold / 2 : followers > pullThreshold;
+        if (pull == author.isFeedPulled()) {
+            return;
+        }
+
+        author.setFeedPulled(pull);
+        Map<String, UserProfile> profiles = userManager.getAllProfiles();
+        for (String followerId : author.getFollowerIds()) {
+            UserProfile follower = profiles.get(followerId);
+            Timeline timeline = follower == null ? null : follower.getTimeline();
+            if (timeline != null && timeline.isSynced() && follower.isFollowing(author.getUserId())) {
+                if (pull) {
+                    timeline.purge(author.getUserId());
+                } else {
+                    timeline.backfill(author);
+                }
+            }
+        }
+    }
+}
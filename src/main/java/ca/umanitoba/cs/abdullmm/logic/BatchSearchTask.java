@@ -0,0 +1,68 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.ConnectivityIndex;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join task that answers a range of batch route queries over one shared graph. Ranges are
+ * split in half until they are small enough to run directly, so idle workers can steal the
+ * other half. Each worker thread reuses its own SearchState, and the graph and connectivity
+ * index are only read.
+ */
+class BatchSearchTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private static final int DIRECT_THRESHOLD = 8;
+
+    private PointGraph graph;
+    private ConnectivityIndex connectivity;
+    private PathSearchStrategy strategy;
+    private List<RouteQuery> queries;
+    private RouteQueryResult[] results;
+    private int from;
+    private int to;
+
+    /**
+     * Constructs a task that answers queries[from, to) into the matching slots of results.
+     *
+     * Precondition: all references are not null; 0 <= from <= to <= queries.size() == results.length
+     * Postcondition: once invoked, every slot in [from, to) holds a result
+     */
+    BatchSearchTask(PointGraph graph, ConnectivityIndex connectivity, PathSearchStrategy strategy,
+                    List<RouteQuery> queries, RouteQueryResult[] results, int from, int to) {
+        this.graph = graph;
+        this.connectivity = connectivity;
+        this.strategy = strategy;
+        this.queries = queries;
+        this.results = results;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= DIRECT_THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                results[i] = answer(queries.get(i));
+            }
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        invokeAll(new BatchSearchTask(graph, connectivity, strategy, queries, results, from, mid),
+                new BatchSearchTask(graph, connectivity, strategy, queries, results, mid, to));
+    }
+
+    private RouteQueryResult answer(RouteQuery query) {
+        try {
+            PathSearches.checkReachable(query.start(), query.end(), graph, connectivity);
+            PathSearchResult found = strategy.search(query.start(), query.end(), graph);
+            return new RouteQueryResult(query, found.route(), found.nodesExpanded(), null);
+        } catch (PathNotFoundException e) {
+            return new RouteQueryResult(query, null, 0, e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+
+/**
+ * Bidirectional search that grows one frontier from the start and another from the end and stops
+ * once they meet. When the endpoints are far apart, the two frontiers together cover far fewer
+ * points than a single frontier that has to reach all the way across.
+ *
+ * Two modes are supported, and both return a shortest path:
+ * - breadth-first: each step expands a whole layer of the smaller frontier
+ * - guided: each frontier is an A* search towards the opposite endpoint using Manhattan distance
+ */
+public class BidirectionalSearch implements PathSearchStrategy {
+    private boolean guided;
+
+    /**
+     * Constructs a bidirectional breadth-first search.
+     *
+     * Postcondition: searches expand whole layers from alternating ends
+     */
+    public BidirectionalSearch() {
+        this(false);
+    }
+
+    /**
+     * Constructs a bidirectional search.
+     *
+     * Postcondition: searches are guided by the Manhattan heuristic if guided is true,
+     * and breadth-first otherwise
+     *
+     * @param guided true for bidirectional A*, false for bidirectional breadth-first search
+     */
+    public BidirectionalSearch(boolean guided) {
+        this.guided = guided;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned route has the fewest points of any route between start and end. The expansion
+     * count covers both frontiers.
+     */
+    @Override
+    public PathSearchResult search(GridPoint start, GridPoint end, PointGraph points) throws PathNotFoundException {
+        PathSearches.checkEndpoints(start, end, points);
+
+        int startId = points.indexOf(start);
+        int endId = points.indexOf(end);
+        SearchState forwardState = SearchState.acquire(points.capacity());
+        SearchState backwardState = SearchState.acquireSecondary(points.capacity());
+
+        if (startId == endId) {
+            forwardState.discover(startId, -1, 0);
+            return new PathSearchResult(forwardState.reconstructPath(points, startId), 1);
+        }
+
+        return guided
+                ? searchGuided(startId, endId, points, forwardState, backwardState)
+                : searchBreadthFirst(startId, endId, points, forwardState, backwardState);
+    }
+
+    /**
+     * Alternates whole breadth-first layers between the two sides, always advancing the smaller
+     * frontier. The first layer that produces a meeting contains a shortest path, so the best
+     * meeting within that layer is returned.
+     */
+    private PathSearchResult searchBreadthFirst(int startId, int endId, PointGraph points,
+                                                SearchState forwardState, SearchState backwardState)
+            throws PathNotFoundException {
+        int[] neighbors = new int[4];
+        int expanded = 0;
+
+        forwardState.discover(startId, -1, 0);
+        forwardState.enqueue(startId);
+        backwardState.discover(endId, -1, 0);
+        backwardState.enqueue(endId);
+
+        while (forwardState.frontierSize() > 0 && backwardState.frontierSize() > 0) {
+            boolean forward = forwardState.frontierSize() <= backwardState.frontierSize();
+            SearchState state = forward ? forwardState : backwardState;
+            SearchState other = forward ? backwardState : forwardState;
+
+            int meet = -1;
+            int bestLength = Integer.MAX_VALUE;
+            int layerSize = state.frontierSize();
+            for (int n = 0; n < layerSize; n++) {
+                int current = state.dequeue();
+                expanded++;
+                int nextCost = state.cost(current) + 1;
+
+                int neighborCount = points.neighbors(current, neighbors);
+                for (int i = 0; i < neighborCount; i++) {
+                    int neighbor = neighbors[i];
+                    if (state.isDiscovered(neighbor)) {
+                        continue;
+                    }
+                    state.discover(neighbor, current, nextCost);
+                    state.enqueue(neighbor);
+
+                    if (other.isDiscovered(neighbor) && nextCost + other.cost(neighbor) < bestLength) {
+                        bestLength = nextCost + other.cost(neighbor);
+                        meet = neighbor;
+                    }
+                }
+            }
+
+            if (meet >= 0) {
+                return new PathSearchResult(forwardState.reconstructPath(points, backwardState, meet), expanded);
+            }
+        }
+
+        throw new PathNotFoundException("No path exists between the two points");
+    }
+
+    /**
+     * Runs an A* search from each end, expanding the side with the smaller open set. Each side
+     * estimates the distance to the opposite endpoint, so the heuristic stays consistent and the
+     * search can stop as soon as either open set can no longer beat the best meeting found.
+     */
+    private PathSearchResult searchGuided(int startId, int endId, PointGraph points,
+                                          SearchState forwardState, SearchState backwardState)
+            throws PathNotFoundException {
+        int[] neighbors = new int[4];
+        int expanded = 0;
+
+        forwardState.discover(startId, -1, 0);
+        forwardState.offer(startId, PathSearches.manhattan(points, startId, endId));
+        backwardState.discover(endId, -1, 0);
+        backwardState.offer(endId, PathSearches.manhattan(points, endId, startId));
+
+        int meet = -1;
+        int bestLength = Integer.MAX_VALUE;
+
+        while (forwardState.frontierSize() > 0 && backwardState.frontierSize() > 0) {
+            if (forwardState.peekPriority() >= bestLength || backwardState.peekPriority() >= bestLength) {
+                break; // No unexpanded path on either side can beat the best meeting
+            }
+
+            boolean forward = forwardState.frontierSize() <= backwardState.frontierSize();
+            SearchState state = forward ? forwardState : backwardState;
+            SearchState other = forward ? backwardState : forwardState;
+            int target = forward ? endId : startId;
+
+            int current = state.poll();
+            expanded++;
+
+            int g = state.cost(current) + 1;
+            int neighborCount = points.neighbors(current, neighbors);
+            for (int i = 0; i < neighborCount; i++) {
+                int neighbor = neighbors[i];
+                if (state.isDiscovered(neighbor) && g >= state.cost(neighbor)) {
+                    continue;
+                }
+                state.discover(neighbor, current, g);
+                state.offer(neighbor, g + PathSearches.manhattan(points, neighbor, target));
+
+                if (other.isDiscovered(neighbor) && g + other.cost(neighbor) < bestLength) {
+                    bestLength = g + other.cost(neighbor);
+                    meet = neighbor;
+                }
+            }
+        }
+
+        if (meet < 0) {
+            throw new PathNotFoundException("No path exists between the two points");
+        }
+        return new PathSearchResult(forwardState.reconstructPath(points, backwardState, meet), expanded);
+    }
+}
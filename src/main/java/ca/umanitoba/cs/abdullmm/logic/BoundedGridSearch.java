@@ -0,0 +1,225 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.Dimension;
+import ca.umanitoba.cs.abdullmm.model.GridBitmap;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+import ca.umanitoba.cs.abdullmm.model.Route;
+import com.google.common.base.Preconditions;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Breadth-first search over a dense GridBitmap of a bounded map instead of the graph's hash table.
+ * Neighbor tests are bit reads at cell +/- 1 and cell +/- width, the visited set is one bit per
+ * cell and parents are two-bit directions, so the memory a search touches depends only on the
+ * map's Dimension.
+ *
+ * Each thread keeps one bitmap and one cell queue. The traversable layer is only reloaded from
+ * the graph when a search runs over a different graph, or the same graph after it has grown.
+ *
+ * The bitmap only covers the map, so it can only answer for graphs whose points all lie inside
+ * it. A search constructed with a fallback strategy hands any other graph to the fallback, which
+ * sees every point; without one, route points outside the map are ignored.
+ *
+ * Cells are not PointGraph ids, so a budgeted search that stops early has no partial route.
+ */
+public class BoundedGridSearch implements PathSearchStrategy {
+    private Dimension dimension;
+    private PathSearchStrategy fallback;
+    private ThreadLocal<Workspace> workspaces;
+
+    /**
+     * Constructs a search over maps of the given size that ignores points outside the map.
+     *
+     * Precondition: dimension is not null
+     * Postcondition: searches are confined to cells inside the dimension
+     *
+     * @param dimension the size of the map
+     */
+    public BoundedGridSearch(Dimension dimension) {
+        Preconditions.checkNotNull(dimension, "Dimension cannot be null");
+        this.dimension = dimension;
+        this.fallback = null;
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(dimension));
+    }
+
+    /**
+     * Constructs a search over maps of the given size that passes graphs reaching outside the map
+     * to another strategy.
+     *
+     * Precondition: dimension and fallback are not null
+     * Postcondition: graphs that fit the dimension are searched over the bitmap; the rest with fallback
+     *
+     * @param dimension the size of the map
+     * @param fallback the strategy for graphs with points outside the map
+     */
+    public BoundedGridSearch(Dimension dimension, PathSearchStrategy fallback) {
+        this(dimension);
+        Preconditions.checkNotNull(fallback, "Fallback strategy cannot be null");
+        this.fallback = fallback;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned route has the fewest points of any route between start and end that stays
+     * inside the map. A graph with points outside the map is searched with the fallback strategy,
+     * if there is one.
+     *
+     * @throws PathNotFoundException additionally, without a fallback, if either endpoint lies
+     *                               outside the map
+     */
+    @Override
+    public PathSearchResult search(GridPoint start, GridPoint end, PointGraph points) throws PathNotFoundException {
+        PathSearches.checkEndpoints(start, end, points);
+
+        Workspace workspace = workspaces.get();
+        GridBitmap grid = workspace.grid;
+        workspace.load(points);
+        if (!workspace.loadedFits && fallback != null) {
+            return fallback.search(start, end, points);
+        }
+        if (!grid.contains(start.x(), start.y()) || !grid.contains(end.x(), end.y())) {
+            throw new PathNotFoundException("Route endpoints must lie inside the map");
+        }
+        grid.clearVisited();
+
+        int width = grid.width();
+        int startCell = grid.cell(start.x(), start.y());
+        int endCell = grid.cell(end.x(), end.y());
+        int[] queue = workspace.queue;
+        SearchMonitor monitor = SearchMonitor.current();
+        int head = 0;
+        int tail = 0;
+
+        grid.visit(startCell, GridBitmap.EAST);
+        queue[tail++] = startCell;
+
+        while (head < tail) {
+            int current = queue[head++];
+            monitor.tick();
+            if (current == endCell) {
+                return new PathSearchResult(reconstructPath(grid, startCell, endCell), head);
+            }
+
+            int x = current % width;
+            int y = current / width;
+            if (x + 1 < width) {
+                tail = expand(grid, queue, tail, current + 1, GridBitmap.EAST);
+            }
+            if (x > 0) {
+                tail = expand(grid, queue, tail, current - 1, GridBitmap.WEST);
+            }
+            if (y + 1 < grid.height()) {
+                tail = expand(grid, queue, tail, current + width, GridBitmap.NORTH);
+            }
+            if (y > 0) {
+                tail = expand(grid, queue, tail, current - width, GridBitmap.SOUTH);
+            }
+        }
+
+        throw new PathNotFoundException("No path exists between the two points");
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    public PathSearchStrategy getFallback() {
+        return fallback;
+    }
+
+    /**
+     * Visits and enqueues a neighboring cell if it is traversable and not yet visited.
+     */
+    private static int expand(GridBitmap grid, int[] queue, int tail, int cell, int direction) {
+        if (grid.isTraversable(cell) && !grid.isVisited(cell)) {
+            grid.visit(cell, direction);
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    /**
+     * Walks the parent directions back from the end cell, then fills a route sized to the
+     * measured length from start to end.
+     */
+    private static Route reconstructPath(GridBitmap grid, int startCell, int endCell) {
+        int width = grid.width();
+        int length = 1;
+        for (int cell = endCell; cell != startCell; length++) {
+            cell = stepBack(grid, cell, width);
+        }
+
+        GridPoint[] chain = new GridPoint[length];
+        int cell = endCell;
+        for (int i = length - 1; i >= 0; i--) {
+            chain[i] = new GridPoint(cell % width, cell / width);
+            if (i > 0) {
+                cell = stepBack(grid, cell, width);
+            }
+        }
+
+        Route path = new Route("Found Path");
+        path.getPoints().ensureCapacity(length);
+        for (GridPoint point : chain) {
+            path.addPoint(point);
+        }
+        return path;
+    }
+
+    private static int stepBack(GridBitmap grid, int cell, int width) {
+        int direction = grid.parentDirection(cell);
+        return cell - GridBitmap.dx(direction) - GridBitmap.dy(direction) * width;
+    }
+
+    /**
+     * One thread's bitmap and queue, plus a record of which graph the traversable layer holds and
+     * whether all of that graph's points fit in it.
+     * The graph is weakly referenced so an idle thread does not keep a stale snapshot alive.
+     */
+    private static class Workspace {
+        private GridBitmap grid;
+        private int[] queue;
+        private WeakReference<PointGraph> loadedGraph;
+        private int loadedCapacity;
+        private boolean loadedFits;
+
+        private Workspace(Dimension dimension) {
+            this.grid = new GridBitmap(dimension);
+            this.queue = new int[dimension.width() * dimension.height()];
+            this.loadedGraph = new WeakReference<>(null);
+            this.loadedCapacity = -1;
+        }
+
+        /**
+         * Makes the traversable layer match the points of a graph. Only ids the graph maps back
+         * to themselves are set, which skips the unused ids of a composite graph and the points
+         * an obstacle-filtered view hides.
+         */
+        private void load(PointGraph points) {
+            if (loadedGraph.get() == points && loadedCapacity == points.capacity()) {
+                return;
+            }
+            grid.clearTraversable();
+            int capacity = points.capacity();
+            boolean fits = true;
+            for (int id = 0; id < capacity; id++) {
+                int x = points.x(id);
+                int y = points.y(id);
+                if (points.indexOf(x, y) == id) {
+                    if (grid.contains(x, y)) {
+                        grid.setTraversable(grid.cell(x, y));
+                    } else {
+                        fits = false;
+                    }
+                }
+            }
+            loadedGraph = new WeakReference<>(points);
+            loadedCapacity = capacity;
+            loadedFits = fits;
+        }
+    }
+}
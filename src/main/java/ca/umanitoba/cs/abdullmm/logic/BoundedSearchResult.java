@@ -0,0 +1,30 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.Route;
+
+/**
+ * The outcome of a path search run under a SearchBudget.
+ *
+ * A PARTIAL or TIMED_OUT search carries its best effort as the route: the path from start to the
+ * expanded point nearest the end, by Manhattan distance. It is null when the search stopped
+ * before expanding anything, or the strategy keeps no parent links (BoundedGridSearch).
+ *
+ * @param outcome how the search ended
+ * @param route the path from start to end if COMPLETE, the best partial path if PARTIAL or
+ *              TIMED_OUT, otherwise null
+ * @param nodesExpanded the number of nodes the search expanded before it ended
+ * @param failure why no route exists if NOT_FOUND, otherwise null
+ */
+public record BoundedSearchResult(SearchOutcome outcome, Route route, int nodesExpanded,
+                                  PathNotFoundException failure) {
+
+    /**
+     * Checks whether the search found a full path from start to end.
+     *
+     * @return true if the outcome is COMPLETE
+     */
+    public boolean isComplete() {
+        return outcome == SearchOutcome.COMPLETE;
+    }
+}
@@ -0,0 +1,51 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+
+/**
+ * Queue-based breadth-first search. Every step costs the same, so the first time the end point
+ * is reached the path to it is a shortest one.
+ */
+public class BreadthFirstSearch implements PathSearchStrategy {
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned route has the fewest points of any route between start and end.
+     */
+    @Override
+    public PathSearchResult search(GridPoint start, GridPoint end, PointGraph points) throws PathNotFoundException {
+        PathSearches.checkEndpoints(start, end, points);
+
+        int startId = points.indexOf(start);
+        int endId = points.indexOf(end);
+        int[] neighbors = new int[4];
+        SearchState state = SearchState.acquire(points.capacity());
+        int expanded = 0;
+
+        state.enqueue(startId);
+        state.discover(startId, -1, 0);
+
+        while (state.frontierSize() > 0) {
+            int current = state.dequeue();
+            expanded++;
+
+            if (current == endId) {
+                return new PathSearchResult(state.reconstructPath(points, endId), expanded);
+            }
+
+            int neighborCount = points.neighbors(current, neighbors);
+            for (int i = 0; i < neighborCount; i++) {
+                int neighbor = neighbors[i];
+                if (!state.isDiscovered(neighbor)) {
+                    state.discover(neighbor, current, state.cost(current) + 1);
+                    state.enqueue(neighbor);
+                }
+            }
+        }
+
+        throw new PathNotFoundException("No path exists between the two points");
+    }
+}
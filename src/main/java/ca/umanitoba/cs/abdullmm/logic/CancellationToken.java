@@ -0,0 +1,40 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+/**
+ * A flag that lets one thread ask bounded path searches running on other threads to stop. A search
+ * checks its token as it expands points, so it ends soon after cancel is called, reporting
+ * SearchOutcome.CANCELLED. One token may be shared by any number of searches.
+ *
+ * Class Invariants:
+ * - once cancelled, a token stays cancelled
+ */
+public class CancellationToken {
+    private volatile boolean cancelled;
+
+    /**
+     * Constructs a token that has not been cancelled.
+     *
+     * Postcondition: isCancelled() is false
+     */
+    public CancellationToken() {
+        this.cancelled = false;
+    }
+
+    /**
+     * Cancels every search using this token.
+     *
+     * Postcondition: isCancelled() is true
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether the token has been cancelled.
+     *
+     * @return true if cancel has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
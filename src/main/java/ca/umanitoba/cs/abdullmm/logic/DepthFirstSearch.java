@@ -0,0 +1,163 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Stack-based depth-first search. Returns the first path found, which is not necessarily
+ * the shortest one.
+ *
+ * Marks visited nodes and backtracks when stuck, keeping its stack in a reused SearchState.
+ *
+ * Which path is found depends on the order neighbors are pushed. PathFinder used to scan a
+ * HashSet of the scope's points, collected in recording order, and push every unvisited point
+ * adjacent to the current one; the search keeps that order so that routes stay the same. A
+ * HashSet iterates bucket by bucket, and within a bucket in insertion order, so neighbors are
+ * pushed by the bucket their point would occupy in a HashSet of the whole graph and then by id,
+ * ids being assigned in recording order too. The table size such a set would have reached is
+ * worked out once per graph, replaying HashMap's growth over the graph's points, and kept while
+ * the graph keeps its capacity; graphs are held weakly. A bucket that HashMap would have turned
+ * into a tree (more than eight points colliding in a table of 64 or more) is not reproduced,
+ * since the order of a tree bin depends on identity hash codes.
+ */
+public class DepthFirstSearch implements PathSearchStrategy {
+    private static final int INITIAL_TABLE_SIZE = 16;
+    private static final int TREEIFY_THRESHOLD = 8;
+    private static final int MIN_TREEIFY_TABLE_SIZE = 64;
+
+    private record HashOrder(int capacity, int[] buckets) {
+    }
+
+    private Map<PointGraph, HashOrder> orders;
+
+    /**
+     * Constructs a depth-first search.
+     *
+     * Postcondition: no graph has a neighbor order worked out yet
+     */
+    public DepthFirstSearch() {
+        this.orders = new WeakHashMap<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Neighbors are pushed in the order a scan of a HashSet of the graph's points would meet them.
+     */
+    @Override
+    public PathSearchResult search(GridPoint start, GridPoint end, PointGraph points) throws PathNotFoundException {
+        PathSearches.checkEndpoints(start, end, points);
+
+        int[] buckets = hashOrder(points).buckets();
+        int startId = points.indexOf(start);
+        int endId = points.indexOf(end);
+        int[] neighbors = new int[4];
+        SearchState state = SearchState.acquire(buckets.length);
+        int expanded = 0;
+
+        state.push(startId);
+        state.discover(startId, -1, 0);
+
+        while (state.frontierSize() > 0) {
+            int current = state.pop();
+            expanded++;
+
+            if (current == endId) {
+                return new PathSearchResult(state.reconstructPath(points, endId), expanded);
+            }
+
+            int neighborCount = sortByBucket(neighbors, points.neighbors(current, neighbors), buckets);
+            for (int i = 0; i < neighborCount; i++) {
+                int neighbor = neighbors[i];
+                if (!state.isDiscovered(neighbor)) {
+                    state.discover(neighbor, current, state.cost(current) + 1);
+                    state.push(neighbor);
+                }
+            }
+        }
+
+        throw new PathNotFoundException("No path exists between the two points");
+    }
+
+    /**
+     * Gets the HashSet bucket of every id of a graph, working them out if the graph is new or has
+     * gained points since.
+     */
+    private HashOrder hashOrder(PointGraph points) {
+        synchronized (orders) {
+            HashOrder order = orders.get(points);
+            if (order == null || order.capacity() != points.capacity()) {
+                order = computeHashOrder(points);
+                orders.put(points, order);
+            }
+            return order;
+        }
+    }
+
+    /**
+     * Replays adding the graph's distinct points, in id order, to a HashSet: the table doubles once
+     * it is more than three quarters full, or when a bucket grows past eight points while the table
+     * is still too small to hold tree bins. Each id is then given its bucket in the final table.
+     */
+    private static HashOrder computeHashOrder(PointGraph points) {
+        int capacity = points.capacity();
+        int[] hashes = new int[capacity];
+        int[] inserted = new int[capacity];
+        int size = 0;
+        int tableSize = INITIAL_TABLE_SIZE;
+        int[] bucketSizes = new int[tableSize];
+
+        for (int id = 0; id < capacity; id++) {
+            int x = points.x(id);
+            int y = points.y(id);
+            int hash = new GridPoint(x, y).hashCode();
+            hashes[id] = hash ^ (hash >>> 16);
+            if (points.indexOf(x, y) != id) {
+                continue; // A repeat of a point from an earlier member, or hidden by an obstacle
+            }
+
+            int bucket = hashes[id] & (tableSize - 1);
+            boolean grow = bucketSizes[bucket]++ >= TREEIFY_THRESHOLD && tableSize < MIN_TREEIFY_TABLE_SIZE;
+            inserted[size++] = id;
+            if (grow || size > tableSize / 4 * 3) {
+                tableSize <<= 1;
+                if (grow && size > tableSize / 4 * 3) {
+                    tableSize <<= 1;
+                }
+                bucketSizes = new int[tableSize];
+                for (int i = 0; i < size; i++) {
+                    bucketSizes[hashes[inserted[i]] & (tableSize - 1)]++;
+                }
+            }
+        }
+
+        int[] buckets = new int[capacity];
+        for (int id = 0; id < capacity; id++) {
+            buckets[id] = hashes[id] & (tableSize - 1);
+        }
+        return new HashOrder(capacity, buckets);
+    }
+
+    /**
+     * Sorts up to four neighbor ids by bucket, then by id, in place.
+     *
+     * @return the number of neighbors
+     */
+    private static int sortByBucket(int[] neighbors, int count, int[] buckets) {
+        for (int i = 1; i < count; i++) {
+            int id = neighbors[i];
+            int j = i - 1;
+            while (j >= 0 && (buckets[neighbors[j]] > buckets[id]
+                    || (buckets[neighbors[j]] == buckets[id] && neighbors[j] > id))) {
+                neighbors[j + 1] = neighbors[j];
+                j--;
+            }
+            neighbors[j + 1] = id;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,90 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join task that fills rows of a shortest-path distance matrix between points of one shared
+ * graph. Row i comes from a single breadth-first search out of point i that stops as soon as
+ * every other point has been reached, so k points cost k searches rather than k * k. Rows are
+ * split in half until one remains, so idle workers can steal the other half; each worker
+ * reuses its own SearchState, and the graph is only read.
+ */
+class DistanceMatrixTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private PointGraph graph;
+    private int[] ids;
+    private int[][] distances;
+    private int from;
+    private int to;
+
+    /**
+     * Constructs a task that fills rows [from, to) of distances.
+     *
+     * Precondition: all references are not null; every id is a point of graph;
+     * distances is ids.length by ids.length; 0 <= from <= to <= ids.length
+     * Postcondition: once invoked, distances[i][j] for i in [from, to) is the number of steps
+     * from ids[i] to ids[j], or -1 if no path joins them
+     */
+    DistanceMatrixTask(PointGraph graph, int[] ids, int[][] distances, int from, int to) {
+        this.graph = graph;
+        this.ids = ids;
+        this.distances = distances;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= 1) {
+            for (int i = from; i < to; i++) {
+                fillRow(i);
+            }
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        invokeAll(new DistanceMatrixTask(graph, ids, distances, from, mid),
+                new DistanceMatrixTask(graph, ids, distances, mid, to));
+    }
+
+    private void fillRow(int row) {
+        // Targets sorted once so each expanded point is matched by binary search
+        int[] targets = ids.clone();
+        Arrays.sort(targets);
+        int remaining = 0;
+        for (int i = 0; i < targets.length; i++) {
+            if (i == 0 || targets[i] != targets[i - 1]) {
+                remaining++;
+            }
+        }
+
+        int[] neighbors = new int[4];
+        SearchState state = SearchState.acquire(graph.capacity());
+        state.discover(ids[row], -1, 0);
+        state.enqueue(ids[row]);
+
+        while (state.frontierSize() > 0 && remaining > 0) {
+            int current = state.dequeue();
+            if (Arrays.binarySearch(targets, current) >= 0) {
+                remaining--;
+            }
+
+            int neighborCount = graph.neighbors(current, neighbors);
+            for (int i = 0; i < neighborCount; i++) {
+                int neighbor = neighbors[i];
+                if (!state.isDiscovered(neighbor)) {
+                    state.discover(neighbor, current, state.cost(current) + 1);
+                    state.enqueue(neighbor);
+                }
+            }
+        }
+
+        for (int j = 0; j < ids.length; j++) {
+            distances[row][j] = state.isDiscovered(ids[j]) ? state.cost(ids[j]) : -1;
+        }
+    }
+}
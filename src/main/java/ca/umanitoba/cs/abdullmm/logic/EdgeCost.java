@@ -0,0 +1,39 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+
+/**
+ * The cost of one step between adjacent points, used by WeightedSearch in place of the unit steps
+ * the other strategies count. Costs are small positive integers so the search can keep its
+ * frontier in a radix heap rather than a comparison-based one.
+ *
+ * Implementations must be safe to call from several searches at once.
+ */
+@FunctionalInterface
+public interface EdgeCost {
+
+    /**
+     * Gets the cost of stepping from one point to an adjacent one.
+     *
+     * Precondition: fromId and toId are adjacent points of graph
+     * Postcondition: returns a value of at least minimumCost(); no state change
+     *
+     * @param graph the graph being searched
+     * @param fromId the id of the point stepped from
+     * @param toId the id of the point stepped to
+     * @return the cost of the step
+     */
+    int cost(PointGraph graph, int fromId, int toId);
+
+    /**
+     * Gets a lower bound on the cost of every step, which scales the search's Manhattan heuristic.
+     * A larger bound lets the search expand fewer points; it must never exceed a real step's cost.
+     *
+     * Postcondition: returns a value of at least 1
+     *
+     * @return the smallest cost any step can have
+     */
+    default int minimumCost() {
+        return 1;
+    }
+}
@@ -0,0 +1,20 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+/**
+ * How an ActivityManager assembles activity feeds.
+ */
+public enum FeedMode {
+    /** Feeds are merged from the members' histories on every read. */
+    PULL,
+    /**
+     * Each new activity is pushed onto the Timeline of its author and every follower, so reads
+     * only merge histories for activities too old to be in the timeline.
+     */
+    PUSH,
+    /**
+     * As PUSH, except that the activities of users with more followers than a threshold are not
+     * pushed to their followers but merged with the timeline on read, which bounds the writes one
+     * activity can cause.
+     */
+    HYBRID
+}
@@ -0,0 +1,151 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.InvalidUserException;
+import ca.umanitoba.cs.abdullmm.model.CompositePointGraph;
+import ca.umanitoba.cs.abdullmm.model.ConnectivityIndex;
+import ca.umanitoba.cs.abdullmm.model.PointIndex;
+import ca.umanitoba.cs.abdullmm.model.UserProfile;
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The route points of the users within some number of follow hops of one user, grown one hop
+ * at a time. Hop 0 is the user alone; each expand adds the users followed by the last hop's users
+ * that have not been seen yet, so users are visited in breadth-first order of follow distance.
+ *
+ * Loading a user only appends their PointIndex to a CompositePointGraph, and the connectivity
+ * index is extended over the appended ids rather than rebuilt, so each hop costs time in
+ * proportion to the points it adds. Loading stops for good at the first user whose points would
+ * take the total past the point budget.
+ *
+ * Class Invariants:
+ * - pointsLoaded <= pointBudget and equals the capacity of graph
+ * - connectivity covers every id of graph
+ */
+final class FollowExpansion {
+    private UserManager userManager;
+    private int pointBudget;
+    private Set<String> seenUserIds;
+    private List<UserProfile> lastHop;
+    private int hops;
+    private int usersLoaded;
+    private int pointsLoaded;
+    private boolean budgetReached;
+    private CompositePointGraph graph;
+    private ConnectivityIndex connectivity;
+
+    /**
+     * Starts an expansion holding only the root user's route points.
+     *
+     * Precondition: userManager and root are not null; pointBudget > 0
+     * Postcondition: hops() is 0
+     *
+     * @param userManager the manager to look followed users up in
+     * @param root the user whose follows are expanded
+     * @param pointBudget the most route points to load in total
+     */
+    FollowExpansion(UserManager userManager, UserProfile root, int pointBudget) {
+        Preconditions.checkNotNull(userManager, "UserManager cannot be null");
+        Preconditions.checkNotNull(root, "Profile cannot be null");
+        Preconditions.checkArgument(pointBudget > 0, "Point budget must be positive");
+        this.userManager = userManager;
+        this.pointBudget = pointBudget;
+        this.seenUserIds = new HashSet<>();
+        this.lastHop = new ArrayList<>();
+        this.hops = 0;
+        this.usersLoaded = 0;
+        this.pointsLoaded = 0;
+        this.budgetReached = false;
+        this.graph = new CompositePointGraph(List.of());
+        this.connectivity = new ConnectivityIndex();
+
+        seenUserIds.add(root.getUserId());
+        lastHop.add(root);
+        load(List.of(root));
+    }
+
+    /**
+     * Loads the users one more follow hop away.
+     *
+     * Postcondition: if anything was loaded, hops() has grown by one
+     *
+     * @return false if there were no new users to load or the point budget was already reached
+     * @throws InvalidUserException if a followed user does not exist
+     */
+    boolean expand() throws InvalidUserException {
+        if (budgetReached) {
+            return false;
+        }
+        List<UserProfile> nextHop = new ArrayList<>();
+        for (UserProfile profile : lastHop) {
+            for (String followedUserId : profile.getFollowedUserIds()) {
+                if (seenUserIds.add(followedUserId)) {
+                    nextHop.add(userManager.getUser(followedUserId));
+                }
+            }
+        }
+        if (nextHop.isEmpty()) {
+            return false;
+        }
+        lastHop = nextHop;
+        hops++;
+        load(nextHop);
+        return true;
+    }
+
+    CompositePointGraph graph() {
+        return graph;
+    }
+
+    ConnectivityIndex connectivity() {
+        return connectivity;
+    }
+
+    int hops() {
+        return hops;
+    }
+
+    int usersLoaded() {
+        return usersLoaded;
+    }
+
+    int pointsLoaded() {
+        return pointsLoaded;
+    }
+
+    boolean isBudgetReached() {
+        return budgetReached;
+    }
+
+    /**
+     * Appends the users' route points in order until the budget would be exceeded.
+     */
+    private void load(List<UserProfile> profiles) {
+        List<PointIndex> added = new ArrayList<>();
+        for (UserProfile profile : profiles) {
+            PointIndex points = profile.getRoutePoints();
+            if (points.size() > pointBudget - pointsLoaded) {
+                budgetReached = true;
+                break;
+            }
+            added.add(points);
+            pointsLoaded += points.size();
+            usersLoaded++;
+        }
+        graph = graph.append(added);
+        connectivity.extend(graph);
+        checkInvariant();
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(pointsLoaded <= pointBudget, "Loaded points exceed the budget");
+        Preconditions.checkState(pointsLoaded == graph.capacity(), "Graph must hold every loaded point");
+    }
+}
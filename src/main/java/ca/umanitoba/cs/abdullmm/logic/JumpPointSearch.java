@@ -0,0 +1,144 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+
+/**
+ * Jump Point Search for 4-connected grids: A* over a handful of "jump points" instead of every
+ * point along a straight run. Shortest paths on a uniform grid come in many symmetric orderings of
+ * the same moves; this search only follows the ordering that turns from vertical to horizontal as
+ * late as the obstacles allow, so straight corridors are crossed in one jump rather than one
+ * expansion per point.
+ *
+ * Pruning rules, for a point reached by a move in direction d:
+ * - d horizontal: continue in d, or turn vertically either way
+ * - d vertical: continue in d, or turn horizontally only if the point beside the previous point
+ *   on that side is missing (a forced neighbor)
+ *
+ * A vertical jump stops at the end point or a point with a forced neighbor. A horizontal jump also
+ * stops wherever a vertical jump from it would find a jump point. The returned route fills in the
+ * points between consecutive jump points, so it is an ordinary route of adjacent points with the
+ * fewest points possible.
+ */
+public class JumpPointSearch implements PathSearchStrategy {
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned route has the fewest points of any route between start and end. The expansion
+     * count is the number of jump points expanded.
+     */
+    @Override
+    public PathSearchResult search(GridPoint start, GridPoint end, PointGraph points) throws PathNotFoundException {
+        PathSearches.checkEndpoints(start, end, points);
+
+        int startId = points.indexOf(start);
+        int endId = points.indexOf(end);
+        SearchState state = SearchState.acquire(points.capacity());
+        int expanded = 0;
+
+        state.discover(startId, -1, 0);
+        state.offer(startId, PathSearches.manhattan(points, startId, endId));
+
+        while (state.frontierSize() > 0) {
+            int current = state.poll();
+            expanded++;
+
+            if (current == endId) {
+                return new PathSearchResult(state.reconstructJumpPath(points, endId), expanded);
+            }
+
+            int x = points.x(current);
+            int y = points.y(current);
+            int parentId = state.parent(current);
+            for (int direction = 0; direction < 4; direction++) {
+                if (parentId >= 0 && !isCanonical(points, x, y, parentId, direction)) {
+                    continue;
+                }
+                int jumpPoint = DY[direction] == 0
+                        ? jumpHorizontal(points, x, y, DX[direction], endId)
+                        : jumpVertical(points, x, y, DY[direction], endId);
+                if (jumpPoint < 0) {
+                    continue;
+                }
+
+                int g = state.cost(current) + PathSearches.manhattan(points, current, jumpPoint);
+                if (!state.isDiscovered(jumpPoint) || g < state.cost(jumpPoint)) {
+                    state.discover(jumpPoint, current, g);
+                    state.offer(jumpPoint, g + PathSearches.manhattan(points, jumpPoint, endId));
+                }
+            }
+        }
+
+        throw new PathNotFoundException("No path exists between the two points");
+    }
+
+    /**
+     * Applies the pruning rules to a move out of (x, y), which was reached in a straight line
+     * from parentId.
+     */
+    private static boolean isCanonical(PointGraph points, int x, int y, int parentId, int direction) {
+        int inX = Integer.signum(x - points.x(parentId));
+        int inY = Integer.signum(y - points.y(parentId));
+        if (DX[direction] == -inX && DY[direction] == -inY) {
+            return false; // Straight back towards the parent
+        }
+        if (inY == 0 || DY[direction] != 0) {
+            return true; // Any move after a horizontal one, or continuing vertically
+        }
+        // Turning horizontally after a vertical move is only needed when the way round is missing
+        return points.indexOf(x + DX[direction], y - inY) < 0;
+    }
+
+    /**
+     * Steps vertically from (x, y) until reaching the end point or a point with a forced neighbor.
+     *
+     * @return the id of the jump point, or -1 if the run ends without one
+     */
+    private static int jumpVertical(PointGraph points, int x, int y, int dy, int endId) {
+        while (true) {
+            int next = points.indexOf(x, y + dy);
+            if (next < 0) {
+                return -1;
+            }
+            if (next == endId || hasForcedNeighbor(points, x, y, dy)) {
+                return next;
+            }
+            y += dy;
+        }
+    }
+
+    /**
+     * Checks whether the point after (x, y) in vertical direction dy has a horizontal neighbor
+     * whose counterpart beside (x, y) is missing.
+     */
+    private static boolean hasForcedNeighbor(PointGraph points, int x, int y, int dy) {
+        int nextY = y + dy;
+        return (points.indexOf(x + 1, nextY) >= 0 && points.indexOf(x + 1, y) < 0)
+                || (points.indexOf(x - 1, nextY) >= 0 && points.indexOf(x - 1, y) < 0);
+    }
+
+    /**
+     * Steps horizontally from (x, y) until reaching the end point or a point from which a vertical
+     * jump succeeds.
+     *
+     * @return the id of the jump point, or -1 if the run ends without one
+     */
+    private static int jumpHorizontal(PointGraph points, int x, int y, int dx, int endId) {
+        while (true) {
+            int next = points.indexOf(x + dx, y);
+            if (next < 0) {
+                return -1;
+            }
+            x += dx;
+            if (next == endId
+                    || jumpVertical(points, x, y, 1, endId) >= 0
+                    || jumpVertical(points, x, y, -1, endId) >= 0) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.LandmarkIndex;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+import com.google.common.base.Preconditions;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A* search whose heuristic is the larger of the Manhattan distance and a LandmarkIndex lower
+ * bound (ALT). Landmark bounds see the actual shape of the route network, so queries whose path
+ * has to wind around gaps or obstacles expand far fewer points than plain A*.
+ *
+ * Landmarks are precomputed per graph in the background. The first query on a graph, or on a graph
+ * that has gained points since its landmarks were built, starts a rebuild on the common
+ * ForkJoinPool and is answered with the Manhattan heuristic alone; later queries use the landmarks
+ * once they are ready. Feeds get a new graph whenever their activities change, and a user's own
+ * index changes capacity, so stale landmarks are never used. Graphs are held weakly, so landmarks
+ * are dropped along with the graphs they describe.
+ */
+public class LandmarkSearch implements PathSearchStrategy {
+    private static final int DEFAULT_LANDMARK_COUNT = 6;
+
+    private record Build(int capacity, CompletableFuture<LandmarkIndex> landmarks) {
+    }
+
+    private int landmarkCount;
+    private Map<PointGraph, Build> builds;
+
+    /**
+     * Constructs a landmark search with the default number of landmarks.
+     *
+     * Postcondition: graphs are indexed with up to six landmarks
+     */
+    public LandmarkSearch() {
+        this(DEFAULT_LANDMARK_COUNT);
+    }
+
+    /**
+     * Constructs a landmark search.
+     *
+     * Precondition: landmarkCount > 0
+     * Postcondition: graphs are indexed with up to landmarkCount landmarks
+     *
+     * @param landmarkCount the number of landmarks to choose per graph
+     */
+    public LandmarkSearch(int landmarkCount) {
+        Preconditions.checkArgument(landmarkCount > 0, "Landmark count must be positive");
+        this.landmarkCount = landmarkCount;
+        this.builds = new WeakHashMap<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned route has the fewest points of any route between start and end.
+     */
+    @Override
+    public PathSearchResult search(GridPoint start, GridPoint end, PointGraph points) throws PathNotFoundException {
+        PathSearches.checkEndpoints(start, end, points);
+
+        LandmarkIndex landmarks = currentLandmarks(points);
+        int startId = points.indexOf(start);
+        int endId = points.indexOf(end);
+        int[] neighbors = new int[4];
+        SearchState state = SearchState.acquire(points.capacity());
+        int expanded = 0;
+
+        state.discover(startId, -1, 0);
+        state.offer(startId, estimate(points, landmarks, startId, endId));
+
+        while (state.frontierSize() > 0) {
+            int current = state.poll();
+            expanded++;
+
+            if (current == endId) {
+                return new PathSearchResult(state.reconstructPath(points, endId), expanded);
+            }
+
+            int g = state.cost(current) + 1;
+            int neighborCount = points.neighbors(current, neighbors);
+            for (int i = 0; i < neighborCount; i++) {
+                int neighbor = neighbors[i];
+                if (!state.isDiscovered(neighbor) || g < state.cost(neighbor)) {
+                    state.discover(neighbor, current, g);
+                    state.offer(neighbor, g + estimate(points, landmarks, neighbor, endId));
+                }
+            }
+        }
+
+        throw new PathNotFoundException("No path exists between the two points");
+    }
+
+    /**
+     * Checks whether landmarks for a graph in its current state have finished building.
+     *
+     * Postcondition: no state change
+     *
+     * @param points the graph
+     * @return true if searches on the graph use landmark bounds
+     */
+    public boolean hasLandmarks(PointGraph points) {
+        synchronized (builds) {
+            Build build = builds.get(points);
+            return build != null && build.capacity() == points.capacity() && ready(build) != null;
+        }
+    }
+
+    /**
+     * Gets the landmarks for a graph if they are ready, starting a background build if the graph
+     * has none or has changed since they were built.
+     *
+     * @return the landmarks, or null while they are being built
+     */
+    private LandmarkIndex currentLandmarks(PointGraph points) {
+        synchronized (builds) {
+            Build build = builds.get(points);
+            if (build == null || build.capacity() != points.capacity()) {
+                // The adjacency is captured here, so the background task never reads the live graph
+                build = new Build(points.capacity(),
+                        CompletableFuture.supplyAsync(LandmarkIndex.builder(points, landmarkCount)));
+                builds.put(points, build);
+            }
+            return ready(build);
+        }
+    }
+
+    private static LandmarkIndex ready(Build build) {
+        CompletableFuture<LandmarkIndex> landmarks = build.landmarks();
+        return landmarks.isDone() && !landmarks.isCompletedExceptionally() ? landmarks.join() : null;
+    }
+
+    private static int estimate(PointGraph points, LandmarkIndex landmarks, int from, int to) {
+        int manhattan = PathSearches.manhattan(points, from, to);
+        return landmarks == null ? manhattan : Math.max(manhattan, landmarks.lowerBound(from, to));
+    }
+}
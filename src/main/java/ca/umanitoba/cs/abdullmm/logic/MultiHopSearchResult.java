@@ -0,0 +1,13 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+/**
+ * The result of a route search over users up to some number of follow hops away.
+ *
+ * @param result the path found and the search statistics
+ * @param hops the follow distance of the farthest users whose routes were loaded; 0 means only
+ *             the querying user's own routes were needed
+ * @param usersLoaded the number of users whose route points were loaded
+ * @param pointsLoaded the total number of route points loaded across those users
+ */
+public record MultiHopSearchResult(PathSearchResult result, int hops, int usersLoaded, int pointsLoaded) {
+}
@@ -3,24 +3,80 @@ package ca.umanitoba.cs.abdullmm.logic;
 import ca.umanitoba.cs.abdullmm.exceptions.InvalidUserException;
 import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
 import ca.umanitoba.cs.abdullmm.model.Activity;
+import ca.umanitoba.cs.abdullmm.model.CompositePointGraph;
+import ca.umanitoba.cs.abdullmm.model.ConnectivityIndex;
 import ca.umanitoba.cs.abdullmm.model.GridPoint;
-import ca.umanitoba.cs.abdullmm.model.LinkedStack;
+import ca.umanitoba.cs.abdullmm.model.Map;
+import ca.umanitoba.cs.abdullmm.model.ObstacleDistanceField;
+import ca.umanitoba.cs.abdullmm.model.ObstacleFilteredGraph;
+import ca.umanitoba.cs.abdullmm.model.PointBuckets;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+import ca.umanitoba.cs.abdullmm.model.PointIndex;
+import ca.umanitoba.cs.abdullmm.model.PointSet;
 import ca.umanitoba.cs.abdullmm.model.Route;
-import ca.umanitoba.cs.abdullmm.model.Stack;
 import ca.umanitoba.cs.abdullmm.model.UserProfile;
 import com.google.common.base.Preconditions;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Pathfinding manager that finds routes between two points using a stack-based depth-first search.
- * Routes are built from existing activities either from a single user or from multiple users in their feed.
+ * Pathfinding manager that finds routes between two points over existing activities, either from a
+ * single user or from multiple users in their feed. Each user's route points are kept indexed by
+ * their UserProfile, so a query costs the same however many activities have been recorded.
+ * Queries whose endpoints lie on disconnected route islands fail from the connectivity index
+ * before any search starts.
  *
- * Uses a Stack ADT (LinkedStack implementation) for depth-first search exploration.
+ * The search algorithm is a PathSearchStrategy chosen per query. Queries that do not name one use
+ * stack-based depth-first search (DepthFirstSearch); BreadthFirstSearch, AStarSearch and
+ * JumpPointSearch (which crosses straight corridors in single jumps) return a shortest path instead,
+ * as does LandmarkSearch, which precomputes landmark distances per graph in the background.
+ *
+ * When constructed with a Map, route points covered by the map's obstacles cannot be travelled
+ * through (see ObstacleFilteredGraph).
+ *
+ * Endpoints that are not on a route can be snapped to the nearest route points (searchSnapped),
+ * found through a bucket index (PointBuckets) rather than a scan of every point.
+ *
+ * searchMultiHop goes beyond the feed to users several follow hops away, loading one hop of users
+ * at a time (FollowExpansion) and only when the users loaded so far cannot connect the endpoints.
+ *
+ * reachableWithin answers isochrone queries, finding every route point within some number of steps
+ * of a start as a PointSet bitmap (see ReachabilitySearch) without building any Routes.
+ *
+ * planWaypointRoute joins several waypoints into one ride, choosing the order to visit them in
+ * from a distance matrix computed in parallel over a single graph (see WaypointOrder).
+ *
+ * openRouteSession plans a route that stays current as obstacles change: the RoutePlanningSession
+ * repairs it incrementally (D* Lite) instead of searching again from scratch.
+ *
+ * searchWeighted finds the cheapest route rather than the shortest, pricing each step with an
+ * EdgeCost (WeightedSearch). RoutePreferences price steps by how many of the scope's activities
+ * passed through a point and how close it is to an obstacle; the ride counts are kept per scope
+ * until its activities change, and the obstacle distances until the obstacles do.
+ *
+ * searchRides is a separate mode that only moves between points a recorded ride went directly
+ * between, over a contracted graph of the rides (RideGraph) that is rebuilt when activities,
+ * follows or obstacles change.
+ *
+ * searchBounded and searchBoundedAsync run a query under a SearchBudget and CancellationToken and
+ * report a partial path or a timeout instead of running on indefinitely. Asynchronous searches
+ * share a small pool of daemon threads, so searchBoundedAsync only accepts a budget with a timeout
+ * or an expansion limit; every search then gives its thread back once that runs out, and many
+ * bounded queries can be in flight on a few threads. A search that should run until cancelled
+ * goes through searchBounded on the caller's own thread.
+ *
+ * Successful results are cached per (scope, user, start, end, strategy). A cached route is reused
+ * until an activity adds points to a user in the query's scope, the feed's follow list changes or
+ * an obstacle is added, removed or moved; a cache hit reports zero nodes expanded.
  *
  * Preconditions for public methods:
  * - All parameters must not be null unless stated
@@ -31,8 +87,26 @@ import java.util.Set;
  * - Does not modify existing routes or activities
  */
 public class PathFinder {
+    private static final PathSearchStrategy DEFAULT_STRATEGY = new DepthFirstSearch();
+    private static final PathSearchStrategy LEG_STRATEGY = new AStarSearch(); // Shortest legs between waypoints
+    private static final long ROUTE_CACHE_WEIGHT = 250_000; // Total route points kept in the cache
+    private static final int SNAP_CANDIDATES = 4; // Nearest route points tried for each snapped endpoint
+    private static final ExecutorService BOUNDED_SEARCHES = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "bounded-path-search");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     private UserManager userManager;
     private ActivityManager activityManager;
+    private Map map;
+    private ConcurrentMap<String, FeedSnapshot> feedSnapshots;
+    private ConcurrentMap<String, ObstacleFilteredGraph> userGraphs;
+    private ConcurrentMap<String, RideSnapshot> rideSnapshots;
+    private ConcurrentMap<String, RideCountSnapshot> rideCounts;
+    private volatile ObstacleDistanceField obstacleDistances;
+    private RouteCache routeCache;
 
     /**
      * Constructs a PathFinder with required managers.
@@ -44,10 +118,30 @@ public class PathFinder {
      * @param activityManager the ActivityManager for activity access
      */
     public PathFinder(UserManager userManager, ActivityManager activityManager) {
+        this(userManager, activityManager, null);
+    }
+
+    /**
+     * Constructs a PathFinder whose searches avoid the obstacles of a map.
+     *
+     * Precondition: both managers are not null; map may be null for no obstacles
+     * Postcondition: initialized with provided managers and map
+     *
+     * @param userManager the UserManager for user access
+     * @param activityManager the ActivityManager for activity access
+     * @param map the map whose obstacles block route points, or null
+     */
+    public PathFinder(UserManager userManager, ActivityManager activityManager, Map map) {
         Preconditions.checkNotNull(userManager, "UserManager cannot be null");
         Preconditions.checkNotNull(activityManager, "ActivityManager cannot be null");
         this.userManager = userManager;
         this.activityManager = activityManager;
+        this.map = map;
+        this.feedSnapshots = new ConcurrentHashMap<>();
+        this.userGraphs = new ConcurrentHashMap<>();
+        this.rideSnapshots = new ConcurrentHashMap<>();
+        this.rideCounts = new ConcurrentHashMap<>();
+        this.routeCache = new RouteCache(ROUTE_CACHE_WEIGHT);
     }
 
     /**
@@ -68,17 +162,58 @@ public class PathFinder {
      */
     public Route findPathUserOnly(String userId, GridPoint start, GridPoint end)
             throws InvalidUserException, PathNotFoundException {
+        return findPathUserOnly(userId, start, end, DEFAULT_STRATEGY);
+    }
+
+    /**
+     * Finds a path between two points using only the specified user's previous routes,
+     * searching with the given strategy.
+     *
+     * Precondition:
+     * - userId is not null and user exists
+     * - start, end and strategy are not null
+     *
+     * Postcondition: returns a Route containing the path from start to end
+     *
+     * @param userId the user ID to search within
+     * @param start the starting GridPoint
+     * @param end the ending GridPoint
+     * @param strategy the search algorithm to use
+     * @return a Route representing the path found
+     * @throws InvalidUserException if the user does not exist
+     * @throws PathNotFoundException if no path exists between the points
+     */
+    public Route findPathUserOnly(String userId, GridPoint start, GridPoint end, PathSearchStrategy strategy)
+            throws InvalidUserException, PathNotFoundException {
+        return searchUserOnly(userId, start, end, strategy).route();
+    }
+
+    /**
+     * Searches for a path between two points using only the specified user's previous routes and
+     * reports the search statistics along with the route.
+     *
+     * Precondition:
+     * - userId is not null and user exists
+     * - start, end and strategy are not null
+     *
+     * Postcondition: returns the path from start to end and the number of nodes expanded
+     *
+     * @param userId the user ID to search within
+     * @param start the starting GridPoint
+     * @param end the ending GridPoint
+     * @param strategy the search algorithm to use
+     * @return the path found and the search statistics
+     * @throws InvalidUserException if the user does not exist
+     * @throws PathNotFoundException if no path exists between the points or an endpoint is blocked
+     */
+    public PathSearchResult searchUserOnly(String userId, GridPoint start, GridPoint end, PathSearchStrategy strategy)
+            throws InvalidUserException, PathNotFoundException {
         Preconditions.checkNotNull(userId, "User ID cannot be null");
         Preconditions.checkNotNull(start, "Start point cannot be null");
         Preconditions.checkNotNull(end, "End point cannot be null");
+        Preconditions.checkNotNull(strategy, "Search strategy cannot be null");
 
-        UserProfile profile = userManager.getUser(userId);
-        ArrayList<Activity> activities = profile.getActivities();
-
-        Set<GridPoint> availablePoints = extractPointsFromActivities(activities);
-        Route path = findPathDFS(start, end, availablePoints);
-
-        return path;
+        return search(scopeView(SearchScope.USER_ONLY, userId), start, end, strategy);
     }
 
     /**
@@ -99,154 +234,1002 @@ public class PathFinder {
      */
     public Route findPathFromFeed(String userId, GridPoint start, GridPoint end)
             throws InvalidUserException, PathNotFoundException {
+        return findPathFromFeed(userId, start, end, DEFAULT_STRATEGY);
+    }
+
+    /**
+     * Finds a path between two points using the user's feed (own routes + followed users' routes),
+     * searching with the given strategy.
+     *
+     * Precondition:
+     * - userId is not null and user exists
+     * - start, end and strategy are not null
+     *
+     * Postcondition: returns a Route containing the path from start to end
+     *
+     * @param userId the user ID to build feed from
+     * @param start the starting GridPoint
+     * @param end the ending GridPoint
+     * @param strategy the search algorithm to use
+     * @return a Route representing the path found
+     * @throws InvalidUserException if the user does not exist
+     * @throws PathNotFoundException if no path exists between the points
+     */
+    public Route findPathFromFeed(String userId, GridPoint start, GridPoint end, PathSearchStrategy strategy)
+            throws InvalidUserException, PathNotFoundException {
+        return searchFromFeed(userId, start, end, strategy).route();
+    }
+
+    /**
+     * Searches for a path between two points using the user's feed (own routes + followed users'
+     * routes) and reports the search statistics along with the route.
+     *
+     * Precondition:
+     * - userId is not null and user exists
+     * - start, end and strategy are not null
+     *
+     * Postcondition: returns the path from start to end and the number of nodes expanded
+     *
+     * @param userId the user ID to build feed from
+     * @param start the starting GridPoint
+     * @param end the ending GridPoint
+     * @param strategy the search algorithm to use
+     * @return the path found and the search statistics
+     * @throws InvalidUserException if the user does not exist
+     * @throws PathNotFoundException if no path exists between the points or an endpoint is blocked
+     */
+    public PathSearchResult searchFromFeed(String userId, GridPoint start, GridPoint end, PathSearchStrategy strategy)
+            throws InvalidUserException, PathNotFoundException {
         Preconditions.checkNotNull(userId, "User ID cannot be null");
         Preconditions.checkNotNull(start, "Start point cannot be null");
         Preconditions.checkNotNull(end, "End point cannot be null");
+        Preconditions.checkNotNull(strategy, "Search strategy cannot be null");
 
-        // Get all activities visible in feed
-        ArrayList<Activity> allActivities = new ArrayList<>();
-        UserProfile currentProfile = userManager.getUser(userId);
+        return search(scopeView(SearchScope.FEED, userId), start, end, strategy);
+    }
 
-        // Add own activities
-        allActivities.addAll(currentProfile.getActivities());
+    /**
+     * Searches for a path over the routes of users up to maxHops follow hops away. Hop 0 is the
+     * user's own routes and hop 1 adds the users they follow, as in searchFromFeed. Further hops
+     * are only loaded while the points loaded so far cannot connect start to end, and loading
+     * stops for good once the next user would take the total past pointBudget route points.
+     * Results are not cached.
+     *
+     * Precondition:
+     * - userId, start, end and strategy are not null
+     * - user exists; maxHops >= 0; pointBudget > 0
+     *
+     * Postcondition: returns the path found, the hop depth it needed and how much was loaded
+     *
+     * @param userId the user whose follow graph to expand
+     * @param start the starting GridPoint
+     * @param end the ending GridPoint
+     * @param strategy the search algorithm to use
+     * @param maxHops the largest follow distance to load users from
+     * @param pointBudget the most route points to load in total
+     * @return the path found and the expansion statistics
+     * @throws InvalidUserException if the user or a reached followed user does not exist
+     * @throws PathNotFoundException if no path exists within the hop depth and point budget, or
+     *                               an endpoint is blocked
+     */
+    public MultiHopSearchResult searchMultiHop(String userId, GridPoint start, GridPoint end,
+                                               PathSearchStrategy strategy, int maxHops, int pointBudget)
+            throws InvalidUserException, PathNotFoundException {
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(start, "Start point cannot be null");
+        Preconditions.checkNotNull(end, "End point cannot be null");
+        Preconditions.checkNotNull(strategy, "Search strategy cannot be null");
+        Preconditions.checkArgument(maxHops >= 0, "Hop depth cannot be negative");
+        Preconditions.checkArgument(pointBudget > 0, "Point budget must be positive");
 
-        // Add followed users' activities
-        for (String followedUserId : currentProfile.getFollowedUserIds()) {
-            UserProfile followedProfile = userManager.getUser(followedUserId);
-            allActivities.addAll(followedProfile.getActivities());
+        checkUnobstructed(start, end);
+        FollowExpansion expansion = new FollowExpansion(userManager, userManager.getUser(userId), pointBudget);
+        PathNotFoundException obstructed = null;
+        while (true) {
+            CompositePointGraph graph = expansion.graph();
+            int startId = graph.indexOf(start);
+            int endId = graph.indexOf(end);
+            if (startId >= 0 && endId >= 0 && expansion.connectivity().connected(startId, endId)) {
+                PointGraph searchGraph = map == null ? graph : new ObstacleFilteredGraph(graph, map);
+                try {
+                    return new MultiHopSearchResult(strategy.search(start, end, searchGraph), expansion.hops(),
+                            expansion.usersLoaded(), expansion.pointsLoaded());
+                } catch (PathNotFoundException e) {
+                    obstructed = e; // Obstacles cut the connection; users further out may go round them
+                }
+            }
+            if (expansion.hops() == maxHops || !expansion.expand()) {
+                break;
+            }
+        }
+
+        if (obstructed != null) {
+            throw obstructed;
+        }
+        if (expansion.isBudgetReached()) {
+            throw new PathNotFoundException("Point budget reached before a path was found");
         }
+        throw new PathNotFoundException("No path exists within " + maxHops + " follow hop(s)");
+    }
 
-        Set<GridPoint> availablePoints = extractPointsFromActivities(allActivities);
-        Route path = findPathDFS(start, end, availablePoints);
+    /**
+     * Searches for a path within a budget, on the calling thread. The search stops once it has
+     * expanded budget.maxExpansions() points (PARTIAL), once budget.timeout() has passed since this
+     * call (TIMED_OUT) or soon after token is cancelled (CANCELLED); a partial or timed out search
+     * returns the path to the point it reached nearest the end. Complete results are cached like
+     * those of searchUserOnly and searchFromFeed.
+     *
+     * Precondition:
+     * - scope, userId, start, end, strategy, budget and token are not null
+     * - user exists
+     *
+     * Postcondition: returns how the search ended, with the path or partial path found
+     *
+     * @param scope which users' routes to search
+     * @param userId the user whose routes (or feed) to search
+     * @param start the starting GridPoint
+     * @param end the ending GridPoint
+     * @param strategy the search algorithm to use
+     * @param budget the limits on the search
+     * @param token the token that cancels the search
+     * @return the outcome of the search
+     * @throws InvalidUserException if the user or a followed user does not exist
+     */
+    public BoundedSearchResult searchBounded(SearchScope scope, String userId, GridPoint start, GridPoint end,
+                                             PathSearchStrategy strategy, SearchBudget budget,
+                                             CancellationToken token) throws InvalidUserException {
+        checkBoundedQuery(scope, userId, start, end, strategy, budget, token);
+        long deadline = budget.hasTimeout() ? budget.deadlineFrom(System.nanoTime()) : 0;
+        return searchWithin(scope, userId, start, end, strategy, budget, deadline, token);
+    }
 
-        return path;
+    /**
+     * Starts searchBounded on a shared pool of search threads and returns without waiting. The
+     * budget's timeout runs from this call, so a search that waits too long for a thread ends as
+     * TIMED_OUT without searching.
+     *
+     * Precondition:
+     * - scope, userId, start, end, strategy, budget and token are not null
+     * - budget.isBounded()
+     * - user exists
+     *
+     * Postcondition: the returned future completes with how the search ended, or exceptionally
+     * with an InvalidUserException if the user or a followed user does not exist
+     *
+     * @param scope which users' routes to search
+     * @param userId the user whose routes (or feed) to search
+     * @param start the starting GridPoint
+     * @param end the ending GridPoint
+     * @param strategy the search algorithm to use
+     * @param budget the limits on the search, with a timeout or an expansion limit
+     * @param token the token that cancels the search
+     * @return a future for the outcome of the search
+     * @throws IllegalArgumentException if the budget has neither a timeout nor an expansion limit
+     */
+    public CompletableFuture<BoundedSearchResult> searchBoundedAsync(SearchScope scope, String userId,
+                                                                     GridPoint start, GridPoint end,
+                                                                     PathSearchStrategy strategy, SearchBudget budget,
+                                                                     CancellationToken token) {
+        checkBoundedQuery(scope, userId, start, end, strategy, budget, token);
+        Preconditions.checkArgument(budget.isBounded(),
+                "Asynchronous searches need a timeout or an expansion limit");
+        long deadline = budget.hasTimeout() ? budget.deadlineFrom(System.nanoTime()) : 0;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return searchWithin(scope, userId, start, end, strategy, budget, deadline, token);
+            } catch (InvalidUserException e) {
+                throw new CompletionException(e);
+            }
+        }, BOUNDED_SEARCHES);
     }
 
     /**
-     * Finds a path using depth-first search with a stack.
+     * Answers many route queries for one user or feed at once. The available points and their
+     * connectivity are resolved once for the whole batch, and the searches are spread across the
+     * common ForkJoinPool so that every core is kept busy. Batch queries bypass the route cache.
+     *
+     * Precondition:
+     * - scope, userId, queries and strategy are not null; queries contains no null elements
+     * - user exists, and no activity or obstacle changes while the batch runs
      *
-     * Uses the Stack ADT for traversal: marks visited nodes and backtracks when stuck.
+     * Postcondition: returns one result per query, in query order
+     *
+     * @param scope which users' routes the queries may use
+     * @param userId the user whose routes (or feed) to search
+     * @param queries the start/end pairs to answer
+     * @param strategy the search algorithm to use for every query
+     * @return the route or failure for each query
+     * @throws InvalidUserException if the user or a followed user does not exist
+     */
+    public List<RouteQueryResult> findPathsBatch(SearchScope scope, String userId, List<RouteQuery> queries,
+                                                 PathSearchStrategy strategy) throws InvalidUserException {
+        Preconditions.checkNotNull(scope, "Search scope cannot be null");
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(queries, "Queries cannot be null");
+        Preconditions.checkNotNull(strategy, "Search strategy cannot be null");
+
+        ScopeView view = scopeView(scope, userId);
+        List<RouteQuery> batch = List.copyOf(queries);
+        RouteQueryResult[] results = new RouteQueryResult[batch.size()];
+        ForkJoinPool.commonPool().invoke(
+                new BatchSearchTask(view.graph(), view.connectivity(), strategy, batch, results, 0, batch.size()));
+        return List.of(results);
+    }
+
+    /**
+     * Plans a shortest route and keeps it up to date as the map's obstacles change. The session
+     * searches the scope's route points as they are now; points added later are not used. The
+     * caller should close the session when done with it.
      *
      * Precondition:
-     * - start and end are not null
-     * - availablePoints is not null (may be empty)
+     * - scope, userId, start and end are not null
+     * - user exists
      *
-     * Postcondition: returns a Route with the path, or throws PathNotFoundException
+     * Postcondition: returns an open session whose route runs from start to end
      *
+     * @param scope which users' routes to travel along
+     * @param userId the user whose routes (or feed) to travel along
      * @param start the starting GridPoint
      * @param end the ending GridPoint
-     * @param availablePoints set of all available grid points
-     * @return a Route representing the path found
-     * @throws PathNotFoundException if no path exists
+     * @return the planning session
+     * @throws InvalidUserException if the user or a followed user does not exist
+     * @throws PathNotFoundException if either endpoint is not on any existing route
      */
-    private Route findPathDFS(GridPoint start, GridPoint end, Set<GridPoint> availablePoints)
-            throws PathNotFoundException {
+    public RoutePlanningSession openRouteSession(SearchScope scope, String userId, GridPoint start, GridPoint end)
+            throws InvalidUserException, PathNotFoundException {
+        Preconditions.checkNotNull(scope, "Search scope cannot be null");
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
         Preconditions.checkNotNull(start, "Start point cannot be null");
         Preconditions.checkNotNull(end, "End point cannot be null");
-        Preconditions.checkNotNull(availablePoints, "Available points cannot be null");
 
-        if (!availablePoints.contains(start)) {
-            throw new PathNotFoundException("Starting point is not on any existing route");
-        }
-        if (!availablePoints.contains(end)) {
-            throw new PathNotFoundException("Ending point is not on any existing route");
+        PointGraph graph = scopeView(scope, userId).baseGraph();
+        PathSearches.checkEndpoints(start, end, graph);
+        return new RoutePlanningSession(graph, map, start, end);
+    }
+
+    /**
+     * Finds every route point that can be reached from a start in at most maxSteps steps.
+     *
+     * Precondition:
+     * - scope, userId and start are not null
+     * - user exists; maxSteps >= 0
+     *
+     * Postcondition: returns the reachable points, including start
+     *
+     * @param scope which users' routes to travel along
+     * @param userId the user whose routes (or feed) to travel along
+     * @param start the point to measure from
+     * @param maxSteps the most steps allowed
+     * @return the set of reachable route points
+     * @throws InvalidUserException if the user or a followed user does not exist
+     * @throws PathNotFoundException if start is not on a route or is blocked
+     */
+    public PointSet reachableWithin(SearchScope scope, String userId, GridPoint start, int maxSteps)
+            throws InvalidUserException, PathNotFoundException {
+        Preconditions.checkNotNull(scope, "Search scope cannot be null");
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(start, "Start point cannot be null");
+        Preconditions.checkArgument(maxSteps >= 0, "Step count cannot be negative");
+
+        checkUnobstructed(start, start);
+        PointGraph graph = scopeView(scope, userId).graph();
+        PathSearches.checkEndpoints(start, start, graph);
+        return ReachabilitySearch.within(graph, graph.indexOf(start), maxSteps);
+    }
+
+    /**
+     * Plans one route through several waypoints, choosing the order that keeps it shortest. The
+     * shortest distance between every pair of waypoints is measured in parallel over one graph
+     * of the scope's route points; the order is exact for up to WaypointOrder.EXACT_LIMIT
+     * waypoints after the first and a nearest-neighbor tour improved by 2-opt beyond that. The
+     * legs of the chosen order are then searched in parallel and joined. Results are not cached.
+     *
+     * Precondition:
+     * - scope, userId and waypoints are not null; waypoints is not empty and has no null elements
+     * - user exists
+     *
+     * Postcondition: returns a route that starts at the first waypoint and passes through every
+     * waypoint, returning to the first if loop is true
+     *
+     * @param scope which users' routes to ride along
+     * @param userId the user whose routes (or feed) to ride along
+     * @param waypoints the points to pass through, starting with where the ride begins
+     * @param loop whether the ride ends back at the first waypoint
+     * @return the combined route and the order it visits the waypoints in
+     * @throws InvalidUserException if the user or a followed user does not exist
+     * @throws PathNotFoundException if a waypoint is not on a route, is blocked, or cannot be
+     *                               reached from the first waypoint
+     */
+    public WaypointPlan planWaypointRoute(SearchScope scope, String userId, List<GridPoint> waypoints, boolean loop)
+            throws InvalidUserException, PathNotFoundException {
+        Preconditions.checkNotNull(scope, "Search scope cannot be null");
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(waypoints, "Waypoints cannot be null");
+        Preconditions.checkArgument(!waypoints.isEmpty(), "There must be at least one waypoint");
+
+        ScopeView view = scopeView(scope, userId);
+        PointGraph graph = view.graph();
+        List<GridPoint> stops = List.copyOf(waypoints);
+        int[] ids = new int[stops.size()];
+        for (int i = 0; i < ids.length; i++) {
+            GridPoint stop = stops.get(i);
+            if (map != null && map.isBlocked(stop.x(), stop.y())) {
+                throw new PathNotFoundException("Waypoint " + (i + 1) + " is blocked by an obstacle");
+            }
+            ids[i] = graph.indexOf(stop);
+            if (ids[i] < 0) {
+                throw new PathNotFoundException("Waypoint " + (i + 1) + " is not on any existing route");
+            }
+            if (!view.connectivity().connected(ids[0], ids[i])) {
+                throw new PathNotFoundException("No path exists from the first waypoint to waypoint " + (i + 1));
+            }
         }
 
-        Stack<GridPoint> stack = new LinkedStack<>();
-        Map<GridPoint, GridPoint> parent = new HashMap<>();
-        Set<GridPoint> visited = new HashSet<>();
+        int[][] distances = new int[ids.length][ids.length];
+        ForkJoinPool.commonPool().invoke(new DistanceMatrixTask(graph, ids, distances, 0, ids.length));
+        for (int i = 1; i < ids.length; i++) {
+            if (distances[0][i] < 0) {
+                throw new PathNotFoundException("Obstacles cut waypoint " + (i + 1) + " off from the first waypoint");
+            }
+        }
 
-        stack.push(start);
-        visited.add(start);
-        parent.put(start, null);
+        int[] order = WaypointOrder.plan(distances, loop);
+        List<RouteQuery> legs = new ArrayList<>();
+        List<GridPoint> visitOrder = new ArrayList<>(order.length);
+        for (int i = 0; i < order.length; i++) {
+            visitOrder.add(stops.get(order[i]));
+            if (i > 0) {
+                legs.add(new RouteQuery(stops.get(order[i - 1]), stops.get(order[i])));
+            }
+        }
+        if (loop && order.length > 1) {
+            legs.add(new RouteQuery(stops.get(order[order.length - 1]), stops.get(order[0])));
+        }
 
-        while (!stack.isEmpty()) {
-            GridPoint current = stack.pop();
+        RouteQueryResult[] results = new RouteQueryResult[legs.size()];
+        ForkJoinPool.commonPool().invoke(
+                new BatchSearchTask(graph, view.connectivity(), LEG_STRATEGY, legs, results, 0, legs.size()));
 
-            if (current.equals(end)) {
-                return reconstructPath(parent, start, end);
+        Route route = new Route("Planned Route");
+        route.addPoint(stops.get(0));
+        for (RouteQueryResult leg : results) {
+            if (!leg.isFound()) {
+                throw leg.failure();
             }
+            List<GridPoint> points = leg.route().getPoints();
+            route.getPoints().addAll(points.subList(1, points.size()));
+        }
+        return new WaypointPlan(route, List.copyOf(visitOrder), route.getPoints().size() - 1);
+    }
+
+    /**
+     * Finds the route whose steps cost least under some route preferences, favoring points many of
+     * the scope's activities passed through and keeping clear of obstacles. Results are not cached,
+     * since a new activity over existing points changes the costs without changing the graph.
+     *
+     * Precondition:
+     * - scope, userId, start, end and preferences are not null
+     * - user exists
+     *
+     * Postcondition: returns the cheapest path from start to end and the number of nodes expanded
+     *
+     * @param scope which users' routes to travel along and count rides over
+     * @param userId the user whose routes (or feed) to travel along
+     * @param start the starting GridPoint
+     * @param end the ending GridPoint
+     * @param preferences how to price each step
+     * @return the path found and the search statistics
+     * @throws InvalidUserException if the user or a followed user does not exist
+     * @throws PathNotFoundException if either endpoint is not on a route or is blocked, or no path exists
+     */
+    public PathSearchResult searchWeighted(SearchScope scope, String userId, GridPoint start, GridPoint end,
+                                           RoutePreferences preferences)
+            throws InvalidUserException, PathNotFoundException {
+        Preconditions.checkNotNull(scope, "Search scope cannot be null");
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(start, "Start point cannot be null");
+        Preconditions.checkNotNull(end, "End point cannot be null");
+        Preconditions.checkNotNull(preferences, "Route preferences cannot be null");
+        ScopeView view = scopeView(scope, userId);
+        EdgeCost edgeCost = PreferenceCost.of(view.baseGraph(), rideCounts(view), obstacleDistances(), preferences);
+        return searchWeighted(view, start, end, edgeCost);
+    }
 
-            // Get neighbors (adjacent points in availablePoints)
-            for (GridPoint neighbor : availablePoints) {
-                if (!visited.contains(neighbor) && isAdjacent(current, neighbor)) {
-                    visited.add(neighbor);
-                    parent.put(neighbor, current);
-                    stack.push(neighbor);
+    /**
+     * Finds the route whose steps cost least under a custom edge cost. Results are not cached.
+     *
+     * Precondition:
+     * - scope, userId, start, end and edgeCost are not null
+     * - user exists
+     *
+     * Postcondition: returns the cheapest path from start to end and the number of nodes expanded
+     *
+     * @param scope which users' routes to travel along
+     * @param userId the user whose routes (or feed) to travel along
+     * @param start the starting GridPoint
+     * @param end the ending GridPoint
+     * @param edgeCost the cost of each step
+     * @return the path found and the search statistics
+     * @throws InvalidUserException if the user or a followed user does not exist
+     * @throws PathNotFoundException if either endpoint is not on a route or is blocked, or no path exists
+     */
+    public PathSearchResult searchWeighted(SearchScope scope, String userId, GridPoint start, GridPoint end,
+                                           EdgeCost edgeCost)
+            throws InvalidUserException, PathNotFoundException {
+        Preconditions.checkNotNull(scope, "Search scope cannot be null");
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(start, "Start point cannot be null");
+        Preconditions.checkNotNull(end, "End point cannot be null");
+        Preconditions.checkNotNull(edgeCost, "Edge cost cannot be null");
+        return searchWeighted(scopeView(scope, userId), start, end, edgeCost);
+    }
+
+    /**
+     * Searches for a path that only steps between points some recorded ride went directly between,
+     * rather than between any two adjacent points. The path has the fewest steps of any such path.
+     * Results are not cached; the contracted ride graph behind them is reused until an activity,
+     * follow or obstacle in the scope changes.
+     *
+     * Precondition:
+     * - scope, userId, start and end are not null
+     * - user exists
+     *
+     * Postcondition: returns the path from start to end and the number of ride junctions settled
+     *
+     * @param scope which users' rides to follow
+     * @param userId the user whose rides (or feed) to follow
+     * @param start the starting GridPoint
+     * @param end the ending GridPoint
+     * @return the path found and the search statistics
+     * @throws InvalidUserException if the user or a followed user does not exist
+     * @throws PathNotFoundException if an endpoint is on no ride or is blocked, or no rides join them
+     */
+    public PathSearchResult searchRides(SearchScope scope, String userId, GridPoint start, GridPoint end)
+            throws InvalidUserException, PathNotFoundException {
+        Preconditions.checkNotNull(scope, "Search scope cannot be null");
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(start, "Start point cannot be null");
+        Preconditions.checkNotNull(end, "End point cannot be null");
+
+        checkUnobstructed(start, end);
+        return rideGraph(scope, userManager.getUser(userId)).search(start, end);
+    }
+
+    /**
+     * Finds the route points nearest to a point, by Manhattan distance.
+     *
+     * Precondition: scope, userId and point are not null; user exists; k > 0
+     * Postcondition: no state change
+     *
+     * @param scope which users' routes to consider
+     * @param userId the user whose routes (or feed) to search
+     * @param point the point to search around
+     * @param k the number of route points wanted
+     * @return up to k route points, nearest first
+     * @throws InvalidUserException if the user or a followed user does not exist
+     */
+    public List<GridPoint> nearestRoutePoints(SearchScope scope, String userId, GridPoint point, int k)
+            throws InvalidUserException {
+        Preconditions.checkNotNull(scope, "Search scope cannot be null");
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(point, "Point cannot be null");
+        Preconditions.checkArgument(k > 0, "Number of points must be positive");
+
+        ScopeView view = scopeView(scope, userId);
+        List<GridPoint> nearest = new ArrayList<>(k);
+        for (int id : view.buckets().nearest(view.graph(), point.x(), point.y(), k)) {
+            nearest.add(view.graph().point(id));
+        }
+        return nearest;
+    }
+
+    /**
+     * Searches for a path after moving each endpoint onto a nearby route point. The few route
+     * points nearest each endpoint are considered, and the pair closest to the requested
+     * endpoints that can reach each other is searched, so an endpoint beside a small separate
+     * island of routes still snaps onto the network it can travel through.
+     *
+     * Precondition:
+     * - scope, userId, start, end and strategy are not null
+     * - user exists
+     *
+     * Postcondition: returns the snapped endpoints, how far each moved, and the path between them
+     *
+     * @param scope which users' routes to search
+     * @param userId the user whose routes (or feed) to search
+     * @param start the requested starting point, on or off a route
+     * @param end the requested ending point, on or off a route
+     * @param strategy the search algorithm to use
+     * @return the snapped endpoints and the path found
+     * @throws InvalidUserException if the user or a followed user does not exist
+     * @throws PathNotFoundException if there are no route points, or none near start reach any near end
+     */
+    public SnappedSearchResult searchSnapped(SearchScope scope, String userId, GridPoint start, GridPoint end,
+                                             PathSearchStrategy strategy)
+            throws InvalidUserException, PathNotFoundException {
+        Preconditions.checkNotNull(scope, "Search scope cannot be null");
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(start, "Start point cannot be null");
+        Preconditions.checkNotNull(end, "End point cannot be null");
+        Preconditions.checkNotNull(strategy, "Search strategy cannot be null");
+
+        ScopeView view = scopeView(scope, userId);
+        PointGraph graph = view.graph();
+        int[] starts = view.buckets().nearest(graph, start.x(), start.y(), SNAP_CANDIDATES);
+        int[] ends = view.buckets().nearest(graph, end.x(), end.y(), SNAP_CANDIDATES);
+        if (starts.length == 0 || ends.length == 0) {
+            throw new PathNotFoundException("There are no route points to snap to");
+        }
+
+        // Candidate pairs packed as (total snap distance, start index, end index), closest first
+        long[] pairs = new long[starts.length * ends.length];
+        int pairCount = 0;
+        for (int i = 0; i < starts.length; i++) {
+            for (int j = 0; j < ends.length; j++) {
+                if (view.connectivity().connected(starts[i], ends[j])) {
+                    long total = snapDistance(graph, starts[i], start) + snapDistance(graph, ends[j], end);
+                    pairs[pairCount++] = (total << 16) | ((long) i << 8) | j;
                 }
             }
         }
+        Arrays.sort(pairs, 0, pairCount);
+
+        PathNotFoundException failure = new PathNotFoundException("No route points near the start reach any near the end");
+        for (int p = 0; p < pairCount; p++) {
+            int startId = starts[(int) (pairs[p] >>> 8) & 0xFF];
+            int endId = ends[(int) pairs[p] & 0xFF];
+            GridPoint snappedStart = graph.point(startId);
+            GridPoint snappedEnd = graph.point(endId);
+            try {
+                PathSearchResult result = scope == SearchScope.USER_ONLY
+                        ? searchUserOnly(userId, snappedStart, snappedEnd, strategy)
+                        : searchFromFeed(userId, snappedStart, snappedEnd, strategy);
+                return new SnappedSearchResult(snappedStart, snapDistance(graph, startId, start),
+                        snappedEnd, snapDistance(graph, endId, end), result);
+            } catch (PathNotFoundException e) {
+                failure = e; // Obstacles split the island; try the next closest pair
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Gets the hit, miss, eviction and invalidation counters of the route query cache.
+     *
+     * Postcondition: no state change
+     *
+     * @return the current cache statistics
+     */
+    public RouteCacheStats getRouteCacheStats() {
+        return routeCache.stats();
+    }
 
-        throw new PathNotFoundException("No path exists between the two points");
+    /**
+     * Gets the connected components of a user's own route network.
+     *
+     * Precondition: userId is not null and user exists
+     * Postcondition: no state change
+     *
+     * @param userId the user ID
+     * @return the connectivity index over the user's route points
+     * @throws InvalidUserException if the user does not exist
+     */
+    public ConnectivityIndex getConnectivityUserOnly(String userId) throws InvalidUserException {
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        return userManager.getUser(userId).getRouteConnectivity();
     }
 
     /**
-     * Checks if two grid points are adjacent (horizontally or vertically).
+     * Gets the connected components of the route network visible in a user's feed
+     * (own routes + followed users' routes).
      *
-     * Precondition: both points are not null
+     * Precondition: userId is not null and user exists
      * Postcondition: no state change
      *
-     * @param p1 first point
-     * @param p2 second point
-     * @return true if points are adjacent, false otherwise
+     * @param userId the user ID to build feed from
+     * @return the connectivity index over the feed's route points
+     * @throws InvalidUserException if the user or a followed user does not exist
      */
-    private boolean isAdjacent(GridPoint p1, GridPoint p2) {
-        Preconditions.checkNotNull(p1, "Point 1 cannot be null");
-        Preconditions.checkNotNull(p2, "Point 2 cannot be null");
+    public ConnectivityIndex getConnectivityFromFeed(String userId) throws InvalidUserException {
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        return feedSnapshot(userManager.getUser(userId)).connectivity();
+    }
 
-        int dx = Math.abs(p1.x() - p2.x());
-        int dy = Math.abs(p1.y() - p2.y());
+    private static void checkBoundedQuery(SearchScope scope, String userId, GridPoint start, GridPoint end,
+                                          PathSearchStrategy strategy, SearchBudget budget,
+                                          CancellationToken token) {
+        Preconditions.checkNotNull(scope, "Search scope cannot be null");
+        Preconditions.checkNotNull(userId, "User ID cannot be null");
+        Preconditions.checkNotNull(start, "Start point cannot be null");
+        Preconditions.checkNotNull(end, "End point cannot be null");
+        Preconditions.checkNotNull(strategy, "Search strategy cannot be null");
+        Preconditions.checkNotNull(budget, "Search budget cannot be null");
+        Preconditions.checkNotNull(token, "Cancellation token cannot be null");
+    }
 
-        return (dx == 1 && dy == 0) || (dx == 0 && dy == 1);
+    private static int snapDistance(PointGraph graph, int id, GridPoint requested) {
+        return Math.abs(graph.x(id) - requested.x()) + Math.abs(graph.y(id) - requested.y());
     }
 
     /**
-     * Reconstructs the path from start to end using parent pointers.
+     * Answers a query from the route cache, or searches the scope's graph and caches the result.
      *
-     * Precondition: parent map contains valid chain from end to start
-     * Postcondition: returns a new Route with the path
+     * @param view the scope to search
+     * @param start the starting point
+     * @param end the ending point
+     * @param strategy the search algorithm to use
+     * @return the path found and the search statistics
+     * @throws PathNotFoundException if no path exists between the points or an endpoint is blocked
+     */
+    private PathSearchResult search(ScopeView view, GridPoint start, GridPoint end, PathSearchStrategy strategy)
+            throws PathNotFoundException {
+        PointGraph graph = view.graph();
+        int capacity = graph.capacity();
+        Route cached = routeCache.get(view.scope(), view.userId(), start, end, strategy, graph, capacity);
+        if (cached != null) {
+            return new PathSearchResult(cached, 0);
+        }
+
+        checkUnobstructed(start, end);
+        PathSearches.checkReachable(start, end, graph, view.connectivity());
+        PathSearchResult result = strategy.search(start, end, graph);
+        routeCache.put(view.scope(), view.userId(), start, end, strategy, graph, capacity, result.route());
+        return result;
+    }
+
+    /**
+     * Runs a weighted search over a scope's graph after the usual endpoint and connectivity checks.
      *
-     * @param parent map of nodes to their parents
+     * @param view the scope to search
      * @param start the starting point
      * @param end the ending point
-     * @return a Route representing the path
+     * @param edgeCost the cost of each step
+     * @return the path found and the search statistics
+     * @throws PathNotFoundException if no path exists between the points or an endpoint is blocked
      */
-    private Route reconstructPath(Map<GridPoint, GridPoint> parent, GridPoint start, GridPoint end) {
-        Preconditions.checkNotNull(parent, "Parent map cannot be null");
-        Preconditions.checkNotNull(start, "Start point cannot be null");
-        Preconditions.checkNotNull(end, "End point cannot be null");
+    private PathSearchResult searchWeighted(ScopeView view, GridPoint start, GridPoint end, EdgeCost edgeCost)
+            throws PathNotFoundException {
+        checkUnobstructed(start, end);
+        PathSearches.checkReachable(start, end, view.graph(), view.connectivity());
+        return new WeightedSearch(edgeCost).search(start, end, view.graph());
+    }
+
+    /**
+     * Runs search under a SearchMonitor enforcing the budget and token on the current thread.
+     *
+     * @param deadline the System.nanoTime deadline, ignored if the budget has no timeout
+     * @return the outcome of the search
+     * @throws InvalidUserException if the user or a followed user does not exist
+     */
+    private BoundedSearchResult searchWithin(SearchScope scope, String userId, GridPoint start, GridPoint end,
+                                             PathSearchStrategy strategy, SearchBudget budget, long deadline,
+                                             CancellationToken token) throws InvalidUserException {
+        ScopeView view = scopeView(scope, userId);
+        SearchMonitor monitor = SearchMonitor.install(view.graph(), end, budget, deadline, token);
+        try {
+            monitor.checkStop();
+            PathSearchResult result = search(view, start, end, strategy);
+            return new BoundedSearchResult(SearchOutcome.COMPLETE, result.route(), result.nodesExpanded(), null);
+        } catch (PathNotFoundException e) {
+            return new BoundedSearchResult(SearchOutcome.NOT_FOUND, null, monitor.expanded(), e);
+        } catch (SearchMonitor.Aborted e) {
+            Route partial = e.outcome() == SearchOutcome.CANCELLED ? null : monitor.partialRoute();
+            return new BoundedSearchResult(e.outcome(), partial, monitor.expanded(), null);
+        } finally {
+            monitor.uninstall();
+        }
+    }
+
+    /**
+     * Gets the ride graph for a scope, rebuilding it if a member's activities, the follow list or
+     * the obstacles have changed since it was built.
+     *
+     * @param scope which users' rides to include
+     * @param profile the querying user's profile
+     * @return the ride graph
+     * @throws InvalidUserException if a followed user does not exist
+     */
+    private RideGraph rideGraph(SearchScope scope, UserProfile profile) throws InvalidUserException {
+        List<UserProfile> members = scopeMembers(scope, profile);
+        long mapVersion = map == null ? 0 : map.getVersion();
+        String key = scope + ":" + profile.getUserId();
+        RideSnapshot cached = rideSnapshots.get(key);
+        if (cached != null && cached.matches(members, mapVersion)) {
+            return cached.graph;
+        }
+        RideSnapshot snapshot = new RideSnapshot(members, mapVersion, map);
+        rideSnapshots.put(key, snapshot);
+        return snapshot.graph;
+    }
+
+    /**
+     * Gets the number of activities in a scope that passed through each of its route points,
+     * recounting only when a member's activities or the follow list have changed.
+     *
+     * @param view the scope to count over
+     * @return the ride count of each id of the scope's base graph
+     * @throws InvalidUserException if a followed user does not exist
+     */
+    private int[] rideCounts(ScopeView view) throws InvalidUserException {
+        List<UserProfile> members = scopeMembers(view.scope(), view.profile());
+        PointGraph points = view.baseGraph();
+        String key = view.scope() + ":" + view.userId();
+        RideCountSnapshot cached = rideCounts.get(key);
+        if (cached != null && cached.points() == points && cached.activities().matches(members)) {
+            return cached.rides();
+        }
+        RideCountSnapshot snapshot = new RideCountSnapshot(new ActivityStamp(members), points,
+                PreferenceCost.countRides(points, members));
+        rideCounts.put(key, snapshot);
+        return snapshot.rides();
+    }
+
+    /**
+     * Gets the distance from every cell of the map to its nearest obstacle, rebuilding it when the
+     * obstacles change.
+     *
+     * @return the distance field, or null if there is no map
+     */
+    private ObstacleDistanceField obstacleDistances() {
+        if (map == null) {
+            return null;
+        }
+        ObstacleDistanceField field = obstacleDistances;
+        if (field == null || !field.isCurrent(map)) {
+            field = ObstacleDistanceField.of(map, RoutePreferences.MAX_CLEARANCE);
+            obstacleDistances = field;
+        }
+        return field;
+    }
+
+    /**
+     * Gets the users whose activities make up a scope: the user, then for a feed every followed user.
+     *
+     * @param scope which users to include
+     * @param profile the querying user's profile
+     * @return the scope's members
+     * @throws InvalidUserException if a followed user does not exist
+     */
+    private List<UserProfile> scopeMembers(SearchScope scope, UserProfile profile) throws InvalidUserException {
+        List<UserProfile> members = new ArrayList<>();
+        members.add(profile);
+        if (scope == SearchScope.FEED) {
+            for (String followedUserId : profile.getFollowedUserIds()) {
+                members.add(userManager.getUser(followedUserId));
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Resolves the graph to search for a scope, along with access to its other indexes.
+     *
+     * @param scope which users' routes to use
+     * @param userId the user whose routes (or feed) to use
+     * @return the scope's route points
+     * @throws InvalidUserException if the user or a followed user does not exist
+     */
+    private ScopeView scopeView(SearchScope scope, String userId) throws InvalidUserException {
+        UserProfile profile = userManager.getUser(userId);
+        if (scope == SearchScope.USER_ONLY) {
+            return new ScopeView(scope, userId, profile, null, userGraph(userId, profile.getRoutePoints()));
+        }
+        FeedSnapshot feed = feedSnapshot(profile);
+        return new ScopeView(scope, userId, profile, feed, feed.searchGraph(map));
+    }
 
-        Route path = new Route("Found Path");
-        GridPoint current = end;
+    /**
+     * One scope's route points. The connectivity and nearest-point indexes share the graph's ids;
+     * a feed's are built on first use.
+     */
+    private record ScopeView(SearchScope scope, String userId, UserProfile profile, FeedSnapshot feed,
+                             PointGraph graph) {
+
+        /**
+         * Gets the scope's route points including those obstacles cover.
+         */
+        PointGraph baseGraph() {
+            return feed == null ? profile.getRoutePoints() : feed.graph;
+        }
+
+        ConnectivityIndex connectivity() {
+            return feed == null ? profile.getRouteConnectivity() : feed.connectivity();
+        }
 
-        while (current != null) {
-            path.getPoints().add(0, current); // Add to front to maintain order
-            current = parent.get(current);
+        PointBuckets buckets() {
+            return feed == null ? profile.getRouteBuckets() : feed.buckets();
+        }
+    }
+
+    /**
+     * Gets the graph to search for a user's own routes: the user's point index itself, or a view
+     * of it without obstacle-covered points. The view is reused while the obstacles are unchanged,
+     * so its identity tells the route cache and per-thread search state when the obstacles moved.
+     *
+     * @param userId the user ID
+     * @param points the user's route point index
+     * @return the graph to search
+     */
+    private PointGraph userGraph(String userId, PointIndex points) {
+        if (map == null) {
+            return points;
         }
+        ObstacleFilteredGraph cached = userGraphs.get(userId);
+        if (cached != null && cached.getBase() == points && cached.isCurrent()) {
+            return cached;
+        }
+        ObstacleFilteredGraph graph = new ObstacleFilteredGraph(points, map);
+        userGraphs.put(userId, graph);
+        return graph;
+    }
 
-        return path;
+    /**
+     * Fails when either endpoint is covered by an obstacle.
+     *
+     * @param start the starting point
+     * @param end the ending point
+     * @throws PathNotFoundException if an obstacle covers start or end
+     */
+    private void checkUnobstructed(GridPoint start, GridPoint end) throws PathNotFoundException {
+        if (map == null) {
+            return;
+        }
+        if (map.isBlocked(start.x(), start.y())) {
+            throw new PathNotFoundException("Starting point is blocked by an obstacle");
+        }
+        if (map.isBlocked(end.x(), end.y())) {
+            throw new PathNotFoundException("Ending point is blocked by an obstacle");
+        }
     }
 
     /**
-     * Extracts all GridPoints from a list of activities.
+     * Gets the combined graph for a user's feed, reusing the previous one while the feed has the
+     * same members and none of them has gained points. Point indexes only grow, so equal sizes
+     * mean equal contents.
      *
-     * Precondition: activities is not null
-     * Postcondition: returns a set of all unique points from all routes
+     * Precondition: profile is not null; every followed user exists
+     * Postcondition: returns a snapshot of the current feed's route points
      *
-     * @param activities list of activities
-     * @return set of all available GridPoints
+     * @param profile the profile whose feed to combine
+     * @return the feed snapshot
+     * @throws InvalidUserException if a followed user does not exist
+     */
+    private FeedSnapshot feedSnapshot(UserProfile profile) throws InvalidUserException {
+        Preconditions.checkNotNull(profile, "Profile cannot be null");
+
+        List<PointIndex> members = new ArrayList<>();
+        members.add(profile.getRoutePoints());
+        for (String followedUserId : profile.getFollowedUserIds()) {
+            members.add(userManager.getUser(followedUserId).getRoutePoints());
+        }
+
+        FeedSnapshot cached = feedSnapshots.get(profile.getUserId());
+        if (cached != null && cached.matches(members)) {
+            return cached;
+        }
+        FeedSnapshot snapshot = new FeedSnapshot(members);
+        feedSnapshots.put(profile.getUserId(), snapshot);
+        return snapshot;
+    }
+
+    /**
+     * The activity counts of a set of users at one moment. Activities are only ever added, so equal
+     * activity counts mean equal rides.
      */
-    private Set<GridPoint> extractPointsFromActivities(ArrayList<Activity> activities) {
-        Preconditions.checkNotNull(activities, "Activities list cannot be null");
+    private static class ActivityStamp {
+        private UserProfile[] members;
+        private int[] activityCounts;
 
-        Set<GridPoint> points = new HashSet<>();
-        for (Activity activity : activities) {
-            Route route = activity.getRoute();
-            if (route != null) {
-                points.addAll(route.getPoints());
+        ActivityStamp(List<UserProfile> members) {
+            this.members = members.toArray(new UserProfile[0]);
+            this.activityCounts = new int[this.members.length];
+            for (int i = 0; i < this.members.length; i++) {
+                activityCounts[i] = this.members[i].getActivityCount();
             }
         }
-        return points;
+
+        boolean matches(List<UserProfile> current) {
+            if (current.size() != members.length) {
+                return false;
+            }
+            for (int i = 0; i < members.length; i++) {
+                if (current.get(i) != members[i] || current.get(i).getActivityCount() != activityCounts[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
-}
 
+    /**
+     * The ride graph of a set of users at one moment.
+     */
+    private static class RideSnapshot {
+        private ActivityStamp activities;
+        private long mapVersion;
+        private RideGraph graph;
+
+        RideSnapshot(List<UserProfile> members, long mapVersion, Map map) {
+            this.activities = new ActivityStamp(members);
+            this.mapVersion = mapVersion;
+            List<Route> routes = new ArrayList<>();
+            for (UserProfile member : members) {
+                for (Activity activity : member.getActivities()) {
+                    routes.add(activity.getRoute());
+                }
+            }
+            this.graph = RideGraph.build(routes, map);
+        }
+
+        boolean matches(List<UserProfile> current, long currentMapVersion) {
+            return currentMapVersion == mapVersion && activities.matches(current);
+        }
+    }
+
+    /**
+     * The ride count of each route point of a set of users at one moment.
+     */
+    private record RideCountSnapshot(ActivityStamp activities, PointGraph points, int[] rides) {
+    }
+
+    /**
+     * The combined route points of one feed at one moment, with its connectivity built on first use.
+     */
+    private static class FeedSnapshot {
+        private PointIndex[] members;
+        private int[] sizes;
+        private CompositePointGraph graph;
+        private ConnectivityIndex connectivity;
+        private ObstacleFilteredGraph filtered;
+        private PointBuckets buckets;
+
+        FeedSnapshot(List<PointIndex> members) {
+            this.members = members.toArray(new PointIndex[0]);
+            this.sizes = new int[this.members.length];
+            for (int i = 0; i < this.members.length; i++) {
+                sizes[i] = this.members[i].size();
+            }
+            this.graph = new CompositePointGraph(members);
+        }
+
+        boolean matches(List<PointIndex> current) {
+            if (current.size() != members.length) {
+                return false;
+            }
+            for (int i = 0; i < members.length; i++) {
+                if (current.get(i) != members[i] || current.get(i).size() != sizes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets the graph to search: the combined graph, or a view of it without the points an
+         * obstacle of the map covers, recreated whenever the obstacles change.
+         */
+        synchronized PointGraph searchGraph(Map map) {
+            if (map == null) {
+                return graph;
+            }
+            if (filtered == null || !filtered.isCurrent()) {
+                filtered = new ObstacleFilteredGraph(graph, map);
+            }
+            return filtered;
+        }
+
+        synchronized PointBuckets buckets() {
+            if (buckets == null) {
+                buckets = PointBuckets.of(graph);
+            }
+            return buckets;
+        }
+
+        synchronized ConnectivityIndex connectivity() {
+            if (connectivity == null) {
+                connectivity = ConnectivityIndex.of(graph);
+            }
+            return connectivity;
+        }
+    }
+}
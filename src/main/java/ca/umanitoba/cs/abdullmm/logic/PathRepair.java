@@ -0,0 +1,13 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+/**
+ * What one update of a RoutePlanningSession did.
+ *
+ * @param changedPoints the number of route points that became blocked or unblocked
+ * @param nodesTouched the number of points whose distance estimate was recomputed or that were
+ *                     taken off the search queue
+ * @param nearPath whether a changed point was on or beside the route held before the update
+ * @param routeChanged whether the route after the update differs from the one before
+ */
+public record PathRepair(int changedPoints, int nodesTouched, boolean nearPath, boolean routeChanged) {
+}
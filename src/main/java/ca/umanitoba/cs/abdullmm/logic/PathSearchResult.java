@@ -0,0 +1,12 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.model.Route;
+
+/**
+ * The outcome of a successful path search: the route found and how much work it took.
+ *
+ * @param route the path from start to end
+ * @param nodesExpanded the number of points taken off a frontier and expanded during the search
+ */
+public record PathSearchResult(Route route, int nodesExpanded) {
+}
@@ -0,0 +1,29 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+
+/**
+ * A search algorithm that finds a route between two points over a set of available grid points.
+ * Two points are connected when they are horizontally or vertically adjacent.
+ *
+ * Implementations are stateless, so a single instance may be shared between queries.
+ */
+public interface PathSearchStrategy {
+
+    /**
+     * Finds a path from start to end that only passes through points in the graph.
+     *
+     * Precondition: start, end and points are not null
+     * Postcondition: returns a new Route of consecutive adjacent points from start to end,
+     * together with the number of nodes expanded; the graph is not modified
+     *
+     * @param start the starting GridPoint
+     * @param end the ending GridPoint
+     * @param points graph of all available grid points
+     * @return the path found and the search statistics
+     * @throws PathNotFoundException if either endpoint is not available or no path exists
+     */
+    PathSearchResult search(GridPoint start, GridPoint end, PointGraph points) throws PathNotFoundException;
+}
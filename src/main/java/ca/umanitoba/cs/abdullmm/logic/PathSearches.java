@@ -0,0 +1,74 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.ConnectivityIndex;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+import com.google.common.base.Preconditions;
+
+/**
+ * Helpers shared by the PathSearchStrategy implementations.
+ */
+final class PathSearches {
+
+    private PathSearches() {
+    }
+
+    /**
+     * Verifies that both endpoints of a query are available points.
+     *
+     * Precondition: start, end and points are not null
+     * Postcondition: no state change
+     *
+     * @param start the starting point
+     * @param end the ending point
+     * @param points graph of available points
+     * @throws PathNotFoundException if either endpoint is not on any existing route
+     */
+    static void checkEndpoints(GridPoint start, GridPoint end, PointGraph points) throws PathNotFoundException {
+        Preconditions.checkNotNull(start, "Start point cannot be null");
+        Preconditions.checkNotNull(end, "End point cannot be null");
+        Preconditions.checkNotNull(points, "Available points cannot be null");
+
+        if (!points.contains(start)) {
+            throw new PathNotFoundException("Starting point is not on any existing route");
+        }
+        if (!points.contains(end)) {
+            throw new PathNotFoundException("Ending point is not on any existing route");
+        }
+    }
+
+    /**
+     * Fails fast when the endpoints are missing or lie on different route islands, so that
+     * unreachable queries never start a search.
+     *
+     * Precondition: all parameters are not null; connectivity is indexed by the graph's ids
+     * Postcondition: no state change
+     *
+     * @param start the starting point
+     * @param end the ending point
+     * @param graph the graph to be searched
+     * @param connectivity the components of that graph
+     * @throws PathNotFoundException if either endpoint is missing or no path joins them
+     */
+    static void checkReachable(GridPoint start, GridPoint end, PointGraph graph, ConnectivityIndex connectivity)
+            throws PathNotFoundException {
+        checkEndpoints(start, end, graph);
+        if (!connectivity.connected(graph.indexOf(start), graph.indexOf(end))) {
+            throw new PathNotFoundException("No path exists between the two points");
+        }
+    }
+
+    /**
+     * Gets the Manhattan distance between two points in a graph, the number of 4-connected steps
+     * needed to travel between them on an unobstructed grid.
+     *
+     * @param points the graph holding both points
+     * @param a id of the first point
+     * @param b id of the second point
+     * @return the Manhattan distance
+     */
+    static int manhattan(PointGraph points, int a, int b) {
+        return Math.abs(points.x(a) - points.x(b)) + Math.abs(points.y(a) - points.y(b));
+    }
+}
@@ -0,0 +1,130 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.model.Activity;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.ObstacleDistanceField;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+import ca.umanitoba.cs.abdullmm.model.UserProfile;
+import com.google.common.base.Preconditions;
+
+import java.util.List;
+
+/**
+ * The EdgeCost of a set of RoutePreferences over one scope's rides: stepping to a point costs
+ * RoutePreferences.stepCost of the number of activities that passed through it and its distance
+ * to the nearest obstacle.
+ *
+ * Ride counts are kept in an array indexed by the ids of the scope's route points, counted once
+ * per activity however often its route revisits a point. Points are looked up by coordinates, so
+ * the cost applies to any graph over the same points, such as an obstacle-filtered view.
+ *
+ * Class Invariants:
+ * - points, rides and preferences are not null
+ * - rides has one count per id of points
+ */
+final class PreferenceCost implements EdgeCost {
+    private PointGraph points;
+    private int[] rides;
+    private ObstacleDistanceField clearance;
+    private RoutePreferences preferences;
+    private int minimumCost;
+
+    private PreferenceCost(PointGraph points, int[] rides, ObstacleDistanceField clearance,
+                           RoutePreferences preferences) {
+        this.points = points;
+        this.rides = rides;
+        this.clearance = clearance;
+        this.preferences = preferences;
+
+        // No step can cost less than one to the most ridden point, as far from obstacles as allowed
+        int mostRides = 0;
+        for (int count : rides) {
+            mostRides = Math.max(mostRides, count);
+        }
+        this.minimumCost = preferences.stepCost(mostRides, preferences.clearance());
+        checkInvariant();
+    }
+
+    /**
+     * Counts the activities of some users passing through each of a set of route points.
+     *
+     * Precondition: points and members are not null; every point of the members' activities is in points
+     * Postcondition: returns one count per id of points; no state change
+     *
+     * @param points the route points of the members
+     * @param members the users whose activities to count
+     * @return the ride count of each point id
+     */
+    static int[] countRides(PointGraph points, List<UserProfile> members) {
+        Preconditions.checkNotNull(points, "Points cannot be null");
+        Preconditions.checkNotNull(members, "Members cannot be null");
+
+        int[] rides = new int[points.capacity()];
+        int[] lastActivity = new int[points.capacity()]; // Last activity to count each point, numbered from 1
+        int activityNumber = 0;
+        for (UserProfile member : members) {
+            for (Activity activity : member.getActivities()) {
+                activityNumber++;
+                for (GridPoint point : activity.getRoute().getPoints()) {
+                    int id = points.indexOf(point);
+                    if (id >= 0 && lastActivity[id] != activityNumber) {
+                        lastActivity[id] = activityNumber;
+                        rides[id]++;
+                    }
+                }
+            }
+        }
+        return rides;
+    }
+
+    /**
+     * Creates the cost of some preferences over counted rides.
+     *
+     * Precondition: points, rides and preferences are not null; rides came from countRides over points
+     * Postcondition: returns the cost; rides is not copied and must not change afterwards
+     *
+     * @param points the route points the rides were counted over
+     * @param rides the ride count of each point id
+     * @param clearance the obstacle distances, or null if there are no obstacles
+     * @param preferences the weights to apply
+     * @return the edge cost
+     */
+    static PreferenceCost of(PointGraph points, int[] rides, ObstacleDistanceField clearance,
+                             RoutePreferences preferences) {
+        Preconditions.checkNotNull(points, "Points cannot be null");
+        Preconditions.checkNotNull(rides, "Ride counts cannot be null");
+        Preconditions.checkNotNull(preferences, "Route preferences cannot be null");
+        return new PreferenceCost(points, rides, clearance, preferences);
+    }
+
+    @Override
+    public int cost(PointGraph graph, int fromId, int toId) {
+        int x = graph.x(toId);
+        int y = graph.y(toId);
+        int id = points.indexOf(x, y);
+        int rideCount = id >= 0 && id < rides.length ? rides[id] : 0;
+        int obstacleDistance = clearance == null ? preferences.clearance() : clearance.distance(x, y);
+        return preferences.stepCost(rideCount, obstacleDistance);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The bound is the cost of stepping to the most ridden point with full clearance, so when
+     * every point has been ridden equally often the search is guided as tightly as plain A*.
+     */
+    @Override
+    public int minimumCost() {
+        return minimumCost;
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkNotNull(points, "Points cannot be null");
+        Preconditions.checkNotNull(preferences, "Route preferences cannot be null");
+        Preconditions.checkState(rides.length == points.capacity(), "One ride count per point id");
+        Preconditions.checkState(minimumCost >= 1, "Step costs must be positive");
+    }
+}
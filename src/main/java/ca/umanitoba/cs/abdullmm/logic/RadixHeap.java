@@ -0,0 +1,138 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * A monotone min-priority queue of (key, id) pairs with non-negative int keys, for searches whose
+ * keys never drop below the last one removed, as Dijkstra's and consistent A* keys do.
+ *
+ * Entries are packed as key << 32 | id and kept in 32 buckets: bucket 0 holds keys equal to the
+ * last key removed, and bucket b > 0 holds keys whose highest bit differing from it is bit b - 1.
+ * When bucket 0 runs out, the first non-empty bucket is scanned for its smallest key, which becomes
+ * the new last key, and its entries are redistributed into strictly lower buckets. Every entry
+ * therefore moves at most 32 times, so each operation is amortized O(1) for small integer costs,
+ * with no comparisons between entries beyond the scan for each new minimum.
+ *
+ * There is no decrease-key; callers push a point again when its key improves and skip the stale
+ * entry when it comes out.
+ *
+ * Class Invariants:
+ * - every entry in bucket b has a key k >= last with bucketOf(k) == b
+ * - size is the total number of entries in the buckets
+ */
+final class RadixHeap {
+    private static final int BUCKET_COUNT = 32;
+
+    private long[][] buckets;
+    private int[] counts;
+    private int size;
+    private int last;
+
+    /**
+     * Constructs an empty heap.
+     *
+     * Postcondition: the heap is empty and accepts any non-negative key
+     */
+    RadixHeap() {
+        this.buckets = new long[BUCKET_COUNT][];
+        this.counts = new int[BUCKET_COUNT];
+        this.size = 0;
+        this.last = 0;
+        checkInvariant();
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * Precondition: key >= lastKey(); id >= 0
+     * Postcondition: the entry will be removed no later than any entry with a larger key
+     *
+     * @param key the entry's priority
+     * @param id the point id
+     */
+    void push(int key, int id) {
+        Preconditions.checkArgument(key >= last, "Keys cannot drop below the last key removed");
+        append(bucketOf(key), (long) key << 32 | id);
+        size++;
+    }
+
+    /**
+     * Removes an entry with the smallest key. Its key is lastKey() afterwards.
+     *
+     * Precondition: the heap is not empty
+     * Postcondition: the entry is removed
+     *
+     * @return the entry's point id
+     */
+    int pop() {
+        Preconditions.checkState(size > 0, "Heap is empty");
+        if (counts[0] == 0) {
+            redistribute();
+        }
+        size--;
+        return (int) buckets[0][--counts[0]];
+    }
+
+    /**
+     * Gets the key of the entry most recently removed, or 0 if none has been.
+     *
+     * @return the last key removed
+     */
+    int lastKey() {
+        return last;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Moves the entries of the first non-empty bucket into lower buckets, around its smallest key.
+     */
+    private void redistribute() {
+        int bucket = 1;
+        while (counts[bucket] == 0) {
+            bucket++;
+        }
+
+        long[] entries = buckets[bucket];
+        int count = counts[bucket];
+        long smallest = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            smallest = Math.min(smallest, entries[i]);
+        }
+        last = (int) (smallest >>> 32);
+
+        counts[bucket] = 0;
+        for (int i = 0; i < count; i++) {
+            append(bucketOf((int) (entries[i] >>> 32)), entries[i]);
+        }
+    }
+
+    private int bucketOf(int key) {
+        return 32 - Integer.numberOfLeadingZeros(key ^ last);
+    }
+
+    private void append(int bucket, long entry) {
+        long[] entries = buckets[bucket];
+        if (entries == null) {
+            entries = new long[16];
+            buckets[bucket] = entries;
+        } else if (counts[bucket] == entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+            buckets[bucket] = entries;
+        }
+        entries[counts[bucket]++] = entry;
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(buckets.length == BUCKET_COUNT && counts.length == BUCKET_COUNT,
+                "One slot per bucket");
+        Preconditions.checkState(size >= 0 && last >= 0, "Size and last key cannot be negative");
+    }
+}
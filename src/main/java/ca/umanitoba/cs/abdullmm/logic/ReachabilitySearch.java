@@ -0,0 +1,80 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+import ca.umanitoba.cs.abdullmm.model.PointSet;
+import com.google.common.base.Preconditions;
+
+/**
+ * Breadth-first search for every point within a number of steps of a start, kept as bitmaps
+ * rather than a queue: one bit per id for the points seen, the current frontier and the next
+ * one. Each level walks the set bits of the frontier in id order, and only over the range of
+ * words the frontier occupies, so memory stays at three bits per id however many points are
+ * reached and no per-point objects are created.
+ */
+final class ReachabilitySearch {
+
+    private ReachabilitySearch() {
+    }
+
+    /**
+     * Finds the points within maxSteps steps of a start point.
+     *
+     * Precondition: graph is not null; startId is a point of graph; maxSteps >= 0
+     * Postcondition: returns the set of points with a path of at most maxSteps steps from start
+     *
+     * @param graph the graph to search
+     * @param startId the id of the start point
+     * @param maxSteps the most steps allowed
+     * @return the reachable points, including the start
+     */
+    static PointSet within(PointGraph graph, int startId, int maxSteps) {
+        Preconditions.checkNotNull(graph, "Graph cannot be null");
+        Preconditions.checkElementIndex(startId, graph.capacity(), "Start point id");
+        Preconditions.checkArgument(maxSteps >= 0, "Step count cannot be negative");
+
+        int wordCount = (graph.capacity() + 63) >>> 6;
+        long[] seen = new long[wordCount];
+        long[] frontier = new long[wordCount];
+        long[] next = new long[wordCount];
+        int[] neighbors = new int[4];
+
+        seen[startId >>> 6] |= 1L << startId;
+        frontier[startId >>> 6] |= 1L << startId;
+        int low = startId >>> 6;
+        int high = low;
+
+        for (int step = 0; step < maxSteps && low <= high; step++) {
+            int nextLow = wordCount;
+            int nextHigh = -1;
+            for (int wordIndex = low; wordIndex <= high; wordIndex++) {
+                long word = frontier[wordIndex];
+                frontier[wordIndex] = 0;
+                while (word != 0) {
+                    int id = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+
+                    int neighborCount = graph.neighbors(id, neighbors);
+                    for (int i = 0; i < neighborCount; i++) {
+                        int neighbor = neighbors[i];
+                        int neighborWord = neighbor >>> 6;
+                        long bit = 1L << neighbor;
+                        if ((seen[neighborWord] & bit) == 0) {
+                            seen[neighborWord] |= bit;
+                            next[neighborWord] |= bit;
+                            nextLow = Math.min(nextLow, neighborWord);
+                            nextHigh = Math.max(nextHigh, neighborWord);
+                        }
+                    }
+                }
+            }
+
+            long[] swap = frontier;
+            frontier = next;
+            next = swap;
+            low = nextLow;
+            high = nextHigh;
+        }
+
+        return new PointSet(graph, seen);
+    }
+}
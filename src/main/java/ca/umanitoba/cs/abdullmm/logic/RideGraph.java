@@ -0,0 +1,511 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.Map;
+import ca.umanitoba.cs.abdullmm.model.PointIndex;
+import ca.umanitoba.cs.abdullmm.model.Route;
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A graph in which two points are connected only if some recorded ride went directly from one to
+ * the other, so found paths follow where people actually rode rather than every pair of adjacent
+ * cells.
+ *
+ * Edges are stored in compressed (CSR) form: the neighbors of point v are
+ * targets[offsets[v] .. offsets[v + 1]). Runs of points with exactly two neighbors are then
+ * contracted: every maximal chain of such points between two junctions (points of any other
+ * degree) becomes a single edge whose weight is its number of steps. Searches run Dijkstra's
+ * algorithm over the junctions only, which on feeds with long overlapping routes is a small
+ * fraction of the points. A ring with no junction gets one of its points promoted to a junction.
+ *
+ * Class Invariants:
+ * - offsets has one more entry than there are points; targets holds every edge in both directions
+ * - every point is either a junction or the interior of exactly one chain
+ */
+final class RideGraph {
+    private PointIndex points;
+    private int[] offsets;
+    private int[] targets;
+
+    private boolean[] junction;
+    private int[] chainOf;        // Chain containing each interior point, -1 for junctions
+    private int[] chainPosition;  // Steps from the chain's first junction to each interior point
+    private int[] chainFrom;
+    private int[] chainTo;
+    private int[] chainLength;    // Steps from chainFrom to chainTo
+    private int[] chainNodeStart; // Interior points of chain c are chainNodes[chainNodeStart[c] ..]
+    private int[] chainNodes;
+    private int chainCount;
+    private int[] incidentOffsets; // Chains touching junction v are incident[incidentOffsets[v] ..]
+    private int[] incident;
+
+    private RideGraph() {
+    }
+
+    /**
+     * Builds the graph of a set of routes. Consecutive points of a route are joined unless either
+     * is covered by an obstacle of the map.
+     *
+     * Precondition: routes is not null and contains no null elements
+     * Postcondition: returns a graph with an edge for every step taken by a route
+     *
+     * @param routes the recorded routes
+     * @param map the map whose obstacles block points, or null
+     * @return the contracted ride graph
+     */
+    static RideGraph build(List<Route> routes, Map map) {
+        Preconditions.checkNotNull(routes, "Routes cannot be null");
+
+        RideGraph graph = new RideGraph();
+        List<GridPoint> allPoints = new ArrayList<>();
+        for (Route route : routes) {
+            Preconditions.checkNotNull(route, "Route cannot be null");
+            allPoints.addAll(route.getPoints());
+        }
+        graph.points = new PointIndex(allPoints);
+
+        // Each undirected edge packed as (smaller id, larger id), then sorted to drop repeats
+        long[] edges = new long[Math.max(allPoints.size(), 1)];
+        int edgeCount = 0;
+        for (Route route : routes) {
+            List<GridPoint> routePoints = route.getPoints();
+            for (int i = 1; i < routePoints.size(); i++) {
+                GridPoint a = routePoints.get(i - 1);
+                GridPoint b = routePoints.get(i);
+                if (a.equals(b) || (map != null && (map.isBlocked(a.x(), a.y()) || map.isBlocked(b.x(), b.y())))) {
+                    continue;
+                }
+                int idA = graph.points.indexOf(a);
+                int idB = graph.points.indexOf(b);
+                edges[edgeCount++] = ((long) Math.min(idA, idB) << 32) | Math.max(idA, idB);
+            }
+        }
+        Arrays.sort(edges, 0, edgeCount);
+        graph.buildAdjacency(edges, edgeCount);
+        graph.contract();
+        graph.checkInvariant();
+        return graph;
+    }
+
+    /**
+     * Finds a path with the fewest steps between two points along recorded rides.
+     *
+     * Precondition: start and end are not null
+     * Postcondition: returns the path and the number of junctions settled
+     *
+     * @param start the starting point
+     * @param end the ending point
+     * @return the path found and the search statistics
+     * @throws PathNotFoundException if either point is on no ride or no rides join them
+     */
+    PathSearchResult search(GridPoint start, GridPoint end) throws PathNotFoundException {
+        Preconditions.checkNotNull(start, "Start point cannot be null");
+        Preconditions.checkNotNull(end, "End point cannot be null");
+
+        int startId = points.indexOf(start);
+        int endId = points.indexOf(end);
+        if (startId < 0 || degree(startId) == 0 && !start.equals(end)) {
+            throw new PathNotFoundException("Starting point is not on any recorded ride");
+        }
+        if (endId < 0 || degree(endId) == 0 && !start.equals(end)) {
+            throw new PathNotFoundException("Ending point is not on any recorded ride");
+        }
+        if (startId == endId) {
+            Route path = new Route("Found Path");
+            path.addPoint(points.point(startId));
+            return new PathSearchResult(path, 1);
+        }
+
+        int n = points.size();
+        int[] distance = new int[n];
+        int[] viaChain = new int[n]; // Chain used to reach each junction, -1 at the start, -2 if seeded
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        LongHeap heap = new LongHeap();
+
+        if (junction[startId]) {
+            relax(distance, viaChain, heap, startId, 0, -1);
+        } else {
+            int c = chainOf[startId];
+            int p = chainPosition[startId];
+            relax(distance, viaChain, heap, chainFrom[c], p, -2);
+            relax(distance, viaChain, heap, chainTo[c], chainLength[c] - p, -2);
+        }
+
+        // Best way found so far to finish: through which junction, or directly along one chain
+        long best = Long.MAX_VALUE;
+        int bestJunction = -1;
+        int endChain = junction[endId] ? -1 : chainOf[endId];
+        int endPosition = junction[endId] ? 0 : chainPosition[endId];
+        if (endChain >= 0 && !junction[startId] && chainOf[startId] == endChain) {
+            best = Math.abs(chainPosition[startId] - endPosition);
+        }
+
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            long top = heap.poll();
+            int current = (int) top;
+            int cost = (int) (top >>> 32);
+            if (cost != distance[current]) {
+                continue; // A cheaper entry for this junction was already settled
+            }
+            if (cost >= best) {
+                break;
+            }
+            settled++;
+
+            long finish = finishCost(current, cost, endId, endChain, endPosition);
+            if (finish < best) {
+                best = finish;
+                bestJunction = current;
+            }
+
+            for (int i = incidentOffsets[current]; i < incidentOffsets[current + 1]; i++) {
+                int c = incident[i];
+                int other = chainFrom[c] == current ? chainTo[c] : chainFrom[c];
+                relax(distance, viaChain, heap, other, cost + chainLength[c], c);
+            }
+        }
+
+        if (best == Long.MAX_VALUE) {
+            throw new PathNotFoundException("No recorded rides join the two points");
+        }
+        return new PathSearchResult(reconstructPath(startId, endId, bestJunction, viaChain), settled);
+    }
+
+    /**
+     * Gets the number of distinct points on the rides.
+     *
+     * @return the point count
+     */
+    int pointCount() {
+        return points.size();
+    }
+
+    /**
+     * Gets the number of junctions, the points a search actually visits.
+     *
+     * @return the junction count
+     */
+    int junctionCount() {
+        int count = 0;
+        for (boolean isJunction : junction) {
+            count += isJunction ? 1 : 0;
+        }
+        return count;
+    }
+
+    private int degree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    private static void relax(int[] distance, int[] viaChain, LongHeap heap, int junctionId, int cost, int chain) {
+        if (cost < distance[junctionId]) {
+            distance[junctionId] = cost;
+            viaChain[junctionId] = chain;
+            heap.add(((long) cost << 32) | junctionId);
+        }
+    }
+
+    /**
+     * Gets the cost of finishing at the end point from a settled junction, or MAX_VALUE if the
+     * end point cannot be reached from it without passing another junction.
+     */
+    private long finishCost(int current, int cost, int endId, int endChain, int endPosition) {
+        if (current == endId) {
+            return cost;
+        }
+        if (endChain < 0) {
+            return Long.MAX_VALUE;
+        }
+        long finish = Long.MAX_VALUE;
+        if (chainFrom[endChain] == current) {
+            finish = (long) cost + endPosition;
+        }
+        if (chainTo[endChain] == current) {
+            finish = Math.min(finish, (long) cost + chainLength[endChain] - endPosition);
+        }
+        return finish;
+    }
+
+    /**
+     * Lists the point ids of the path, end first, then builds the route in travel order.
+     */
+    private Route reconstructPath(int startId, int endId, int bestJunction, int[] viaChain) {
+        IntList reversed = new IntList();
+        if (bestJunction < 0) {
+            // Start and end lie on the same chain and the direct way along it is shortest
+            walkChain(chainOf[endId], chainPosition[endId], chainPosition[startId], reversed);
+        } else {
+            if (bestJunction != endId) {
+                int c = chainOf[endId];
+                walkChain(c, chainPosition[endId], sideOf(c, bestJunction, chainPosition[endId]), reversed);
+            }
+            int current = bestJunction;
+            while (viaChain[current] >= 0) {
+                int c = viaChain[current];
+                boolean fromSide = chainFrom[c] == current;
+                walkChain(c, fromSide ? 0 : chainLength[c], fromSide ? chainLength[c] : 0, reversed);
+                current = fromSide ? chainTo[c] : chainFrom[c];
+            }
+            if (viaChain[current] == -2) {
+                int c = chainOf[startId];
+                walkChain(c, sideOf(c, current, chainPosition[startId]), chainPosition[startId], reversed);
+            }
+        }
+        reversed.add(startId);
+
+        Route path = new Route("Found Path");
+        path.getPoints().ensureCapacity(reversed.size());
+        for (int i = reversed.size() - 1; i >= 0; i--) {
+            path.addPoint(points.point(reversed.get(i)));
+        }
+        return path;
+    }
+
+    /**
+     * Gets the position (0 or the chain's length) at which a junction joins a chain, taking the
+     * side nearer to position when the chain starts and ends at that junction.
+     */
+    private int sideOf(int c, int junctionId, int position) {
+        if (chainFrom[c] != junctionId) {
+            return chainLength[c];
+        }
+        if (chainTo[c] != junctionId) {
+            return 0;
+        }
+        return position <= chainLength[c] - position ? 0 : chainLength[c];
+    }
+
+    /**
+     * Appends the points of a chain from position from up to, but not including, position to.
+     * Position 0 is chainFrom and chainLength is chainTo.
+     */
+    private void walkChain(int c, int from, int to, IntList out) {
+        int step = Integer.signum(to - from);
+        for (int position = from; position != to; position += step) {
+            out.add(pointAt(c, position));
+        }
+    }
+
+    private int pointAt(int c, int position) {
+        if (position == 0) {
+            return chainFrom[c];
+        }
+        if (position == chainLength[c]) {
+            return chainTo[c];
+        }
+        return chainNodes[chainNodeStart[c] + position - 1];
+    }
+
+    private void buildAdjacency(long[] edges, int edgeCount) {
+        int n = points.size();
+        offsets = new int[n + 1];
+        long previous = -1;
+        int unique = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            if (edges[i] != previous) {
+                offsets[(int) (edges[i] >>> 32) + 1]++;
+                offsets[(int) edges[i] + 1]++;
+                edges[unique++] = edges[i];
+                previous = edges[i];
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        targets = new int[offsets[n]];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < unique; i++) {
+            int a = (int) (edges[i] >>> 32);
+            int b = (int) edges[i];
+            targets[fill[a]++] = b;
+            targets[fill[b]++] = a;
+        }
+    }
+
+    /**
+     * Marks junctions and records every chain between them, then indexes the chains touching each
+     * junction.
+     */
+    private void contract() {
+        int n = points.size();
+        junction = new boolean[n];
+        chainOf = new int[n];
+        chainPosition = new int[n];
+        Arrays.fill(chainOf, -1);
+        for (int v = 0; v < n; v++) {
+            junction[v] = degree(v) != 2;
+        }
+
+        chainFrom = new int[16];
+        chainTo = new int[16];
+        chainLength = new int[16];
+        chainNodeStart = new int[17];
+        chainNodes = new int[Math.max(n, 1)];
+        int chainNodeCount = 0;
+        IntList interior = new IntList();
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int v = 0; v < n; v++) {
+                if (pass == 1) {
+                    if (junction[v] || chainOf[v] >= 0) {
+                        continue;
+                    }
+                    junction[v] = true; // A ring with no junction: promote one of its points
+                } else if (!junction[v]) {
+                    continue;
+                }
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    interior.clear();
+                    int previous = v;
+                    int current = targets[i];
+                    while (!junction[current]) {
+                        interior.add(current);
+                        int next = targets[offsets[current]] == previous
+                                ? targets[offsets[current] + 1] : targets[offsets[current]];
+                        previous = current;
+                        current = next;
+                    }
+                    boolean keep = interior.size() == 0
+                            ? v < current
+                            : v < current || (v == current && interior.get(0) < interior.get(interior.size() - 1));
+                    if (!keep) {
+                        continue;
+                    }
+
+                    ensureChainCapacity();
+                    int c = chainCount++;
+                    chainFrom[c] = v;
+                    chainTo[c] = current;
+                    chainLength[c] = interior.size() + 1;
+                    chainNodeStart[c] = chainNodeCount;
+                    for (int k = 0; k < interior.size(); k++) {
+                        int node = interior.get(k);
+                        chainOf[node] = c;
+                        chainPosition[node] = k + 1;
+                        chainNodes[chainNodeCount++] = node;
+                    }
+                    chainNodeStart[c + 1] = chainNodeCount;
+                }
+            }
+        }
+
+        incidentOffsets = new int[n + 1];
+        for (int c = 0; c < chainCount; c++) {
+            if (chainFrom[c] != chainTo[c]) {
+                incidentOffsets[chainFrom[c] + 1]++;
+                incidentOffsets[chainTo[c] + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            incidentOffsets[v + 1] += incidentOffsets[v];
+        }
+        incident = new int[incidentOffsets[n]];
+        int[] fill = Arrays.copyOf(incidentOffsets, n);
+        for (int c = 0; c < chainCount; c++) {
+            if (chainFrom[c] != chainTo[c]) {
+                incident[fill[chainFrom[c]]++] = c;
+                incident[fill[chainTo[c]]++] = c;
+            }
+        }
+    }
+
+    private void ensureChainCapacity() {
+        if (chainCount == chainFrom.length) {
+            int length = chainCount * 2;
+            chainFrom = Arrays.copyOf(chainFrom, length);
+            chainTo = Arrays.copyOf(chainTo, length);
+            chainLength = Arrays.copyOf(chainLength, length);
+            chainNodeStart = Arrays.copyOf(chainNodeStart, length + 1);
+        }
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(offsets.length == points.size() + 1, "Offsets must cover every point");
+        Preconditions.checkState(targets.length == offsets[points.size()], "Targets must match offsets");
+        for (int v = 0; v < points.size(); v++) {
+            Preconditions.checkState(junction[v] != (chainOf[v] >= 0), "Point must be a junction or in one chain");
+        }
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * A binary min-heap of longs, used for (cost, junction) pairs packed as cost << 32 | junction.
+     */
+    private static final class LongHeap {
+        private long[] values = new long[16];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int position = size++;
+            while (position > 0 && values[(position - 1) >>> 1] > value) {
+                values[position] = values[(position - 1) >>> 1];
+                position = (position - 1) >>> 1;
+            }
+            values[position] = value;
+        }
+
+        long poll() {
+            long top = values[0];
+            long last = values[--size];
+            int position = 0;
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && values[child + 1] < values[child]) {
+                    child++;
+                }
+                if (values[child] >= last) {
+                    break;
+                }
+                values[position] = values[child];
+                position = child;
+            }
+            values[position] = last;
+            return top;
+        }
+    }
+}
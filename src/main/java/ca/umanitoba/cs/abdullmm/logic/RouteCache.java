@@ -0,0 +1,153 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.Route;
+import com.google.common.base.Preconditions;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded least-recently-used cache of path query results, keyed by
+ * (scope, user, start, end, strategy).
+ *
+ * Each entry remembers the graph it was computed from (a user's PointIndex, a feed's combined
+ * graph, or an obstacle-filtered view of either) and that graph's size. Graphs only grow, a feed
+ * gets a new graph whenever its membership changes, and a filtered view is replaced whenever the
+ * obstacles change, so an entry is stale exactly when a user in its scope gained route points, the
+ * feed's follow list changed or the obstacles changed. Stale entries are dropped when they are next
+ * looked up; everything else stays cached until evicted.
+ *
+ * The bound is on total route points held, so a few very long routes cannot crowd out the cache
+ * any more than many short ones. All methods are synchronized.
+ *
+ * Class Invariants:
+ * - weight equals the sum of the weights of the cached entries and never exceeds maxWeight
+ *   after an insertion completes
+ */
+class RouteCache {
+    private static final int ENTRY_OVERHEAD = 8; // Charged per entry for the key and bookkeeping
+
+    private record Key(SearchScope scope, String userId, GridPoint start, GridPoint end, PathSearchStrategy strategy) {
+    }
+
+    private record Entry(Route route, Object source, int sourceSize, int weight) {
+    }
+
+    private LinkedHashMap<Key, Entry> entries;
+    private long maxWeight;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * Precondition: maxWeight > 0
+     * Postcondition: the cache holds routes totalling at most maxWeight points plus overhead
+     *
+     * @param maxWeight the bound on the total weight of cached entries
+     */
+    RouteCache(long maxWeight) {
+        Preconditions.checkArgument(maxWeight > 0, "Cache size must be positive");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Looks up a cached route, dropping the entry if its source has changed since it was cached.
+     *
+     * Postcondition: returns a copy of the cached route, or null on a miss
+     *
+     * @param scope the query's scope
+     * @param userId the querying user
+     * @param start the starting point
+     * @param end the ending point
+     * @param strategy the search strategy
+     * @param source the current source of points for the query's scope
+     * @param sourceSize the current size of that source
+     * @return a copy of the cached route, or null if there is no valid entry
+     */
+    synchronized Route get(SearchScope scope, String userId, GridPoint start, GridPoint end,
+                           PathSearchStrategy strategy, Object source, int sourceSize) {
+        Key key = new Key(scope, userId, start, end, strategy);
+        Entry entry = entries.get(key);
+        if (entry != null && (entry.source() != source || entry.sourceSize() != sourceSize)) {
+            entries.remove(key);
+            weight -= entry.weight();
+            invalidations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(entry.route());
+    }
+
+    /**
+     * Caches a route, evicting least recently used entries until the cache is within its bound.
+     *
+     * Postcondition: the route is cached unless it alone exceeds the bound
+     *
+     * @param scope the query's scope
+     * @param userId the querying user
+     * @param start the starting point
+     * @param end the ending point
+     * @param strategy the search strategy
+     * @param source the source of points the route was found in
+     * @param sourceSize the size of that source when the search ran
+     * @param route the route found
+     */
+    synchronized void put(SearchScope scope, String userId, GridPoint start, GridPoint end,
+                          PathSearchStrategy strategy, Object source, int sourceSize, Route route) {
+        int entryWeight = route.getPoints().size() + ENTRY_OVERHEAD;
+        if (entryWeight > maxWeight) {
+            return;
+        }
+
+        Entry previous = entries.put(new Key(scope, userId, start, end, strategy),
+                new Entry(copy(route), source, sourceSize, entryWeight));
+        if (previous != null) {
+            weight -= previous.weight();
+        }
+        weight += entryWeight;
+
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight) {
+            weight -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions++;
+        }
+        checkInvariant();
+    }
+
+    /**
+     * Gets a snapshot of the cache's counters.
+     *
+     * @return the current statistics
+     */
+    synchronized RouteCacheStats stats() {
+        return new RouteCacheStats(hits, misses, evictions, invalidations, entries.size(), weight);
+    }
+
+    /**
+     * Copies a route so callers can never modify a cached one.
+     */
+    private static Route copy(Route route) {
+        Route copy = new Route(route.getName());
+        copy.getPoints().addAll(route.getPoints());
+        return copy;
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(weight >= 0 && weight <= maxWeight, "Cache weight out of range");
+    }
+}
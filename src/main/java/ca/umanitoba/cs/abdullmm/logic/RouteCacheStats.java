@@ -0,0 +1,14 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+/**
+ * A snapshot of the route query cache's counters.
+ *
+ * @param hits lookups answered from the cache
+ * @param misses lookups that had to run a search
+ * @param evictions entries dropped to stay within the size bound
+ * @param invalidations entries dropped because the routes in their scope changed
+ * @param entries the number of cached routes
+ * @param weight the total number of route points held by cached routes
+ */
+public record RouteCacheStats(long hits, long misses, long evictions, long invalidations, int entries, long weight) {
+}
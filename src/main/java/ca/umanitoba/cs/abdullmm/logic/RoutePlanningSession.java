@@ -0,0 +1,463 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.Map;
+import ca.umanitoba.cs.abdullmm.model.MapListener;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+import ca.umanitoba.cs.abdullmm.model.Route;
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A shortest route between two points that is kept up to date as a Map's obstacles change, using
+ * D* Lite (Koenig and Likhachev). The search runs backwards from the goal and keeps, for every
+ * point, its distance to the goal (g) and a one-step lookahead of it (rhs). When obstacles cover
+ * or uncover route points, only those points and their neighbors are re-evaluated, and the
+ * search re-expands just the points whose distances the change actually altered, rather than
+ * planning again from nothing. The start may also move along the route (advance), as when the
+ * rider makes progress, without invalidating the search.
+ *
+ * The session listens to the map and records changed cells as they happen; the repair itself
+ * runs on the next call to repair, getRoute or advance. Sessions are not safe for use by several
+ * threads at once, though the map may be changed from any thread. Close a session when done so
+ * that the map stops notifying it.
+ *
+ * Class Invariants:
+ * - g, rhs, heapPosition, primaryKey and secondaryKey have capacity entries
+ * - heap[0, heapSize) holds exactly the ids whose heapPosition is not -1
+ * - rhs[goalId] == 0
+ */
+public class RoutePlanningSession implements AutoCloseable {
+    private static final int INFINITE = Integer.MAX_VALUE / 4;
+
+    private PointGraph graph;
+    private int capacity;
+    private Map map;
+    private MapListener listener;
+    private List<int[]> pendingChanges;
+    private long[] blocked;
+    private int startId;
+    private int goalId;
+    private long keyModifier;
+    private int[] g;
+    private int[] rhs;
+    private int[] heap;
+    private int heapSize;
+    private int[] heapPosition;
+    private long[] primaryKey;
+    private long[] secondaryKey;
+    private int[] expandNeighbors;
+    private int[] updateNeighbors;
+    private int touched;
+    private int[] path;
+    private PathRepair lastRepair;
+
+    /**
+     * Plans the initial route and starts listening for obstacle changes.
+     *
+     * Precondition: graph, start and goal are not null; start and goal are points of graph
+     * Postcondition: getRoute returns a shortest route between them, kept current as the map changes
+     *
+     * @param graph the route points to travel along; ids added to it later are ignored
+     * @param map the map whose obstacles block points, or null for none
+     * @param start the starting point
+     * @param goal the ending point
+     */
+    RoutePlanningSession(PointGraph graph, Map map, GridPoint start, GridPoint goal) {
+        Preconditions.checkNotNull(graph, "Graph cannot be null");
+        Preconditions.checkNotNull(start, "Start point cannot be null");
+        Preconditions.checkNotNull(goal, "End point cannot be null");
+        Preconditions.checkArgument(graph.contains(start), "Start point must be on the graph");
+        Preconditions.checkArgument(graph.contains(goal), "End point must be on the graph");
+
+        this.graph = graph;
+        this.capacity = graph.capacity();
+        this.map = map;
+        this.pendingChanges = new ArrayList<>();
+        this.blocked = new long[(capacity + 63) >>> 6];
+        this.startId = graph.indexOf(start);
+        this.goalId = graph.indexOf(goal);
+        this.keyModifier = 0;
+        this.g = new int[capacity];
+        this.rhs = new int[capacity];
+        this.heap = new int[capacity];
+        this.heapSize = 0;
+        this.heapPosition = new int[capacity];
+        this.primaryKey = new long[capacity];
+        this.secondaryKey = new long[capacity];
+        this.expandNeighbors = new int[4];
+        this.updateNeighbors = new int[4];
+        Arrays.fill(g, INFINITE);
+        Arrays.fill(rhs, INFINITE);
+        Arrays.fill(heapPosition, -1);
+
+        if (map != null) {
+            for (int id = 0; id < capacity; id++) {
+                if (map.isBlocked(graph.x(id), graph.y(id))) {
+                    blocked[id >>> 6] |= 1L << id;
+                }
+            }
+            this.listener = this::recordChange;
+            map.addListener(listener);
+        }
+
+        touched = 0;
+        rhs[goalId] = 0;
+        heapInsert(goalId);
+        computeShortestPath();
+        path = extractPath();
+        lastRepair = new PathRepair(0, touched, false, true);
+        checkInvariant();
+    }
+
+    /**
+     * Applies the obstacle changes recorded since the last update and repairs the route.
+     *
+     * Postcondition: the route is a shortest route given the map's current obstacles
+     *
+     * @return what the repair did; all zero if nothing changed
+     */
+    public PathRepair repair() {
+        List<int[]> changes;
+        synchronized (pendingChanges) {
+            changes = new ArrayList<>(pendingChanges);
+            pendingChanges.clear();
+        }
+        if (changes.isEmpty()) {
+            return new PathRepair(0, 0, false, false);
+        }
+
+        int[] sortedPath = path == null ? new int[0] : path.clone();
+        Arrays.sort(sortedPath);
+        touched = 0;
+        int changed = 0;
+        boolean nearPath = false;
+        for (int[] rectangle : changes) {
+            for (int y = rectangle[1]; y < rectangle[3]; y++) {
+                for (int x = rectangle[0]; x < rectangle[2]; x++) {
+                    int id = graph.indexOf(x, y);
+                    if (id < 0 || id >= capacity || map.isBlocked(x, y) == isBlocked(id)) {
+                        continue;
+                    }
+                    blocked[id >>> 6] ^= 1L << id;
+                    changed++;
+                    nearPath |= isOnOrBeside(id, sortedPath);
+                    updateVertex(id);
+                    int neighborCount = graph.neighbors(id, expandNeighbors);
+                    for (int i = 0; i < neighborCount; i++) {
+                        if (expandNeighbors[i] < capacity) {
+                            updateVertex(expandNeighbors[i]);
+                        }
+                    }
+                }
+            }
+        }
+        return finishUpdate(changed, nearPath);
+    }
+
+    /**
+     * Moves the start of the route to a new point, such as the rider's current position, keeping
+     * the search state. Any recorded obstacle changes are applied first.
+     *
+     * Precondition: position is not null and is a point of the graph
+     * Postcondition: the route runs from position to the goal
+     *
+     * @param position the new starting point
+     * @return what the update did
+     */
+    public PathRepair advance(GridPoint position) {
+        Preconditions.checkNotNull(position, "Position cannot be null");
+        int id = graph.indexOf(position);
+        Preconditions.checkArgument(id >= 0 && id < capacity, "Position must be on the graph");
+
+        PathRepair obstacleRepair = repair();
+        keyModifier += PathSearches.manhattan(graph, startId, id);
+        startId = id;
+        touched = 0;
+        PathRepair moveRepair = finishUpdate(0, false);
+        return new PathRepair(obstacleRepair.changedPoints(), obstacleRepair.nodesTouched() + moveRepair.nodesTouched(),
+                obstacleRepair.nearPath(), obstacleRepair.routeChanged() || moveRepair.routeChanged());
+    }
+
+    /**
+     * Gets the current shortest route, repairing it first if obstacles have changed.
+     *
+     * Postcondition: returns a new Route from the start to the goal
+     *
+     * @return the route
+     * @throws PathNotFoundException if an endpoint is blocked or no unblocked route joins them
+     */
+    public Route getRoute() throws PathNotFoundException {
+        repair();
+        if (isBlocked(startId)) {
+            throw new PathNotFoundException("Starting point is blocked by an obstacle");
+        }
+        if (isBlocked(goalId)) {
+            throw new PathNotFoundException("Ending point is blocked by an obstacle");
+        }
+        if (path == null) {
+            throw new PathNotFoundException("No path exists between the two points");
+        }
+        Route route = new Route("Found Path");
+        route.getPoints().ensureCapacity(path.length);
+        for (int id : path) {
+            route.addPoint(graph.point(id));
+        }
+        return route;
+    }
+
+    /**
+     * Gets what the most recent update did; before any update, what the initial plan did.
+     *
+     * @return the last repair
+     */
+    public PathRepair getLastRepair() {
+        return lastRepair;
+    }
+
+    /**
+     * Stops listening to the map. Changes made afterwards are not repaired.
+     *
+     * Postcondition: the map no longer notifies this session
+     */
+    @Override
+    public void close() {
+        if (map != null) {
+            map.removeListener(listener);
+        }
+    }
+
+    /**
+     * Records a rectangle of changed cells for the next repair; called by the map.
+     */
+    private void recordChange(Map changedMap, int fromX, int fromY, int toX, int toY) {
+        synchronized (pendingChanges) {
+            pendingChanges.add(new int[] {fromX, fromY, toX, toY});
+        }
+    }
+
+    /**
+     * Runs the search after vertices have been updated and records the outcome.
+     */
+    private PathRepair finishUpdate(int changed, boolean nearPath) {
+        computeShortestPath();
+        int[] previous = path;
+        path = extractPath();
+        lastRepair = new PathRepair(changed, touched, nearPath, !Arrays.equals(previous, path));
+        checkInvariant();
+        return lastRepair;
+    }
+
+    /**
+     * Expands points in key order until the start's distance is settled and consistent.
+     */
+    private void computeShortestPath() {
+        while (heapSize > 0 && (topBefore(startId) || rhs[startId] != g[startId])) {
+            int u = heap[0];
+            touched++;
+            long oldPrimary = primaryKey[u];
+            long oldSecondary = secondaryKey[u];
+            long newPrimary = primaryKeyOf(u);
+            long newSecondary = Math.min(g[u], rhs[u]);
+            if (oldPrimary < newPrimary || (oldPrimary == newPrimary && oldSecondary < newSecondary)) {
+                // The start has moved since u was queued; requeue it with its current key
+                heapRemove(u);
+                heapInsert(u);
+            } else if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                heapRemove(u);
+                updateNeighbors(u);
+            } else {
+                g[u] = INFINITE;
+                updateVertex(u);
+                updateNeighbors(u);
+            }
+        }
+    }
+
+    /**
+     * Updates every neighbor of a point. updateVertex reads neighbors into its own array, so the
+     * list read here survives the calls.
+     */
+    private void updateNeighbors(int id) {
+        int neighborCount = graph.neighbors(id, expandNeighbors);
+        for (int i = 0; i < neighborCount; i++) {
+            if (expandNeighbors[i] < capacity) {
+                updateVertex(expandNeighbors[i]);
+            }
+        }
+    }
+
+    /**
+     * Recomputes a point's lookahead distance from its neighbors and queues it if inconsistent.
+     */
+    private void updateVertex(int id) {
+        touched++;
+        if (id != goalId) {
+            int best = INFINITE;
+            if (!isBlocked(id)) {
+                int neighborCount = graph.neighbors(id, updateNeighbors);
+                for (int i = 0; i < neighborCount; i++) {
+                    int neighbor = updateNeighbors[i];
+                    if (neighbor < capacity && !isBlocked(neighbor) && g[neighbor] < INFINITE) {
+                        best = Math.min(best, g[neighbor] + 1);
+                    }
+                }
+            }
+            rhs[id] = best;
+        }
+        if (heapPosition[id] >= 0) {
+            heapRemove(id);
+        }
+        if (g[id] != rhs[id]) {
+            heapInsert(id);
+        }
+    }
+
+    /**
+     * Follows the neighbor with the smallest distance from the start to the goal. Once the search
+     * has settled the start, that neighbor is always one step closer, so the route has exactly
+     * g[startId] steps.
+     *
+     * @return the ids along the route, or null if the start cannot reach the goal
+     */
+    private int[] extractPath() {
+        if (isBlocked(startId) || isBlocked(goalId)) {
+            return null;
+        }
+        if (startId == goalId) {
+            return new int[] {startId};
+        }
+        if (g[startId] >= INFINITE) {
+            return null;
+        }
+        int[] ids = new int[g[startId] + 1];
+        ids[0] = startId;
+        for (int i = 1; i < ids.length; i++) {
+            int next = -1;
+            int neighborCount = graph.neighbors(ids[i - 1], expandNeighbors);
+            for (int j = 0; j < neighborCount; j++) {
+                int neighbor = expandNeighbors[j];
+                if (neighbor < capacity && !isBlocked(neighbor) && (next < 0 || g[neighbor] < g[next])) {
+                    next = neighbor;
+                }
+            }
+            Preconditions.checkState(next >= 0 && g[next] == g[ids[i - 1]] - 1, "Route distances are inconsistent");
+            ids[i] = next;
+        }
+        return ids;
+    }
+
+    private boolean isOnOrBeside(int id, int[] sortedPath) {
+        if (Arrays.binarySearch(sortedPath, id) >= 0) {
+            return true;
+        }
+        int neighborCount = graph.neighbors(id, updateNeighbors);
+        for (int i = 0; i < neighborCount; i++) {
+            if (Arrays.binarySearch(sortedPath, updateNeighbors[i]) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBlocked(int id) {
+        return (blocked[id >>> 6] & (1L << id)) != 0;
+    }
+
+    private long primaryKeyOf(int id) {
+        return (long) Math.min(g[id], rhs[id]) + PathSearches.manhattan(graph, startId, id) + keyModifier;
+    }
+
+    /**
+     * Checks whether the smallest queued key is below the start's key.
+     */
+    private boolean topBefore(int id) {
+        int top = heap[0];
+        long primary = primaryKeyOf(id);
+        long secondary = Math.min(g[id], rhs[id]);
+        return primaryKey[top] < primary || (primaryKey[top] == primary && secondaryKey[top] < secondary);
+    }
+
+    private void heapInsert(int id) {
+        primaryKey[id] = primaryKeyOf(id);
+        secondaryKey[id] = Math.min(g[id], rhs[id]);
+        heap[heapSize] = id;
+        heapPosition[id] = heapSize;
+        heapSize++;
+        siftUp(heapPosition[id]);
+    }
+
+    private void heapRemove(int id) {
+        int position = heapPosition[id];
+        heapPosition[id] = -1;
+        heapSize--;
+        if (position == heapSize) {
+            return;
+        }
+        int last = heap[heapSize];
+        heap[position] = last;
+        heapPosition[last] = position;
+        siftUp(position);
+        siftDown(heapPosition[last]);
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int above = heap[parentPosition];
+            if (!before(id, above)) {
+                break;
+            }
+            heap[position] = above;
+            heapPosition[above] = position;
+            position = parentPosition;
+        }
+        heap[position] = id;
+        heapPosition[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            int below = heap[child];
+            if (!before(below, id)) {
+                break;
+            }
+            heap[position] = below;
+            heapPosition[below] = position;
+            position = child;
+        }
+        heap[position] = id;
+        heapPosition[id] = position;
+    }
+
+    private boolean before(int a, int b) {
+        if (primaryKey[a] != primaryKey[b]) {
+            return primaryKey[a] < primaryKey[b];
+        }
+        return secondaryKey[a] < secondaryKey[b];
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(g.length == capacity && rhs.length == capacity
+                && heapPosition.length == capacity, "Search arrays must cover every id");
+        Preconditions.checkState(heapSize >= 0 && heapSize <= capacity, "Heap size out of range");
+        Preconditions.checkState(rhs[goalId] == 0, "The goal must be at distance zero");
+    }
+}
@@ -0,0 +1,62 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * How strongly a weighted route search prefers popular points and keeps away from obstacles. Each
+ * step costs 1, plus popularityWeight for every ride short of POPULAR_RIDES that has passed
+ * through the point stepped to, plus clearanceWeight for every step short of clearance between
+ * that point and the nearest obstacle. All weights zero gives the shortest route.
+ *
+ * @param popularityWeight the extra cost per missing ride, in [0, MAX_WEIGHT]
+ * @param clearance how many steps from an obstacle a point must be to cost nothing extra, in [0, MAX_CLEARANCE]
+ * @param clearanceWeight the extra cost per step closer to an obstacle than clearance, in [0, MAX_WEIGHT]
+ */
+public record RoutePreferences(int popularityWeight, int clearance, int clearanceWeight) {
+    /** The number of rides through a point beyond which it is no more popular. */
+    public static final int POPULAR_RIDES = 4;
+    /** The largest weight allowed, which keeps step costs small integers. */
+    public static final int MAX_WEIGHT = 64;
+    /** The largest clearance allowed. */
+    public static final int MAX_CLEARANCE = 16;
+
+    /**
+     * Constructs route preferences.
+     *
+     * Precondition: each weight is in [0, MAX_WEIGHT]; clearance is in [0, MAX_CLEARANCE]
+     * Postcondition: the preferences have the given weights
+     */
+    public RoutePreferences {
+        Preconditions.checkArgument(popularityWeight >= 0 && popularityWeight <= MAX_WEIGHT,
+                "Popularity weight must be between 0 and " + MAX_WEIGHT);
+        Preconditions.checkArgument(clearance >= 0 && clearance <= MAX_CLEARANCE,
+                "Clearance must be between 0 and " + MAX_CLEARANCE);
+        Preconditions.checkArgument(clearanceWeight >= 0 && clearanceWeight <= MAX_WEIGHT,
+                "Clearance weight must be between 0 and " + MAX_WEIGHT);
+    }
+
+    /**
+     * Gets preferences that favor well-ridden points and stay a few steps clear of obstacles,
+     * while still avoiding long detours.
+     *
+     * @return the default preferences
+     */
+    public static RoutePreferences balanced() {
+        return new RoutePreferences(2, 3, 3);
+    }
+
+    /**
+     * Gets the cost of stepping to a point.
+     *
+     * Precondition: rides >= 0; obstacleDistance >= 0
+     *
+     * @param rides the number of activities that passed through the point
+     * @param obstacleDistance the number of steps from the point to the nearest obstacle
+     * @return the step cost, at least 1
+     */
+    public int stepCost(int rides, int obstacleDistance) {
+        int missingRides = POPULAR_RIDES - Math.min(rides, POPULAR_RIDES);
+        int missingClearance = clearance - Math.min(obstacleDistance, clearance);
+        return 1 + popularityWeight * missingRides + clearanceWeight * missingClearance;
+    }
+}
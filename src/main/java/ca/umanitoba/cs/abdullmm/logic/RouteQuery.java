@@ -0,0 +1,17 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import com.google.common.base.Preconditions;
+
+/**
+ * A single start/end pair in a batch of route queries.
+ *
+ * @param start the starting point
+ * @param end the ending point
+ */
+public record RouteQuery(GridPoint start, GridPoint end) {
+    public RouteQuery {
+        Preconditions.checkNotNull(start, "Start point cannot be null");
+        Preconditions.checkNotNull(end, "End point cannot be null");
+    }
+}
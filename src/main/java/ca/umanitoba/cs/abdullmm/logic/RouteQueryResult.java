@@ -0,0 +1,24 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.Route;
+
+/**
+ * The outcome of one query in a batch: either the route found or the reason none was.
+ *
+ * @param query the query answered
+ * @param route the route found, or null if the search failed
+ * @param nodesExpanded the number of nodes the search expanded
+ * @param failure why no route was found, or null if the search succeeded
+ */
+public record RouteQueryResult(RouteQuery query, Route route, int nodesExpanded, PathNotFoundException failure) {
+
+    /**
+     * Checks whether a route was found.
+     *
+     * @return true if route is available, false if failure explains why not
+     */
+    public boolean isFound() {
+        return route != null;
+    }
+}
@@ -0,0 +1,100 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import com.google.common.base.Preconditions;
+
+import java.time.Duration;
+
+/**
+ * Limits on how much work a bounded path search may do. A search that runs past its timeout ends
+ * as SearchOutcome.TIMED_OUT, and one that expands more than maxExpansions points ends as
+ * SearchOutcome.PARTIAL. The timeout runs from when the search is requested, so time spent
+ * waiting for a thread counts against it.
+ *
+ * @param timeout the longest the search may take, or null for no time limit
+ * @param maxExpansions the most points the search may expand, Long.MAX_VALUE for no limit
+ */
+public record SearchBudget(Duration timeout, long maxExpansions) {
+    // Deadlines are compared as differences of System.nanoTime values, so they must stay well
+    // inside the long range
+    private static final long LONGEST_TIMEOUT_NANOS = Long.MAX_VALUE / 4;
+
+    /**
+     * Constructs a budget.
+     *
+     * Precondition: timeout is null or not negative; maxExpansions >= 0
+     * Postcondition: the budget has the given limits
+     */
+    public SearchBudget {
+        Preconditions.checkArgument(timeout == null || !timeout.isNegative(), "Timeout cannot be negative");
+        Preconditions.checkArgument(maxExpansions >= 0, "Expansion limit cannot be negative");
+    }
+
+    /**
+     * Gets a budget with no limits, for searches that should only stop when cancelled. It cannot
+     * be used with PathFinder.searchBoundedAsync, which needs a bounded budget.
+     *
+     * @return the unlimited budget
+     */
+    public static SearchBudget unlimited() {
+        return new SearchBudget(null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Gets a budget limited only by time.
+     *
+     * Precondition: timeout is not null or negative
+     *
+     * @param timeout the longest the search may take
+     * @return the budget
+     */
+    public static SearchBudget ofTimeout(Duration timeout) {
+        Preconditions.checkNotNull(timeout, "Timeout cannot be null");
+        return new SearchBudget(timeout, Long.MAX_VALUE);
+    }
+
+    /**
+     * Gets a budget limited only by the number of points expanded.
+     *
+     * Precondition: maxExpansions >= 0
+     *
+     * @param maxExpansions the most points the search may expand
+     * @return the budget
+     */
+    public static SearchBudget ofExpansions(long maxExpansions) {
+        return new SearchBudget(null, maxExpansions);
+    }
+
+    /**
+     * Checks whether the budget has a time limit.
+     *
+     * @return true if timeout is not null
+     */
+    public boolean hasTimeout() {
+        return timeout != null;
+    }
+
+    /**
+     * Checks whether the budget ends a search on its own, without a cancellation.
+     *
+     * @return true if the budget has a timeout or an expansion limit
+     */
+    public boolean isBounded() {
+        return hasTimeout() || maxExpansions != Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the System.nanoTime value at which a search requested at the given time must stop.
+     *
+     * Precondition: hasTimeout()
+     *
+     * @param requestedAt the System.nanoTime value when the search was requested
+     * @return the deadline
+     */
+    long deadlineFrom(long requestedAt) {
+        Preconditions.checkState(hasTimeout(), "Budget has no timeout");
+        long nanos = timeout.compareTo(Duration.ofNanos(LONGEST_TIMEOUT_NANOS)) < 0
+                ? timeout.toNanos()
+                : LONGEST_TIMEOUT_NANOS;
+        return requestedAt + nanos;
+    }
+}
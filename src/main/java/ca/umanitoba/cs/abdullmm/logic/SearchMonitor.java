@@ -0,0 +1,202 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+import ca.umanitoba.cs.abdullmm.model.Route;
+import com.google.common.base.Preconditions;
+
+/**
+ * Enforces a SearchBudget and CancellationToken on whatever search runs on the current thread.
+ * The strategies themselves know nothing of budgets: SearchState reports every point it takes off
+ * a frontier to the thread's monitor, which counts them and throws Aborted once the expansion
+ * budget is used up, the deadline has passed or the token is cancelled. The clock and the token
+ * are only read every CHECK_INTERVAL expansions, so an unbounded search pays one counter
+ * increment per expansion.
+ *
+ * While counting, the monitor remembers which point expanded by the primary search state lies
+ * nearest the target, so an aborted search can still return the path to it.
+ *
+ * Threads with no monitor installed see INACTIVE, which never aborts.
+ *
+ * Class Invariants:
+ * - bestId is -1 or a point expanded by bestState
+ * - expanded >= 0
+ */
+final class SearchMonitor {
+    private static final int CHECK_INTERVAL = 64;
+    private static final SearchMonitor INACTIVE = new SearchMonitor(null, null, null, 0, null);
+    private static final ThreadLocal<SearchMonitor> CURRENT = ThreadLocal.withInitial(() -> INACTIVE);
+
+    private PointGraph graph;
+    private GridPoint target;
+    private long maxExpansions;
+    private boolean timed;
+    private long deadline;
+    private CancellationToken token;
+    private long expanded;
+    private SearchState bestState;
+    private int bestId;
+    private long bestDistance;
+
+    private SearchMonitor(PointGraph graph, GridPoint target, SearchBudget budget, long deadline,
+                          CancellationToken token) {
+        this.graph = graph;
+        this.target = target;
+        this.maxExpansions = budget == null ? Long.MAX_VALUE : budget.maxExpansions();
+        this.timed = budget != null && budget.hasTimeout();
+        this.deadline = deadline;
+        this.token = token;
+        this.expanded = 0;
+        this.bestId = -1;
+        this.bestDistance = Long.MAX_VALUE;
+    }
+
+    /**
+     * Installs a monitor for the searches the current thread runs until uninstall is called.
+     *
+     * Precondition: graph, target, budget and token are not null
+     * Postcondition: current() returns the new monitor on this thread
+     *
+     * @param graph the graph the search runs over
+     * @param target the point the search is looking for
+     * @param budget the limits to enforce
+     * @param deadline the System.nanoTime deadline, ignored if the budget has no timeout
+     * @param token the token whose cancellation stops the search
+     * @return the installed monitor
+     */
+    static SearchMonitor install(PointGraph graph, GridPoint target, SearchBudget budget, long deadline,
+                                 CancellationToken token) {
+        Preconditions.checkNotNull(graph, "Graph cannot be null");
+        Preconditions.checkNotNull(target, "Target point cannot be null");
+        Preconditions.checkNotNull(budget, "Search budget cannot be null");
+        Preconditions.checkNotNull(token, "Cancellation token cannot be null");
+        SearchMonitor monitor = new SearchMonitor(graph, target, budget, deadline, token);
+        CURRENT.set(monitor);
+        return monitor;
+    }
+
+    /**
+     * Gets the monitor for the current thread.
+     *
+     * @return the installed monitor, or one that never aborts
+     */
+    static SearchMonitor current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Removes this monitor from the current thread.
+     *
+     * Postcondition: current() returns the inactive monitor on this thread
+     */
+    void uninstall() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Records the expansion of a point by a search state, tracking the point if it is the nearest
+     * to the target so far.
+     *
+     * @param state the state the point was taken from
+     * @param id the point id
+     * @throws Aborted if the search must stop
+     */
+    void expand(SearchState state, int id) {
+        if (this == INACTIVE) {
+            return;
+        }
+        tick();
+        if (state.isPrimary()) {
+            long distance = Math.abs((long) graph.x(id) - target.x())
+                    + Math.abs((long) graph.y(id) - target.y());
+            if (distance < bestDistance) {
+                bestState = state;
+                bestId = id;
+                bestDistance = distance;
+            }
+        }
+        checkInvariant();
+    }
+
+    /**
+     * Records one unit of search work that has no point id in the monitored graph.
+     *
+     * @throws Aborted if the search must stop
+     */
+    void tick() {
+        if (this == INACTIVE) {
+            return;
+        }
+        expanded++;
+        if (expanded > maxExpansions) {
+            throw new Aborted(SearchOutcome.PARTIAL);
+        }
+        if (expanded % CHECK_INTERVAL == 0) {
+            checkStop();
+        }
+    }
+
+    /**
+     * Fails if the deadline has passed or the token is cancelled, regardless of the expansion count.
+     *
+     * @throws Aborted if the search must stop
+     */
+    void checkStop() {
+        if (this == INACTIVE) {
+            return;
+        }
+        if (token.isCancelled()) {
+            throw new Aborted(SearchOutcome.CANCELLED);
+        }
+        if (timed && System.nanoTime() - deadline >= 0) {
+            throw new Aborted(SearchOutcome.TIMED_OUT);
+        }
+    }
+
+    /**
+     * Gets the number of points expanded under this monitor.
+     *
+     * @return the expansion count, at most maxExpansions
+     */
+    int expanded() {
+        return (int) Math.min(Math.min(expanded, maxExpansions), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the path from the search root to the expanded point nearest the target.
+     *
+     * Precondition: the search has stopped
+     *
+     * @return the path, or null if no point was expanded
+     */
+    Route partialRoute() {
+        return bestId < 0 ? null : bestState.reconstructJumpPath(graph, bestId);
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(bestId < 0 || bestState != null, "Best point must have a state");
+        Preconditions.checkState(expanded >= 0, "Expansion count cannot be negative");
+    }
+
+    /**
+     * Unwinds a search that has to stop. It carries no stack trace, since it is always caught by
+     * the code that installed the monitor.
+     */
+    static final class Aborted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final SearchOutcome outcome;
+
+        Aborted(SearchOutcome outcome) {
+            super("Search stopped: " + outcome, null, false, false);
+            this.outcome = outcome;
+        }
+
+        SearchOutcome outcome() {
+            return outcome;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+/**
+ * How a bounded path search ended.
+ */
+public enum SearchOutcome {
+    /** The search finished and found a path from start to end. */
+    COMPLETE,
+    /** The search finished and no path exists, or an endpoint cannot be used. */
+    NOT_FOUND,
+    /** The search used up its expansion budget before reaching the end. */
+    PARTIAL,
+    /** The search ran past its deadline before reaching the end. */
+    TIMED_OUT,
+    /** The search was cancelled through its token before reaching the end. */
+    CANCELLED
+}
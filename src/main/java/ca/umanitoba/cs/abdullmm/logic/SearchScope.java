@@ -0,0 +1,11 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+/**
+ * Which users' routes a path query may travel along.
+ */
+public enum SearchScope {
+    /** Only the querying user's own routes. */
+    USER_ONLY,
+    /** The querying user's routes plus the routes of every user they follow. */
+    FEED
+}
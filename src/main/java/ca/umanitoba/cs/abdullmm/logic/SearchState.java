@@ -0,0 +1,424 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+import ca.umanitoba.cs.abdullmm.model.Route;
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Per-search bookkeeping for the PathSearchStrategy implementations, held entirely in primitive
+ * arrays indexed by PointGraph ids. The graph already hashes each packed (x, y) key to an id,
+ * so discovered flags, parents and costs are plain array reads with no boxing.
+ *
+ * Each thread reuses its own states across searches. A point counts as discovered only when its
+ * stamp equals the current generation, so starting a new search is O(1) and needs no clearing.
+ * Arrays only grow, so once a thread has searched a graph of a given capacity, further searches on
+ * it allocate nothing but the returned Route.
+ *
+ * The state offers three frontiers over the same storage, of which a search uses one:
+ * a stack, a FIFO queue, and a binary min-heap keyed by (priority, then larger cost).
+ *
+ * Every point taken off a frontier is reported to the thread's SearchMonitor, captured when the
+ * state is reset, which is how budgets and cancellation reach every strategy.
+ *
+ * Class Invariants:
+ * - stamp, parent, cost, priority, heapPosition and frontier all have the same length
+ * - 0 <= frontierHead <= frontierTail <= frontier.length
+ */
+final class SearchState {
+    private static final ThreadLocal<SearchState> PRIMARY = ThreadLocal.withInitial(() -> new SearchState(true));
+    private static final ThreadLocal<SearchState> SECONDARY = ThreadLocal.withInitial(() -> new SearchState(false));
+
+    private boolean primary;
+    private SearchMonitor monitor;
+
+    private int[] stamp;
+    private int[] parent;
+    private int[] cost;
+    private int[] priority;
+    private int[] heapPosition;
+    private int[] frontier;
+    private int frontierHead;
+    private int frontierTail;
+    private int generation;
+
+    private SearchState(boolean primary) {
+        this.primary = primary;
+        this.monitor = SearchMonitor.current();
+        ensureCapacity(16);
+    }
+
+    /**
+     * Gets this thread's search state, reset for a new search.
+     *
+     * Precondition: capacity >= 0
+     * Postcondition: no point is discovered and the frontier is empty
+     *
+     * @param capacity the id capacity of the graph to be searched
+     * @return the reset state
+     */
+    static SearchState acquire(int capacity) {
+        return PRIMARY.get().reset(capacity);
+    }
+
+    /**
+     * Gets this thread's second search state, for searches such as bidirectional search that keep
+     * two independent sets of bookkeeping at once.
+     *
+     * Precondition: capacity >= 0
+     * Postcondition: no point is discovered and the frontier is empty
+     *
+     * @param capacity the id capacity of the graph to be searched
+     * @return the reset state, distinct from the one returned by acquire
+     */
+    static SearchState acquireSecondary(int capacity) {
+        return SECONDARY.get().reset(capacity);
+    }
+
+    private SearchState reset(int capacity) {
+        Preconditions.checkArgument(capacity >= 0, "Capacity cannot be negative");
+        ensureCapacity(capacity);
+        generation++;
+        if (generation == 0) {
+            // Stamps wrapped around; clear them so stale entries cannot match
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        frontierHead = 0;
+        frontierTail = 0;
+        monitor = SearchMonitor.current();
+        return this;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (stamp != null && stamp.length >= capacity) {
+            return;
+        }
+        int length = Math.max(capacity, 16);
+        stamp = new int[length];
+        parent = new int[length];
+        cost = new int[length];
+        priority = new int[length];
+        heapPosition = new int[length];
+        frontier = new int[length];
+        generation = 0;
+        checkInvariant();
+    }
+
+    /**
+     * Checks whether this is a thread's primary state, the one returned by acquire.
+     *
+     * @return true for the primary state, false for the secondary one
+     */
+    boolean isPrimary() {
+        return primary;
+    }
+
+    /**
+     * Checks whether a point has been discovered in this search.
+     *
+     * @param id the point id
+     * @return true if discover has been called for the point since the last reset
+     */
+    boolean isDiscovered(int id) {
+        return stamp[id] == generation;
+    }
+
+    /**
+     * Records a point as discovered with its parent and path cost, or updates them if the point
+     * was already discovered through a costlier path.
+     *
+     * @param id the point id
+     * @param parentId the id of the point it was reached from, or -1 for a search root
+     * @param pathCost the cost from the search root: its number of steps, or its total EdgeCost
+     */
+    void discover(int id, int parentId, int pathCost) {
+        if (stamp[id] != generation) {
+            stamp[id] = generation;
+            heapPosition[id] = -1;
+        }
+        parent[id] = parentId;
+        cost[id] = pathCost;
+    }
+
+    int parent(int id) {
+        return parent[id];
+    }
+
+    int cost(int id) {
+        return cost[id];
+    }
+
+    /**
+     * Pushes a point onto the frontier stack.
+     *
+     * @param id the point id
+     */
+    void push(int id) {
+        frontier[frontierTail++] = id;
+    }
+
+    /**
+     * Pops the most recently pushed point from the frontier stack.
+     *
+     * @return the point id
+     */
+    int pop() {
+        int id = frontier[--frontierTail];
+        monitor.expand(this, id);
+        return id;
+    }
+
+    /**
+     * Appends a point to the back of the frontier queue. Each point may be enqueued at most
+     * once per search, which is what bounds the queue by the capacity.
+     *
+     * @param id the point id
+     */
+    void enqueue(int id) {
+        frontier[frontierTail++] = id;
+    }
+
+    /**
+     * Removes the point at the front of the frontier queue.
+     *
+     * @return the point id
+     */
+    int dequeue() {
+        int id = frontier[frontierHead++];
+        monitor.expand(this, id);
+        return id;
+    }
+
+    /**
+     * Gets the number of points waiting on the stack or queue.
+     *
+     * @return the frontier size
+     */
+    int frontierSize() {
+        return frontierTail - frontierHead;
+    }
+
+    /**
+     * Inserts a discovered point into the heap, or moves it up if it is already there.
+     *
+     * Precondition: the point has been discovered; its priority is no greater than before
+     *
+     * @param id the point id
+     * @param key the heap priority (typically cost plus heuristic)
+     */
+    void offer(int id, int key) {
+        priority[id] = key;
+        int position = heapPosition[id];
+        if (position < 0) {
+            position = frontierTail++;
+            frontier[position] = id;
+            heapPosition[id] = position;
+        }
+        siftUp(position);
+    }
+
+    /**
+     * Removes the point with the smallest priority from the heap.
+     *
+     * @return the point id
+     */
+    int poll() {
+        int top = frontier[0];
+        heapPosition[top] = -1;
+        int last = frontier[--frontierTail];
+        if (frontierTail > 0) {
+            frontier[0] = last;
+            heapPosition[last] = 0;
+            siftDown(0);
+        }
+        monitor.expand(this, top);
+        return top;
+    }
+
+    /**
+     * Gets the smallest priority in the heap without removing it.
+     *
+     * Precondition: the heap is not empty
+     *
+     * @return the smallest priority
+     */
+    int peekPriority() {
+        return priority[frontier[0]];
+    }
+
+    /**
+     * Builds the route from the search root to a point by following parent links. The chain is
+     * measured first so the route's backing list is sized once and filled front to back.
+     *
+     * Precondition: the point has been discovered
+     * Postcondition: returns a new Route from the root to the point
+     *
+     * @param points the graph the search ran over
+     * @param endId the id of the last point on the route
+     * @return the route
+     */
+    Route reconstructPath(PointGraph points, int endId) {
+        int length = 0;
+        for (int id = endId; id >= 0; id = parent[id]) {
+            length++;
+        }
+
+        Route path = new Route("Found Path");
+        path.getPoints().ensureCapacity(length);
+        appendChain(points, endId, length, path);
+        return path;
+    }
+
+    /**
+     * Builds the route found by a bidirectional search: this state's chain from its root to the
+     * meeting point, followed by the other state's chain from the meeting point to its root.
+     *
+     * Precondition: both states have discovered the meeting point
+     * Postcondition: returns a new Route from this state's root to the other state's root
+     *
+     * @param points the graph both searches ran over
+     * @param backward the state of the search grown from the end
+     * @param meetId the id of the point where the searches met
+     * @return the route
+     */
+    Route reconstructPath(PointGraph points, SearchState backward, int meetId) {
+        int forwardLength = 0;
+        for (int id = meetId; id >= 0; id = parent[id]) {
+            forwardLength++;
+        }
+        int backwardLength = 0;
+        for (int id = backward.parent[meetId]; id >= 0; id = backward.parent[id]) {
+            backwardLength++;
+        }
+
+        Route path = new Route("Found Path");
+        path.getPoints().ensureCapacity(forwardLength + backwardLength);
+        appendChain(points, meetId, forwardLength, path);
+        for (int id = backward.parent[meetId]; id >= 0; id = backward.parent[id]) {
+            path.addPoint(points.point(id));
+        }
+        return path;
+    }
+
+    /**
+     * Builds the route from the search root to a point by following parent links that may join
+     * points in a straight line rather than neighbors, as jump point search records them, filling
+     * in the points of each straight segment. Chains of neighbors come out as reconstructPath
+     * would build them.
+     *
+     * Precondition: the point has been discovered; each parent link is horizontal or vertical
+     * Postcondition: returns a new Route of adjacent points from the root to the point
+     *
+     * @param points the graph the search ran over
+     * @param endId the id of the last point on the route
+     * @return the route
+     */
+    Route reconstructJumpPath(PointGraph points, int endId) {
+        int jumps = 0;
+        int length = 1;
+        for (int id = endId; parent[id] >= 0; id = parent[id]) {
+            jumps++;
+            length += PathSearches.manhattan(points, id, parent[id]);
+        }
+        int index = jumps + 1;
+        for (int id = endId; id >= 0; id = parent[id]) {
+            frontier[--index] = id;
+        }
+
+        Route path = new Route("Found Path");
+        path.getPoints().ensureCapacity(length);
+        path.addPoint(points.point(frontier[0]));
+        for (int i = 1; i <= jumps; i++) {
+            int x = points.x(frontier[i - 1]);
+            int y = points.y(frontier[i - 1]);
+            int toX = points.x(frontier[i]);
+            int toY = points.y(frontier[i]);
+            int stepX = Integer.signum(toX - x);
+            int stepY = Integer.signum(toY - y);
+            while (x != toX || y != toY) {
+                x += stepX;
+                y += stepY;
+                path.addPoint(new GridPoint(x, y));
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Appends the parent chain ending at endId to a route in root-to-end order, using the
+     * frontier array (no longer needed once the search is over) as scratch space.
+     */
+    private void appendChain(PointGraph points, int endId, int length, Route path) {
+        int index = length;
+        for (int id = endId; id >= 0; id = parent[id]) {
+            frontier[--index] = id;
+        }
+        for (int i = 0; i < length; i++) {
+            path.addPoint(points.point(frontier[i]));
+        }
+    }
+
+    private void siftUp(int position) {
+        int id = frontier[position];
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int above = frontier[parentPosition];
+            if (!before(id, above)) {
+                break;
+            }
+            frontier[position] = above;
+            heapPosition[above] = position;
+            position = parentPosition;
+        }
+        frontier[position] = id;
+        heapPosition[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = frontier[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= frontierTail) {
+                break;
+            }
+            if (child + 1 < frontierTail && before(frontier[child + 1], frontier[child])) {
+                child++;
+            }
+            int below = frontier[child];
+            if (!before(below, id)) {
+                break;
+            }
+            frontier[position] = below;
+            heapPosition[below] = position;
+            position = child;
+        }
+        frontier[position] = id;
+        heapPosition[id] = position;
+    }
+
+    /**
+     * Heap order: smaller priority first; on ties, larger cost first, which prefers points
+     * closer to the target.
+     */
+    private boolean before(int a, int b) {
+        if (priority[a] != priority[b]) {
+            return priority[a] < priority[b];
+        }
+        return cost[a] > cost[b];
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        int length = stamp.length;
+        Preconditions.checkState(parent.length == length && cost.length == length
+                && priority.length == length && heapPosition.length == length
+                && frontier.length == length, "Search arrays must have matching lengths");
+        Preconditions.checkState(0 <= frontierHead && frontierHead <= frontierTail
+                && frontierTail <= frontier.length, "Frontier bounds out of range");
+    }
+}
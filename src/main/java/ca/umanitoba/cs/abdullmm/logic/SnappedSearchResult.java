@@ -0,0 +1,25 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+
+/**
+ * The result of a route search whose endpoints were moved onto the nearest route points.
+ *
+ * @param start the route point the requested start was snapped to
+ * @param startSnapDistance the Manhattan distance from the requested start to start
+ * @param end the route point the requested end was snapped to
+ * @param endSnapDistance the Manhattan distance from the requested end to end
+ * @param result the path found between the snapped points and the search statistics
+ */
+public record SnappedSearchResult(GridPoint start, int startSnapDistance, GridPoint end, int endSnapDistance,
+                                  PathSearchResult result) {
+
+    /**
+     * Checks whether either endpoint had to be moved.
+     *
+     * @return true if start or end was off the route network
+     */
+    public boolean isSnapped() {
+        return startSnapDistance > 0 || endSnapDistance > 0;
+    }
+}
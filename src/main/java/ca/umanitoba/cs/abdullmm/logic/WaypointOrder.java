@@ -0,0 +1,176 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Chooses the order in which to visit waypoints, given the shortest-path distance between every
+ * pair. The first waypoint is always visited first; a loop also returns to it at the end.
+ *
+ * Up to EXACT_LIMIT further waypoints, the Held-Karp dynamic program finds the shortest order
+ * exactly in O(2^k * k^2) time. Beyond that, the order is built by always moving to the nearest
+ * unvisited waypoint and then improved with 2-opt, reversing any stretch of the order that makes
+ * it shorter, until no reversal helps.
+ */
+final class WaypointOrder {
+    static final int EXACT_LIMIT = 12;
+
+    private WaypointOrder() {
+    }
+
+    /**
+     * Chooses a visiting order.
+     *
+     * Precondition: distances is square, symmetric and non-negative, with at least one row
+     * Postcondition: returns a permutation of the waypoint indexes starting with 0
+     *
+     * @param distances the distance between each pair of waypoints
+     * @param loop whether the ride returns to the first waypoint after the last
+     * @return the waypoint indexes in visiting order
+     */
+    static int[] plan(int[][] distances, boolean loop) {
+        Preconditions.checkNotNull(distances, "Distances cannot be null");
+        Preconditions.checkArgument(distances.length > 0, "There must be at least one waypoint");
+        return distances.length - 1 <= EXACT_LIMIT
+                ? heldKarp(distances, loop)
+                : twoOpt(nearestNeighbor(distances), distances, loop);
+    }
+
+    /**
+     * Gets the total distance of an order, including the return to the start for a loop.
+     *
+     * @return the length of the ride through the waypoints in that order
+     */
+    static long length(int[] order, int[][] distances, boolean loop) {
+        long total = 0;
+        for (int i = 1; i < order.length; i++) {
+            total += distances[order[i - 1]][order[i]];
+        }
+        if (loop) {
+            total += distances[order[order.length - 1]][order[0]];
+        }
+        return total;
+    }
+
+    /**
+     * Exact order by dynamic programming over subsets: best[set][last] is the shortest ride that
+     * starts at waypoint 0, visits exactly the waypoints in set and ends at last.
+     */
+    private static int[] heldKarp(int[][] distances, boolean loop) {
+        int others = distances.length - 1;
+        if (others == 0) {
+            return new int[] {0};
+        }
+        int full = (1 << others) - 1;
+        long[][] best = new long[full + 1][others];
+        int[][] previous = new int[full + 1][others];
+        for (long[] row : best) {
+            Arrays.fill(row, Long.MAX_VALUE);
+        }
+        for (int last = 0; last < others; last++) {
+            best[1 << last][last] = distances[0][last + 1];
+            previous[1 << last][last] = -1;
+        }
+
+        for (int set = 1; set <= full; set++) {
+            for (int last = 0; last < others; last++) {
+                long cost = best[set][last];
+                if (cost == Long.MAX_VALUE) {
+                    continue;
+                }
+                for (int next = 0; next < others; next++) {
+                    if ((set & (1 << next)) != 0) {
+                        continue;
+                    }
+                    int grown = set | (1 << next);
+                    long candidate = cost + distances[last + 1][next + 1];
+                    if (candidate < best[grown][next]) {
+                        best[grown][next] = candidate;
+                        previous[grown][next] = last;
+                    }
+                }
+            }
+        }
+
+        int last = 0;
+        long bestTotal = Long.MAX_VALUE;
+        for (int candidate = 0; candidate < others; candidate++) {
+            long total = best[full][candidate] + (loop ? distances[candidate + 1][0] : 0);
+            if (total < bestTotal) {
+                bestTotal = total;
+                last = candidate;
+            }
+        }
+
+        int[] order = new int[others + 1];
+        int set = full;
+        for (int position = others; position >= 1; position--) {
+            order[position] = last + 1;
+            int before = previous[set][last];
+            set &= ~(1 << last);
+            last = before;
+        }
+        return order;
+    }
+
+    private static int[] nearestNeighbor(int[][] distances) {
+        int count = distances.length;
+        int[] order = new int[count];
+        boolean[] visited = new boolean[count];
+        visited[0] = true;
+        for (int position = 1; position < count; position++) {
+            int current = order[position - 1];
+            int nearest = -1;
+            for (int candidate = 0; candidate < count; candidate++) {
+                if (!visited[candidate]
+                        && (nearest < 0 || distances[current][candidate] < distances[current][nearest])) {
+                    nearest = candidate;
+                }
+            }
+            order[position] = nearest;
+            visited[nearest] = true;
+        }
+        return order;
+    }
+
+    /**
+     * Reverses stretches order[i..j] (never moving the first waypoint) while doing so shortens
+     * the ride.
+     */
+    private static int[] twoOpt(int[] order, int[][] distances, boolean loop) {
+        int count = order.length;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 1; i < count - 1; i++) {
+                for (int j = i + 1; j < count; j++) {
+                    int before = order[i - 1];
+                    int first = order[i];
+                    int last = order[j];
+                    boolean hasAfter = j + 1 < count || loop;
+                    int after = j + 1 < count ? order[j + 1] : order[0];
+                    long change = (long) distances[before][last] - distances[before][first];
+                    if (hasAfter) {
+                        change += (long) distances[first][after] - distances[last][after];
+                    }
+                    if (change < 0) {
+                        reverse(order, i, j);
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    private static void reverse(int[] order, int from, int to) {
+        while (from < to) {
+            int swap = order[from];
+            order[from] = order[to];
+            order[to] = swap;
+            from++;
+            to--;
+        }
+    }
+}
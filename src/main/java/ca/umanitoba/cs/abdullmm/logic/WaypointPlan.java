@@ -0,0 +1,17 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.Route;
+
+import java.util.List;
+
+/**
+ * A planned ride through a set of waypoints.
+ *
+ * @param route the combined route through every waypoint, in visiting order
+ * @param visitOrder the waypoints in the order the route visits them, starting with the first
+ *                   waypoint requested (and not repeating it at the end of a loop)
+ * @param steps the number of steps along the route
+ */
+public record WaypointPlan(Route route, List<GridPoint> visitOrder, int steps) {
+}
@@ -0,0 +1,83 @@
+package ca.umanitoba.cs.abdullmm.logic;
+
+import ca.umanitoba.cs.abdullmm.exceptions.PathNotFoundException;
+import ca.umanitoba.cs.abdullmm.model.GridPoint;
+import ca.umanitoba.cs.abdullmm.model.PointGraph;
+import com.google.common.base.Preconditions;
+
+/**
+ * A* search over steps whose costs come from an EdgeCost, for routes that prefer some points over
+ * others rather than simply having the fewest steps. The heuristic is the Manhattan distance times
+ * the cost's minimumCost, which never overestimates and changes by at most one step's cost per
+ * step, so keys come off the frontier in non-decreasing order and the frontier can be a RadixHeap.
+ * With a minimum cost of 1 and costs far above it the search behaves like Dijkstra's algorithm.
+ *
+ * An instance keeps only its EdgeCost, so it may be shared between queries when the cost may.
+ */
+public class WeightedSearch implements PathSearchStrategy {
+    private EdgeCost edgeCost;
+
+    /**
+     * Constructs a weighted search.
+     *
+     * Precondition: edgeCost is not null; edgeCost.minimumCost() >= 1
+     * Postcondition: searches minimize the total edgeCost of the route
+     *
+     * @param edgeCost the cost of each step
+     */
+    public WeightedSearch(EdgeCost edgeCost) {
+        Preconditions.checkNotNull(edgeCost, "Edge cost cannot be null");
+        Preconditions.checkArgument(edgeCost.minimumCost() >= 1, "Minimum edge cost must be positive");
+        this.edgeCost = edgeCost;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned route has the smallest total step cost of any route between start and end.
+     */
+    @Override
+    public PathSearchResult search(GridPoint start, GridPoint end, PointGraph points) throws PathNotFoundException {
+        PathSearches.checkEndpoints(start, end, points);
+
+        int minimumCost = edgeCost.minimumCost();
+        int startId = points.indexOf(start);
+        int endId = points.indexOf(end);
+        int[] neighbors = new int[4];
+        SearchState state = SearchState.acquire(points.capacity());
+        SearchMonitor monitor = SearchMonitor.current();
+        RadixHeap frontier = new RadixHeap();
+        int expanded = 0;
+
+        state.discover(startId, -1, 0);
+        frontier.push(minimumCost * PathSearches.manhattan(points, startId, endId), startId);
+
+        while (!frontier.isEmpty()) {
+            int current = frontier.pop();
+            int g = state.cost(current);
+            if (frontier.lastKey() > g + minimumCost * PathSearches.manhattan(points, current, endId)) {
+                continue; // Stale entry left behind when the point's cost improved
+            }
+            monitor.expand(state, current);
+            expanded++;
+
+            if (current == endId) {
+                return new PathSearchResult(state.reconstructPath(points, endId), expanded);
+            }
+
+            int neighborCount = points.neighbors(current, neighbors);
+            for (int i = 0; i < neighborCount; i++) {
+                int neighbor = neighbors[i];
+                int step = edgeCost.cost(points, current, neighbor);
+                Preconditions.checkState(step >= minimumCost, "Edge cost is below its minimum");
+                int next = g + step;
+                if (!state.isDiscovered(neighbor) || next < state.cost(neighbor)) {
+                    state.discover(neighbor, current, next);
+                    frontier.push(next + minimumCost * PathSearches.manhattan(points, neighbor, endId), neighbor);
+                }
+            }
+        }
+
+        throw new PathNotFoundException("No path exists between the two points");
+    }
+}
@@ -1,13 +1,37 @@
 package ca.umanitoba.cs.abdullmm.model;
 
 import com.google.common.base.Preconditions;
+
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 
 /**
  * Represents an activity feed that aggregates activities from a user and their followed users.
  *
+ * getPage streams the feed newest first, one page at a time. Each member's history is already kept
+ * in date order by their UserProfile, so a page is a k-way merge over the members: a heap holds
+ * the next activity of each member, and only as many activities as the page holds are taken from
+ * it. The page's cursor records where the merge stopped, and the next page binary-searches every
+ * member's history for that position instead of replaying the earlier pages.
+ *
+ * When the user has a Timeline, pages are read from it instead, and the merge only serves
+ * activities too old to have stayed in the timeline. Followed users whose feed is pulled are not
+ * on the timeline; their histories are merged with it on every read, the timeline counting as one
+ * more source. A timeline that is out of sync with the follow list is not read at all: the page
+ * is merged from the histories as if there were no timeline, and the timeline is left for
+ * ActivityManager to rebuild, so a read never changes it.
+ *
+ * A page can also be limited to a date range. Every member's history is binary-searched for the
+ * ends of the range, and the merge starts and stops there, so activities outside the range are
+ * never visited.
+ *
+ * Each page read is counted in the feed's FeedMetrics along with the number of sources it merged.
+ *
  * Class Invariants:
  * - userProfiles is never null (may be empty)
  * - currentUserId is not null and not empty
@@ -15,6 +39,7 @@ import java.util.Map;
 public class ActivityFeed {
     private String currentUserId;
     private Map<String, UserProfile> userProfiles;
+    private FeedMetrics metrics;
 
     /**
      * Constructs an ActivityFeed for a specific user.
@@ -26,82 +51,385 @@ public class ActivityFeed {
      * @param userProfiles a map of all user profiles in the system
      */
     public ActivityFeed(String currentUserId, Map<String, UserProfile> userProfiles) {
+        this(currentUserId, userProfiles, new FeedMetrics());
+    }
+
+    /**
+     * Constructs an ActivityFeed for a specific user that counts its reads in shared metrics.
+     *
+     * Precondition: currentUserId is not null and not empty; userProfiles and metrics are not null
+     * Postcondition: feed is initialized to aggregate activities
+     *
+     * @param currentUserId the ID of the user viewing the feed
+     * @param userProfiles a map of all user profiles in the system
+     * @param metrics the counters to record page reads in
+     */
+    public ActivityFeed(String currentUserId, Map<String, UserProfile> userProfiles, FeedMetrics metrics) {
         Preconditions.checkNotNull(currentUserId, "Current user ID cannot be null");
         Preconditions.checkState(!currentUserId.isEmpty(), "Current user ID cannot be empty");
         Preconditions.checkNotNull(userProfiles, "User profiles map cannot be null");
+        Preconditions.checkNotNull(metrics, "Feed metrics cannot be null");
 
         this.currentUserId = currentUserId;
         this.userProfiles = userProfiles;
+        this.metrics = metrics;
         checkInvariant();
     }
 
     /**
      * Gets all activities visible in the feed: own activities and followed users' activities.
      *
-     * Postcondition: returns a new ArrayList combining own and followed activities
+     * Postcondition: returns a read-only view of own and then followed activities; no state change
      *
-     * @return list of all activities visible in the feed
+     * @return view of all activities visible in the feed, sharing the users' histories
      */
-    public ArrayList<Activity> getAllActivities() {
-        ArrayList<Activity> feedActivities = new ArrayList<>();
+    public ActivityView getAllActivities() {
+        UserProfile currentProfile = userProfiles.get(currentUserId);
+        if (currentProfile == null) {
+            return ActivityView.empty();
+        }
+        List<ActivityView> parts = new ArrayList<>();
+        parts.add(currentProfile.getActivities());
+        addFollowedActivities(currentProfile, parts);
+        return ActivityView.concat(parts);
+    }
+
+    /**
+     * Gets one page of the feed, newest activities first. Activities on the same date are ordered
+     * by user ID, then most recently recorded first.
+     *
+     * Precondition: pageSize > 0; cursor is null or a cursor returned by this user's feed
+     * Postcondition: returns up to pageSize activities following the cursor; no state change
+     *
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     * @param pageSize the most activities to return
+     * @return the page and the cursor for the following one
+     * @throws IllegalArgumentException if cursor is not a feed cursor
+     */
+    public FeedPage getPage(String cursor, int pageSize) {
+        Preconditions.checkArgument(pageSize > 0, "Page size must be positive");
+        FeedCursor position = cursor == null ? null : FeedCursor.decode(cursor);
+        List<Activity> page = new ArrayList<>(Math.min(pageSize, 64));
 
-        // Add current user's activities
         UserProfile currentProfile = userProfiles.get(currentUserId);
-        if (currentProfile != null) {
-            feedActivities.addAll(currentProfile.getActivities());
+        Timeline timeline = currentProfile == null ? null : currentProfile.getTimeline();
+        if (timeline == null || !timeline.isSynced()) {
+            return merge(position, pageSize, page, members(), 0, null, null);
+        }
+
+        List<UserProfile> pulled = pulledMembers(currentProfile);
+        if (!pulled.isEmpty()) {
+            return mergeWithTimeline(timeline, position, pageSize, page, pulled);
+        }
+        FeedCursor last = timeline.read(position, pageSize, page, null);
+        if (timeline.hasAfter(last)) {
+            return finish(page, last, 1);
+        }
+        if (!timeline.isTruncated()) {
+            return finish(page, null, 1);
         }
+        return merge(last, pageSize, page, members(), 1, null, null); // Older activities fell out of the timeline
+    }
+
+    /**
+     * Gets one page of the feed limited to activities dated within a range, newest first, in the
+     * same order as getPage. The page is merged from the members' histories alone, starting and
+     * stopping at the ends of the range.
+     *
+     * Precondition: pageSize > 0; from and to are not null and from is not after to; cursor is
+     * null or a cursor returned by this user's feed for the same range
+     * Postcondition: returns up to pageSize activities dated from through to following the
+     * cursor; no state change
+     *
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     * @param pageSize the most activities to return
+     * @param from the first date of the range
+     * @param to the last date of the range, inclusive
+     * @return the page and the cursor for the following one
+     * @throws IllegalArgumentException if cursor is not a feed cursor
+     */
+    public FeedPage getPage(String cursor, int pageSize, LocalDate from, LocalDate to) {
+        Preconditions.checkArgument(pageSize > 0, "Page size must be positive");
+        Preconditions.checkNotNull(from, "Start date cannot be null");
+        Preconditions.checkNotNull(to, "End date cannot be null");
+        Preconditions.checkArgument(!from.isAfter(to), "Start date cannot be after end date");
+        FeedCursor position = cursor == null ? null : FeedCursor.decode(cursor);
+        List<Activity> page = new ArrayList<>(Math.min(pageSize, 64));
+        return merge(position, pageSize, page, members(), 0, from, to);
+    }
 
-        // Add followed users' activities
-        if (currentProfile != null) {
-            for (String followedUserId : currentProfile.getFollowedUserIds()) {
-                UserProfile followedProfile = userProfiles.get(followedUserId);
-                if (followedProfile != null) {
-                    feedActivities.addAll(followedProfile.getActivities());
+    /**
+     * Fills a page by merging some members' histories from a cursor.
+     *
+     * Precondition: page.size() <= pageSize; after is not null if page is not empty
+     * Postcondition: page holds up to pageSize activities
+     *
+     * @param after the position to merge from, or null for the start of the feed
+     * @param pageSize the size the page may grow to
+     * @param page the page to fill
+     * @param sources the members whose histories to merge
+     * @param otherSources the number of sources the page was already read from, for the metrics
+     * @param from the earliest date to merge, or null for no limit
+     * @param to the latest date to merge, or null for no limit
+     * @return the page and the cursor for the following one
+     */
+    private FeedPage merge(FeedCursor after, int pageSize, List<Activity> page, List<UserProfile> sources,
+                           int otherSources, LocalDate from, LocalDate to) {
+        FeedCursor position = after;
+        PriorityQueue<MergeHead> heads = new PriorityQueue<>(MergeHead.NEWEST_FIRST);
+        addHeads(heads, sources, position, from, to);
+        int width = otherSources + heads.size();
+
+        MergeHead lastHead = null;
+        int lastRank = -1;
+        while (page.size() < pageSize && !heads.isEmpty()) {
+            MergeHead head = heads.poll();
+            page.add(head.activity());
+            lastHead = head;
+            lastRank = head.rank;
+            if (head.rank > head.floor) {
+                head.rank--;
+                heads.add(head);
+            }
+        }
+
+        if (heads.isEmpty()) {
+            return finish(page, null, width);
+        }
+        if (lastHead != null) {
+            position = lastHead.positionAt(lastRank);
+        }
+        return finish(page, position, width);
+    }
+
+    /**
+     * Fills a page by merging the timeline with the histories of the followed users it leaves out
+     * because their feed is pulled. Only one page of the timeline is copied; if that reaches the
+     * end of a truncated timeline, the histories of the pushed members are merged in from there.
+     *
+     * Precondition: page is empty; pulled is not empty and holds the members whose feed is pulled
+     * Postcondition: page holds up to pageSize activities; no state change
+     *
+     * @param timeline the current user's timeline, in sync
+     * @param after the position to merge from, or null for the start of the feed
+     * @param pageSize the most activities to return
+     * @param page the page to fill
+     * @param pulled the members whose feed is pulled
+     * @return the page and the cursor for the following one
+     */
+    private FeedPage mergeWithTimeline(Timeline timeline, FeedCursor after, int pageSize, List<Activity> page,
+                                       List<UserProfile> pulled) {
+        List<Activity> window = new ArrayList<>(Math.min(pageSize, 64));
+        List<FeedCursor> keys = new ArrayList<>(Math.min(pageSize, 64));
+        boolean timelineLeft = timeline.hasAfter(timeline.read(after, pageSize, window, keys));
+        boolean historiesMerged = timelineLeft || !timeline.isTruncated();
+
+        PriorityQueue<MergeHead> heads = new PriorityQueue<>(MergeHead.NEWEST_FIRST);
+        addHeads(heads, pulled, after, null, null);
+        int width = 1 + heads.size();
+
+        FeedCursor position = after;
+        FeedCursor timelinePosition = after;
+        int next = 0;
+        while (true) {
+            if (next == window.size() && !historiesMerged) {
+                // Everything past the window fell out of the timeline
+                List<UserProfile> pushed = members();
+                pushed.removeAll(pulled);
+                int before = heads.size();
+                addHeads(heads, pushed, timelinePosition, null, null);
+                width += heads.size() - before;
+                historiesMerged = true;
+            }
+            if (page.size() == pageSize) {
+                break;
+            }
+            MergeHead head = heads.peek();
+            if (next < window.size() && (head == null
+                    || keys.get(next).precedes(head.activity().getDate(), head.member.getUserId(), head.sequence()))) {
+                page.add(window.get(next));
+                position = keys.get(next);
+                timelinePosition = position;
+                next++;
+            } else if (head != null) {
+                heads.poll();
+                page.add(head.activity());
+                position = head.position();
+                if (head.rank > head.floor) {
+                    head.rank--;
+                    heads.add(head);
                 }
+            } else {
+                break;
             }
         }
 
-        return feedActivities;
+        boolean more = next < window.size() || timelineLeft || !heads.isEmpty();
+        return finish(page, more ? position : null, width);
+    }
+
+    /**
+     * Adds the next activity after a cursor of each of some members to a merge, if they have one
+     * within the date range.
+     *
+     * @param from the earliest date to merge, or null for no limit
+     * @param to the latest date to merge, or null for no limit
+     */
+    private static void addHeads(PriorityQueue<MergeHead> heads, List<UserProfile> sources, FeedCursor after,
+                                 LocalDate from, LocalDate to) {
+        for (UserProfile member : sources) {
+            ActivityHistory history = member.history();
+            int remaining = after == null ? history.size() : after.remaining(member.getUserId(), history);
+            if (to != null) {
+                remaining = Math.min(remaining, history.countBeforeByDate(to, Integer.MAX_VALUE));
+            }
+            int floor = from == null ? 0 : history.countBeforeByDate(from, 0);
+            if (remaining > floor) {
+                heads.add(new MergeHead(member, history, remaining - 1, floor));
+            }
+        }
+    }
+
+    /**
+     * Records a page read in the metrics and wraps up the page.
+     *
+     * @param next the position of the page's last activity, or null if the feed ends with the page
+     * @param width the number of sources the page was merged from
+     */
+    private FeedPage finish(List<Activity> page, FeedCursor next, int width) {
+        metrics.recordRead(width);
+        return new FeedPage(page, next == null ? null : next.encode());
     }
 
     /**
      * Gets the current user's own activities only.
      *
-     * Postcondition: returns a new ArrayList with only current user's activities
+     * Postcondition: returns a read-only view of the current user's activities; no state change
      *
-     * @return list of current user's activities
+     * @return view of current user's activities
      */
-    public ArrayList<Activity> getOwnActivities() {
+    public ActivityView getOwnActivities() {
         UserProfile currentProfile = userProfiles.get(currentUserId);
         if (currentProfile == null) {
-            return new ArrayList<>();
+            return ActivityView.empty();
         }
-        return new ArrayList<>(currentProfile.getActivities());
+        return currentProfile.getActivities();
     }
 
     /**
      * Gets activities from all followed users.
      *
-     * Postcondition: returns a new ArrayList with followed users' activities only
+     * Postcondition: returns a read-only view of followed users' activities only; no state change
      *
-     * @return list of followed users' activities
+     * @return view of followed users' activities
      */
-    public ArrayList<Activity> getFollowedActivities() {
-        ArrayList<Activity> followedActivities = new ArrayList<>();
-
+    public ActivityView getFollowedActivities() {
         UserProfile currentProfile = userProfiles.get(currentUserId);
         if (currentProfile == null) {
-            return followedActivities;
+            return ActivityView.empty();
         }
+        List<ActivityView> parts = new ArrayList<>();
+        addFollowedActivities(currentProfile, parts);
+        return ActivityView.concat(parts);
+    }
 
+    /**
+     * Adds a snapshot of the history of each followed user that exists to a list of views.
+     */
+    private void addFollowedActivities(UserProfile currentProfile, List<ActivityView> parts) {
+        for (String followedUserId : currentProfile.getFollowedUserIds()) {
+            UserProfile followedProfile = userProfiles.get(followedUserId);
+            if (followedProfile != null) {
+                parts.add(followedProfile.getActivities());
+            }
+        }
+    }
+
+    /**
+     * Gets the profiles whose activities make up the feed: the current user and each followed user
+     * that exists, once each.
+     *
+     * @return the feed's members
+     */
+    private List<UserProfile> members() {
+        UserProfile currentProfile = userProfiles.get(currentUserId);
+        if (currentProfile == null) {
+            return List.of();
+        }
+        Map<String, UserProfile> members = new LinkedHashMap<>();
+        members.put(currentUserId, currentProfile);
         for (String followedUserId : currentProfile.getFollowedUserIds()) {
             UserProfile followedProfile = userProfiles.get(followedUserId);
             if (followedProfile != null) {
-                followedActivities.addAll(followedProfile.getActivities());
+                members.putIfAbsent(followedUserId, followedProfile);
+            }
+        }
+        return new ArrayList<>(members.values());
+    }
+
+    /**
+     * Gets the followed users whose feed is pulled, once each. Only the follow list is scanned, so
+     * a read that finds none costs no more than a pass over it.
+     *
+     * @param currentProfile the current user's profile
+     * @return the pulled members of the feed
+     */
+    private List<UserProfile> pulledMembers(UserProfile currentProfile) {
+        List<UserProfile> pulled = new ArrayList<>();
+        for (String followedUserId : currentProfile.getFollowedUserIds()) {
+            UserProfile followedProfile = userProfiles.get(followedUserId);
+            if (followedProfile != null && followedProfile != currentProfile && followedProfile.isFeedPulled()
+                    && !pulled.contains(followedProfile)) {
+                pulled.add(followedProfile);
             }
         }
+        return pulled;
+    }
 
-        return followedActivities;
+    /**
+     * The next activity of one member in a feed merge, by its rank in the date order of a snapshot
+     * of the member's history taken when the merge started. Ranks count down, since the merge runs
+     * newest first, and stop at floor, the oldest rank the merge takes.
+     */
+    private static final class MergeHead {
+        static final Comparator<MergeHead> NEWEST_FIRST = (a, b) -> {
+            int compared = b.activity().getDate().compareTo(a.activity().getDate());
+            if (compared != 0) {
+                return compared;
+            }
+            compared = a.member.getUserId().compareTo(b.member.getUserId());
+            return compared != 0 ? compared
+                    : Integer.compare(b.sequence(), a.sequence());
+        };
+
+        private UserProfile member;
+        private ActivityHistory history;
+        private int rank;
+        private int floor;
+
+        MergeHead(UserProfile member, ActivityHistory history, int rank, int floor) {
+            this.member = member;
+            this.history = history;
+            this.rank = rank;
+            this.floor = floor;
+        }
+
+        Activity activity() {
+            return history.activityByDate(rank);
+        }
+
+        int sequence() {
+            return history.sequenceByDate(rank);
+        }
+
+        FeedCursor position() {
+            return positionAt(rank);
+        }
+
+        FeedCursor positionAt(int atRank) {
+            return new FeedCursor(history.activityByDate(atRank).getDate(), member.getUserId(),
+                    history.sequenceByDate(atRank));
+        }
     }
 
     /**
@@ -109,6 +437,7 @@ public class ActivityFeed {
      */
     private void checkInvariant() {
         Preconditions.checkNotNull(userProfiles, "User profiles map cannot be null");
+        Preconditions.checkNotNull(metrics, "Feed metrics cannot be null");
         Preconditions.checkNotNull(currentUserId, "Current user ID cannot be null");
         Preconditions.checkState(!currentUserId.isEmpty(), "Current user ID cannot be empty");
     }
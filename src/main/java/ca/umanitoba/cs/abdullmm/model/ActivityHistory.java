@@ -0,0 +1,130 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of one user's activity history: the activities in the order they were
+ * recorded, and their sequences sorted by (date, sequence). UserProfile publishes a new snapshot
+ * through a volatile field after each activity is recorded, so a reader that takes one snapshot
+ * sees a history that is complete and consistent in both orders, however the owner appends
+ * meanwhile.
+ *
+ * Recording an activity shares the log: the new entry goes in the slot just past the count, which
+ * no earlier snapshot reads, and the log is only copied when it is full. The date order is copied
+ * on every append instead of shifted in place, since an insertion moves entries that earlier
+ * snapshots do read.
+ *
+ * A history has a single writer, its UserProfile; append must not be called twice on the same
+ * snapshot.
+ *
+ * Class Invariants:
+ * - 0 <= count <= log.length; log[0 .. count) are not null and never written again
+ * - dateOrder holds each of [0, count) once, sorted by (date, sequence)
+ */
+final class ActivityHistory {
+    static final ActivityHistory EMPTY = new ActivityHistory(new Activity[0], new int[0], 0); // Shared, so never written
+
+    private final Activity[] log;
+    private final int[] dateOrder;
+    private final int count;
+
+    private ActivityHistory(Activity[] log, int[] dateOrder, int count) {
+        this.log = log;
+        this.dateOrder = dateOrder;
+        this.count = count;
+    }
+
+    /**
+     * Gets the number of activities in the snapshot.
+     *
+     * @return the history's size
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Gets the snapshot's activities in recording order.
+     *
+     * @return a view sharing the log
+     */
+    ActivityView view() {
+        return ActivityView.of(log, count);
+    }
+
+    /**
+     * Creates the snapshot with one more activity recorded.
+     *
+     * Precondition: activity is not null; append has not been called on this snapshot before
+     * Postcondition: returns a snapshot with activity as its newest sequence; this snapshot is unchanged
+     *
+     * @param activity the activity to record
+     * @return the new snapshot
+     */
+    ActivityHistory append(Activity activity) {
+        Preconditions.checkNotNull(activity, "Activity cannot be null");
+        Activity[] nextLog = count == log.length ? Arrays.copyOf(log, Math.max(8, count * 2)) : log;
+        nextLog[count] = activity;
+
+        // The new sequence is the largest, so it goes after every activity on or before its date
+        int position = countBeforeByDate(activity.getDate(), Integer.MAX_VALUE);
+        int[] nextOrder = new int[count + 1];
+        System.arraycopy(dateOrder, 0, nextOrder, 0, position);
+        nextOrder[position] = count;
+        System.arraycopy(dateOrder, position, nextOrder, position + 1, count - position);
+        return new ActivityHistory(nextLog, nextOrder, count + 1);
+    }
+
+    /**
+     * Gets an activity by its rank in date order, oldest first.
+     *
+     * Precondition: 0 <= rank < size()
+     *
+     * @param rank the activity's position in (date, sequence) order
+     * @return the activity
+     */
+    Activity activityByDate(int rank) {
+        return log[dateOrder[rank]];
+    }
+
+    /**
+     * Gets the sequence (position in recording order) of an activity by its rank in date order.
+     *
+     * Precondition: 0 <= rank < size()
+     *
+     * @param rank the activity's position in (date, sequence) order
+     * @return the activity's sequence
+     */
+    int sequenceByDate(int rank) {
+        return dateOrder[rank];
+    }
+
+    /**
+     * Counts the activities that come before a (date, sequence) key in date order, by binary search.
+     *
+     * Precondition: date is not null
+     *
+     * @param date the date of the key
+     * @param sequence the sequence of the key; 0 counts only earlier dates, Integer.MAX_VALUE
+     *                 counts every activity up to and including the date
+     * @return the number of activities whose (date, sequence) is less than the key
+     */
+    int countBeforeByDate(LocalDate date, int sequence) {
+        Preconditions.checkNotNull(date, "Date cannot be null");
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int compared = log[dateOrder[middle]].getDate().compareTo(date);
+            if (compared < 0 || (compared == 0 && dateOrder[middle] < sequence)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
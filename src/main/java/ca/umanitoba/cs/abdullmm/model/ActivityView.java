@@ -0,0 +1,174 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A read-only list of activities that shares the storage of the histories it was taken from
+ * instead of copying it.
+ *
+ * A UserProfile records its activities in an append-only array: a slot is written once, before
+ * the count that covers it is published, and is never changed afterwards; growing the history
+ * copies it into a larger array and leaves the old one as it was. A view holds an array and the
+ * count published when the view was taken, so it is a snapshot: it never sees activities
+ * recorded later, it can be read while the history is appended to, and taking one costs a
+ * single allocation however long the history is. A view over several histories, such as a feed,
+ * keeps one such segment per history.
+ *
+ * All fields are final, so a view can be handed to another thread without further
+ * synchronization. Every mutator throws UnsupportedOperationException.
+ *
+ * Class Invariants:
+ * - segments and ends have the same length; ends is strictly increasing, ends[i] being the
+ *   number of activities in segments [0, i]
+ * - size is the last entry of ends, or 0 if there are no segments
+ */
+public final class ActivityView extends AbstractList<Activity> implements RandomAccess {
+    private static final ActivityView EMPTY = new ActivityView(new Activity[0][], new int[0]);
+
+    private final Activity[][] segments;
+    private final int[] ends;
+    private final int size;
+
+    private ActivityView(Activity[][] segments, int[] ends) {
+        this.segments = segments;
+        this.ends = ends;
+        this.size = ends.length == 0 ? 0 : ends[ends.length - 1];
+        checkInvariant();
+    }
+
+    /**
+     * Gets the view with no activities.
+     *
+     * @return the empty view
+     */
+    public static ActivityView empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Takes a view of the first entries of an append-only history.
+     *
+     * Precondition: log is not null; 0 <= size <= log.length; entries [0, size) are set and are
+     * never written again
+     * Postcondition: returns a view of entries [0, size); log is not copied
+     *
+     * @param log the history's storage
+     * @param size the number of entries published
+     * @return the view
+     */
+    static ActivityView of(Activity[] log, int size) {
+        Preconditions.checkNotNull(log, "Activity log cannot be null");
+        Preconditions.checkArgument(size >= 0 && size <= log.length, "Size must be within the log");
+        return size == 0 ? EMPTY : new ActivityView(new Activity[][]{log}, new int[]{size});
+    }
+
+    /**
+     * Joins views end to end, sharing their storage.
+     *
+     * Precondition: parts is not null and holds no null views
+     * Postcondition: returns a view of every activity of parts, in order; no part is copied
+     *
+     * @param parts the views to join
+     * @return the joined view
+     */
+    static ActivityView concat(List<ActivityView> parts) {
+        Preconditions.checkNotNull(parts, "Views cannot be null");
+        int segmentCount = 0;
+        for (ActivityView part : parts) {
+            segmentCount += part.segments.length;
+        }
+        if (segmentCount == 0) {
+            return EMPTY;
+        }
+
+        Activity[][] segments = new Activity[segmentCount][];
+        int[] ends = new int[segmentCount];
+        int at = 0;
+        int total = 0;
+        for (ActivityView part : parts) {
+            for (int i = 0; i < part.segments.length; i++) {
+                total += part.ends[i] - (i == 0 ? 0 : part.ends[i - 1]);
+                segments[at] = part.segments[i];
+                ends[at++] = total;
+            }
+        }
+        return new ActivityView(segments, ends);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets an activity by position. A view over one history reads it directly; a joined view
+     * binary-searches for the segment holding it first.
+     *
+     * @param index the position of the activity
+     * @return the activity
+     * @throws IndexOutOfBoundsException if index is not in [0, size)
+     */
+    @Override
+    public Activity get(int index) {
+        Preconditions.checkElementIndex(index, size);
+        int low = 0;
+        int high = ends.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ends[middle] <= index) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return segments[low][low == 0 ? index : index - ends[low - 1]];
+    }
+
+    /**
+     * Walks the view segment by segment, reading each activity straight from its history's array.
+     *
+     * @return an iterator over the view's activities, in order
+     */
+    @Override
+    public Iterator<Activity> iterator() {
+        return new Iterator<>() {
+            private int segment;
+            private int index;
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return position < size;
+            }
+
+            @Override
+            public Activity next() {
+                if (position >= size) {
+                    throw new NoSuchElementException();
+                }
+                while (position == ends[segment]) {
+                    segment++;
+                    index = 0;
+                }
+                position++;
+                return segments[segment][index++];
+            }
+        };
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(segments.length == ends.length, "One end per segment");
+        for (int i = 0; i < ends.length; i++) {
+            Preconditions.checkState(ends[i] > (i == 0 ? 0 : ends[i - 1]), "Segments cannot be empty");
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A view of several PointIndexes as one graph, used to search a feed without copying every
+ * member's points into a new index.
+ *
+ * Member i owns the id range [offset(i), offset(i) + its size). A point that appears in more
+ * than one member is identified by its id in the first member that contains it, so every point
+ * has exactly one id and the ranges owned by later members may contain unused ids. Member sizes
+ * are fixed when the view is built; points added to a member afterwards are not visible.
+ *
+ * append builds a larger view that keeps those fixed sizes, so every id of the smaller view
+ * names the same point in the larger one and indexes over it can be extended rather than rebuilt.
+ *
+ * Lookups go through a table of the view's own, built when the view is, that maps each distinct
+ * point to its id (open addressing over packed coordinates, as in PointIndex). A lookup is one
+ * probe however many members there are; building the table costs one pass over their points.
+ *
+ * Class Invariants:
+ * - members and offsets have the same length
+ * - offsets is non-decreasing and offsets[i + 1] == offsets[i] + sizes[i]
+ * - the table holds pointCount entries, one per distinct point, and is at most half full
+ */
+public class CompositePointGraph implements PointGraph {
+    private static final int[] NEIGHBOR_DX = {1, -1, 0, 0};
+    private static final int[] NEIGHBOR_DY = {0, 0, 1, -1};
+
+    private PointIndex[] members;
+    private int[] sizes;
+    private int[] offsets;
+    private int capacity;
+    private long[] slotKeys;
+    private int[] slotIds;
+    private int pointCount;
+
+    /**
+     * Builds a view over the given indexes.
+     *
+     * Precondition: members is not null and contains no null elements
+     * Postcondition: the view contains every point of every member at its current size
+     *
+     * @param members the indexes to combine, in priority order
+     */
+    public CompositePointGraph(List<PointIndex> members) {
+        Preconditions.checkNotNull(members, "Member indexes cannot be null");
+
+        this.members = members.toArray(new PointIndex[0]);
+        this.sizes = new int[this.members.length];
+        this.offsets = new int[this.members.length];
+        int offset = 0;
+        for (int i = 0; i < this.members.length; i++) {
+            Preconditions.checkNotNull(this.members[i], "Member index cannot be null");
+            offsets[i] = offset;
+            sizes[i] = this.members[i].size();
+            offset += sizes[i];
+        }
+        this.capacity = offset;
+        allocateTable(PointIndex.tableSizeFor(capacity));
+        indexMembers(0);
+        checkInvariant();
+    }
+
+    private CompositePointGraph(CompositePointGraph smaller, PointIndex[] members, int[] sizes) {
+        this.members = members;
+        this.sizes = sizes;
+        this.offsets = new int[members.length];
+        int offset = 0;
+        for (int i = 0; i < members.length; i++) {
+            offsets[i] = offset;
+            offset += sizes[i];
+        }
+        this.capacity = offset;
+
+        // The smaller view's entries keep their ids, so only the added members are indexed
+        int tableSize = PointIndex.tableSizeFor(capacity);
+        if (tableSize == smaller.slotIds.length) {
+            this.slotKeys = smaller.slotKeys.clone();
+            this.slotIds = smaller.slotIds.clone();
+        } else {
+            allocateTable(tableSize);
+            for (int slot = 0; slot < smaller.slotIds.length; slot++) {
+                if (smaller.slotIds[slot] >= 0) {
+                    insert(smaller.slotKeys[slot], smaller.slotIds[slot]);
+                }
+            }
+        }
+        this.pointCount = smaller.pointCount;
+        indexMembers(smaller.members.length);
+        checkInvariant();
+    }
+
+    /**
+     * Builds a view with more members after this view's members. Existing members keep the sizes
+     * they had when this view was built, so every id of this view is the same point in the new
+     * one; the added members are taken at their current sizes.
+     *
+     * Precondition: added is not null and contains no null elements
+     * Postcondition: returns a new view; this view is unchanged
+     *
+     * @param added the indexes to append, in priority order
+     * @return the larger view
+     */
+    public CompositePointGraph append(List<PointIndex> added) {
+        Preconditions.checkNotNull(added, "Member indexes cannot be null");
+
+        PointIndex[] combined = Arrays.copyOf(members, members.length + added.size());
+        int[] combinedSizes = Arrays.copyOf(sizes, combined.length);
+        for (int i = 0; i < added.size(); i++) {
+            PointIndex member = added.get(i);
+            Preconditions.checkNotNull(member, "Member index cannot be null");
+            combined[members.length + i] = member;
+            combinedSizes[members.length + i] = member.size();
+        }
+        return new CompositePointGraph(this, combined, combinedSizes);
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A lookup probes the view's own table, so it costs the same however many members there are.
+     */
+    @Override
+    public int indexOf(int x, int y) {
+        long key = PointIndex.pack(x, y);
+        int mask = slotIds.length - 1;
+        int slot = PointIndex.mix(key) & mask;
+        while (slotIds[slot] >= 0) {
+            if (slotKeys[slot] == key) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public int x(int id) {
+        int member = memberOf(id);
+        return members[member].x(id - offsets[member]);
+    }
+
+    @Override
+    public int y(int id) {
+        int member = memberOf(id);
+        return members[member].y(id - offsets[member]);
+    }
+
+    @Override
+    public int neighbors(int id, int[] out) {
+        int member = memberOf(id);
+        int local = id - offsets[member];
+        int x = members[member].x(local);
+        int y = members[member].y(local);
+
+        int count = 0;
+        for (int i = 0; i < 4; i++) {
+            int neighbor = indexOf(x + NEIGHBOR_DX[i], y + NEIGHBOR_DY[i]);
+            if (neighbor >= 0) {
+                out[count++] = neighbor;
+            }
+        }
+        Arrays.sort(out, 0, count);
+        return count;
+    }
+
+    /**
+     * Adds the points of members [from, members.length) to the table, in member then id order, so
+     * that a point already present keeps the id of the first member containing it.
+     */
+    private void indexMembers(int from) {
+        for (int i = from; i < members.length; i++) {
+            for (int local = 0; local < sizes[i]; local++) {
+                long key = PointIndex.pack(members[i].x(local), members[i].y(local));
+                if (insert(key, offsets[i] + local)) {
+                    pointCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts a point in the table unless it is there already.
+     *
+     * @return true if the point was added
+     */
+    private boolean insert(long key, int id) {
+        int mask = slotIds.length - 1;
+        int slot = PointIndex.mix(key) & mask;
+        while (slotIds[slot] >= 0) {
+            if (slotKeys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slotKeys[slot] = key;
+        slotIds[slot] = id;
+        return true;
+    }
+
+    private void allocateTable(int tableSize) {
+        slotKeys = new long[tableSize];
+        slotIds = new int[tableSize];
+        Arrays.fill(slotIds, -1);
+    }
+
+    /**
+     * Finds the member whose id range contains an id.
+     */
+    private int memberOf(int id) {
+        Preconditions.checkElementIndex(id, capacity, "Point id");
+        int low = 0;
+        int high = members.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= id) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        // Members after the owner start beyond id, so the last offset <= id belongs to the owner
+        return low;
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(members.length == offsets.length, "Members and offsets must match");
+        for (int i = 0; i + 1 < members.length; i++) {
+            Preconditions.checkState(offsets[i + 1] == offsets[i] + sizes[i], "Offsets must be contiguous");
+        }
+        Preconditions.checkState(pointCount <= capacity && pointCount * 2 <= slotIds.length, "Point table is overloaded");
+    }
+}
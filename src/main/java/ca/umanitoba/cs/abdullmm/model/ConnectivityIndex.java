@@ -0,0 +1,228 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * A union-find (disjoint set) structure over the ids of a PointGraph that records which points
+ * are connected through chains of adjacent points. Reachability questions are answered in
+ * near-constant time without running a search.
+ *
+ * An index either tracks a growing PointIndex (see UserProfile), absorbing each batch of newly
+ * added points with update, or is built once over a fixed graph with of and optionally extended
+ * over larger graphs that keep its ids (see CompositePointGraph.append). Uses union by size,
+ * so trees stay logarithmically shallow and read-only lookups never modify the structure.
+ *
+ * Class Invariants:
+ * - parent and size have the same length, at least processed
+ * - parent[id] == -1 exactly for ids in [0, processed) that are not points of the graph
+ * - componentCount equals the number of roots among the processed ids
+ */
+public class ConnectivityIndex {
+    private int[] parent;
+    private int[] size;
+    private int processed;
+    private int componentCount;
+
+    /**
+     * Constructs an empty connectivity index.
+     *
+     * Postcondition: no ids have been processed and there are no components
+     */
+    public ConnectivityIndex() {
+        this.parent = new int[16];
+        this.size = new int[16];
+        this.processed = 0;
+        this.componentCount = 0;
+        checkInvariant();
+    }
+
+    /**
+     * Builds a connectivity index over every point of a graph.
+     *
+     * Precondition: graph is not null
+     * Postcondition: two points are connected in the index iff a path joins them in the graph
+     *
+     * @param graph the graph to index
+     * @return the new connectivity index
+     */
+    public static ConnectivityIndex of(PointGraph graph) {
+        Preconditions.checkNotNull(graph, "Graph cannot be null");
+        ConnectivityIndex index = new ConnectivityIndex();
+        index.absorb(graph, graph.capacity());
+        return index;
+    }
+
+    /**
+     * Absorbs the points added to an index since the last update.
+     *
+     * Precondition: index is not null and is the same index passed to every earlier update
+     * Postcondition: every indexed point is processed and joined to its adjacent points
+     *
+     * @param index the growing point index this connectivity index tracks
+     */
+    void update(PointIndex index) {
+        Preconditions.checkNotNull(index, "Point index cannot be null");
+        absorb(index, index.size());
+    }
+
+    /**
+     * Absorbs the ids a graph has beyond those already processed.
+     *
+     * Precondition: graph is not null, and every id processed so far names the same point (or
+     * is unused in the same way) in graph as in the graphs processed before
+     * Postcondition: every id of the graph is processed and joined to its adjacent points
+     *
+     * @param graph the larger graph, such as a CompositePointGraph with members appended
+     */
+    public void extend(PointGraph graph) {
+        Preconditions.checkNotNull(graph, "Graph cannot be null");
+        absorb(graph, graph.capacity());
+    }
+
+    /**
+     * Checks whether two points lie in the same connected component.
+     *
+     * Precondition: both ids are points that have been processed
+     * Postcondition: no state change
+     *
+     * @param a the id of the first point
+     * @param b the id of the second point
+     * @return true if a path of adjacent points joins them, false otherwise
+     */
+    public boolean connected(int a, int b) {
+        Preconditions.checkElementIndex(a, processed, "Point id");
+        Preconditions.checkElementIndex(b, processed, "Point id");
+        return root(a) == root(b);
+    }
+
+    /**
+     * Gets the number of connected components (route islands).
+     *
+     * @return the number of components
+     */
+    public int componentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Gets the number of points in the component containing a point.
+     *
+     * Precondition: id is a point that has been processed
+     *
+     * @param id the point id
+     * @return the size of its component
+     */
+    public int componentSize(int id) {
+        Preconditions.checkElementIndex(id, processed, "Point id");
+        return size[root(id)];
+    }
+
+    /**
+     * Gets the sizes of all components, largest first.
+     *
+     * Postcondition: returns a new array of length componentCount()
+     *
+     * @return the component sizes in descending order
+     */
+    public int[] componentSizes() {
+        int[] sizes = new int[componentCount];
+        int count = 0;
+        for (int id = 0; id < processed; id++) {
+            if (parent[id] == id) {
+                sizes[count++] = size[id];
+            }
+        }
+        Arrays.sort(sizes);
+        for (int i = 0, j = sizes.length - 1; i < j; i++, j--) {
+            int swap = sizes[i];
+            sizes[i] = sizes[j];
+            sizes[j] = swap;
+        }
+        return sizes;
+    }
+
+    /**
+     * Processes ids [processed, limit) of a graph, making each point its own component and then
+     * joining it with any adjacent point that has already been processed. Ids that the graph
+     * does not map back to themselves (unused ids of a composite graph) are skipped.
+     */
+    private void absorb(PointGraph graph, int limit) {
+        ensureCapacity(limit);
+        int[] neighbors = new int[4];
+        for (int id = processed; id < limit; id++) {
+            if (graph.indexOf(graph.x(id), graph.y(id)) != id) {
+                parent[id] = -1;
+                continue;
+            }
+            parent[id] = id;
+            size[id] = 1;
+            componentCount++;
+
+            int neighborCount = graph.neighbors(id, neighbors);
+            for (int i = 0; i < neighborCount; i++) {
+                if (neighbors[i] < id) {
+                    union(id, neighbors[i]);
+                }
+            }
+        }
+        processed = Math.max(processed, limit);
+        checkInvariant();
+    }
+
+    private void union(int a, int b) {
+        int rootA = compressingRoot(a);
+        int rootB = compressingRoot(b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (size[rootA] < size[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+        componentCount--;
+    }
+
+    /**
+     * Finds a root without modifying the structure, so concurrent readers are safe.
+     */
+    private int root(int id) {
+        while (parent[id] != id) {
+            id = parent[id];
+        }
+        return id;
+    }
+
+    /**
+     * Finds a root while halving the path behind it; only used while the index is being updated.
+     */
+    private int compressingRoot(int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > parent.length) {
+            int length = Math.max(capacity, parent.length * 2);
+            parent = Arrays.copyOf(parent, length);
+            size = Arrays.copyOf(size, length);
+        }
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(parent.length == size.length, "Parent and size arrays must match");
+        Preconditions.checkState(processed <= parent.length, "Processed ids exceed capacity");
+        Preconditions.checkState(componentCount >= 0 && componentCount <= processed,
+                "Component count out of range");
+    }
+}
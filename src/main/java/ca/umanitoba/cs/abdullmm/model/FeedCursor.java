@@ -0,0 +1,138 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * A position in a date-ordered feed: the (date, userId, sequence) key of the last activity a page
+ * returned. Feeds are ordered newest date first, then by user ID, then most recently recorded
+ * first, so the key identifies a unique place in every member's history and a page resumes exactly
+ * where the last one ended even after activities are recorded in between.
+ *
+ * Cursors travel outside the feed as opaque URL-safe strings.
+ *
+ * Class Invariants:
+ * - date and userId are not null; sequence >= 0
+ */
+final class FeedCursor {
+    private LocalDate date;
+    private String userId;
+    private int sequence;
+
+    /**
+     * Constructs a cursor just after an activity.
+     *
+     * Precondition: date and userId are not null; sequence >= 0
+     * Postcondition: the cursor is positioned after the given activity
+     *
+     * @param date the activity's date
+     * @param userId the ID of the user who recorded it
+     * @param sequence its position in that user's recording order
+     */
+    FeedCursor(LocalDate date, String userId, int sequence) {
+        this.date = date;
+        this.userId = userId;
+        this.sequence = sequence;
+        checkInvariant();
+    }
+
+    LocalDate date() {
+        return date;
+    }
+
+    String userId() {
+        return userId;
+    }
+
+    int sequence() {
+        return sequence;
+    }
+
+    /**
+     * Parses a cursor produced by encode.
+     *
+     * Precondition: token is not null
+     * Postcondition: returns the cursor the token was encoded from
+     *
+     * @param token the encoded cursor
+     * @return the cursor
+     * @throws IllegalArgumentException if token is not a cursor
+     */
+    static FeedCursor decode(String token) {
+        Preconditions.checkNotNull(token, "Cursor cannot be null");
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", 3);
+            Preconditions.checkArgument(parts.length == 3, "Invalid feed cursor");
+            int sequence = Integer.parseInt(parts[1]);
+            Preconditions.checkArgument(sequence >= 0 && !parts[2].isEmpty(), "Invalid feed cursor");
+            return new FeedCursor(LocalDate.ofEpochDay(Long.parseLong(parts[0])), parts[2], sequence);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid feed cursor", e);
+        }
+    }
+
+    /**
+     * Encodes the cursor as an opaque string.
+     *
+     * @return the encoded cursor
+     */
+    String encode() {
+        String key = date.toEpochDay() + ":" + sequence + ":" + userId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Counts the activities of a member that come after this cursor in feed order. Those are the
+     * oldest in the member's date order, so they are found with one binary search.
+     *
+     * Precondition: memberId and history are not null
+     * Postcondition: no state change
+     *
+     * @param memberId the ID of the member
+     * @param history a snapshot of the member's history
+     * @return the number of the member's oldest activities, in date order, still to be returned
+     */
+    int remaining(String memberId, ActivityHistory history) {
+        int compared = memberId.compareTo(userId);
+        if (compared < 0) {
+            return history.countBeforeByDate(date, 0);
+        }
+        if (compared > 0) {
+            return history.countBeforeByDate(date, Integer.MAX_VALUE);
+        }
+        return history.countBeforeByDate(date, sequence);
+    }
+
+    /**
+     * Checks whether this position comes earlier in the feed than an activity, that is, whether the
+     * activity would be returned after it.
+     *
+     * Postcondition: no state change
+     *
+     * @param otherDate the activity's date
+     * @param otherUserId the ID of the user who recorded it
+     * @param otherSequence its position in that user's recording order
+     * @return true if the feed reaches this position first
+     */
+    boolean precedes(LocalDate otherDate, String otherUserId, int otherSequence) {
+        int compared = otherDate.compareTo(date);
+        if (compared != 0) {
+            return compared < 0;
+        }
+        compared = userId.compareTo(otherUserId);
+        return compared != 0 ? compared < 0 : otherSequence < sequence;
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkNotNull(date, "Cursor date cannot be null");
+        Preconditions.checkNotNull(userId, "Cursor user ID cannot be null");
+        Preconditions.checkState(sequence >= 0, "Cursor sequence cannot be negative");
+    }
+}
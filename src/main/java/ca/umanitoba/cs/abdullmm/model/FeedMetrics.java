@@ -0,0 +1,51 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+/**
+ * Counters of the work feeds cost on each side: how many timelines an activity is written to when
+ * recorded, and how many sources a page merges when read. Pushing activities raises the first and
+ * lowers the second; pulling them does the opposite. One instance is shared by an ActivityManager
+ * and every ActivityFeed it creates.
+ */
+public class FeedMetrics {
+    private long activitiesRecorded;
+    private long timelineWrites;
+    private long feedReads;
+    private long mergedSources;
+    private int widestMerge;
+
+    /**
+     * Records that an activity was recorded and fanned out.
+     *
+     * Precondition: timelineWrites >= 0
+     *
+     * @param timelineWrites the number of timelines the activity was written to
+     */
+    public synchronized void recordActivity(int timelineWrites) {
+        activitiesRecorded++;
+        this.timelineWrites += timelineWrites;
+    }
+
+    /**
+     * Records that a feed page was read.
+     *
+     * Precondition: mergeWidth >= 0
+     *
+     * @param mergeWidth the number of sources the page was merged from
+     */
+    public synchronized void recordRead(int mergeWidth) {
+        feedReads++;
+        mergedSources += mergeWidth;
+        widestMerge = Math.max(widestMerge, mergeWidth);
+    }
+
+    /**
+     * Gets the counters as they are now.
+     *
+     * Postcondition: no state change
+     *
+     * @return the current feed statistics
+     */
+    public synchronized FeedStats stats() {
+        return new FeedStats(activitiesRecorded, timelineWrites, feedReads, mergedSources, widestMerge);
+    }
+}
@@ -0,0 +1,21 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import java.util.List;
+
+/**
+ * One page of an activity feed, newest activities first.
+ *
+ * @param activities the activities on this page, at most the page size requested
+ * @param nextCursor the opaque cursor to pass for the following page, or null if this is the last page
+ */
+public record FeedPage(List<Activity> activities, String nextCursor) {
+
+    /**
+     * Checks whether the feed continues past this page.
+     *
+     * @return true if nextCursor is not null
+     */
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
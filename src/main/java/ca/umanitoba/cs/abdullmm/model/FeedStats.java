@@ -0,0 +1,31 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+/**
+ * A snapshot of the activity feed counters.
+ *
+ * @param activitiesRecorded activities recorded through the ActivityManager
+ * @param timelineWrites timeline entries written when those activities were fanned out
+ * @param feedReads feed pages read
+ * @param mergedSources the sources merged over all those reads, a timeline or a member's history each
+ * @param widestMerge the most sources any one read merged
+ */
+public record FeedStats(long activitiesRecorded, long timelineWrites, long feedReads, long mergedSources,
+                        int widestMerge) {
+    /**
+     * Gets the average number of timeline writes per activity recorded.
+     *
+     * @return the write amplification, 0 if nothing has been recorded
+     */
+    public double writeAmplification() {
+        return activitiesRecorded == 0 ? 0 : (double) timelineWrites / activitiesRecorded;
+    }
+
+    /**
+     * Gets the average number of sources merged per page read.
+     *
+     * @return the average merge width, 0 if nothing has been read
+     */
+    public double averageMergeWidth() {
+        return feedReads == 0 ? 0 : (double) mergedSources / feedReads;
+    }
+}
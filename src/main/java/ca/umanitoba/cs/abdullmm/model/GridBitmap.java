@@ -0,0 +1,176 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Dense per-cell state for a bounded grid, packed into long arrays. Cell (x, y) has index
+ * y * width + x and owns:
+ * - one traversable bit (is the cell on an available route?)
+ * - one visited bit (has the current search reached it?)
+ * - two parent-direction bits (which way the search stepped to reach it)
+ *
+ * A 50x50 map needs 40 longs per one-bit layer and 79 for the direction layer, whatever the number
+ * of route points, so the memory a search touches is fixed by the map's Dimension.
+ *
+ * Class Invariants:
+ * - width > 0 and height > 0
+ * - traversable and visited hold at least width * height bits; parentDirections at least twice that
+ */
+public class GridBitmap {
+    /** Direction of a step towards larger x. */
+    public static final int EAST = 0;
+    /** Direction of a step towards smaller x. */
+    public static final int WEST = 1;
+    /** Direction of a step towards larger y. */
+    public static final int NORTH = 2;
+    /** Direction of a step towards smaller y. */
+    public static final int SOUTH = 3;
+
+    private int width;
+    private int height;
+    private long[] traversable;
+    private long[] visited;
+    private long[] parentDirections;
+
+    /**
+     * Constructs a bitmap covering a map of the given dimension, with no traversable cells.
+     *
+     * Precondition: dimension is not null
+     * Postcondition: every cell is untraversable and unvisited
+     *
+     * @param dimension the size of the grid
+     */
+    public GridBitmap(Dimension dimension) {
+        Preconditions.checkNotNull(dimension, "Dimension cannot be null");
+        this.width = dimension.width();
+        this.height = dimension.height();
+        int cells = Math.multiplyExact(width, height);
+        this.traversable = new long[(cells + 63) >>> 6];
+        this.visited = new long[(cells + 63) >>> 6];
+        this.parentDirections = new long[(cells + 31) >>> 5];
+        checkInvariant();
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Checks whether coordinates fall inside the grid.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if 0 <= x < width and 0 <= y < height
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Gets the index of the cell at the given coordinates.
+     *
+     * Precondition: contains(x, y)
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the cell index y * width + x
+     */
+    public int cell(int x, int y) {
+        return y * width + x;
+    }
+
+    public boolean isTraversable(int cell) {
+        return (traversable[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public void setTraversable(int cell) {
+        traversable[cell >>> 6] |= 1L << cell;
+    }
+
+    /**
+     * Marks every cell untraversable.
+     *
+     * Postcondition: no cell is traversable
+     */
+    public void clearTraversable() {
+        Arrays.fill(traversable, 0L);
+    }
+
+    public boolean isVisited(int cell) {
+        return (visited[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Marks a cell visited and records the direction of the step that reached it.
+     *
+     * Postcondition: the cell is visited and parentDirection(cell) == direction
+     *
+     * @param cell the cell index
+     * @param direction one of EAST, WEST, NORTH or SOUTH
+     */
+    public void visit(int cell, int direction) {
+        visited[cell >>> 6] |= 1L << cell;
+        int word = cell >>> 5;
+        int shift = (cell & 31) << 1;
+        parentDirections[word] = (parentDirections[word] & ~(3L << shift)) | ((long) direction << shift);
+    }
+
+    /**
+     * Gets the direction of the step that reached a visited cell. Stepping the opposite way
+     * leads back to its parent.
+     *
+     * Precondition: the cell has been visited
+     *
+     * @param cell the cell index
+     * @return one of EAST, WEST, NORTH or SOUTH
+     */
+    public int parentDirection(int cell) {
+        return (int) (parentDirections[cell >>> 5] >>> ((cell & 31) << 1)) & 3;
+    }
+
+    /**
+     * Clears the visited layer so the bitmap can be reused for another search. Directions are
+     * left in place; they are only meaningful for visited cells.
+     *
+     * Postcondition: no cell is visited
+     */
+    public void clearVisited() {
+        Arrays.fill(visited, 0L);
+    }
+
+    /**
+     * Gets the change in x of a step in the given direction.
+     *
+     * @param direction one of EAST, WEST, NORTH or SOUTH
+     * @return -1, 0 or 1
+     */
+    public static int dx(int direction) {
+        return direction == EAST ? 1 : direction == WEST ? -1 : 0;
+    }
+
+    /**
+     * Gets the change in y of a step in the given direction.
+     *
+     * @param direction one of EAST, WEST, NORTH or SOUTH
+     * @return -1, 0 or 1
+     */
+    public static int dy(int direction) {
+        return direction == NORTH ? 1 : direction == SOUTH ? -1 : 0;
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(width > 0 && height > 0, "Grid must have positive dimensions");
+        Preconditions.checkState((long) traversable.length * 64 >= (long) width * height, "Traversable layer too small");
+        Preconditions.checkState(visited.length == traversable.length, "Visited layer must match traversable layer");
+        Preconditions.checkState((long) parentDirections.length * 32 >= (long) width * height, "Direction layer too small");
+    }
+}
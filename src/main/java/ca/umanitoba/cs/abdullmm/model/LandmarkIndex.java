@@ -0,0 +1,213 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Breadth-first distances from a few landmark points to every point of a PointGraph, used as an
+ * A* lower bound (the ALT technique). By the triangle inequality, the shortest path between a and
+ * b is at least |d(L, a) - d(L, b)| for every landmark L. Unlike Manhattan distance, that bound
+ * grows when the only route between two points winds around a gap.
+ *
+ * Landmarks are chosen by farthest-point selection: each new landmark is the point farthest from
+ * those already chosen, and points no landmark reaches yet are chosen first, so islands of routes
+ * without a landmark are covered before the others get more. Distances are kept in one int array per landmark, indexed by
+ * point id; -1 marks a point the landmark does not reach.
+ *
+ * An index describes the graph as it was when builder was called. It stays a valid lower bound
+ * only while that graph is unchanged.
+ *
+ * Class Invariants:
+ * - distances has one array of length capacity per landmark
+ * - landmarks[i] is a point id with distances[i][landmarks[i]] == 0
+ */
+public class LandmarkIndex {
+    private int capacity;
+    private int[] landmarks;
+    private int[][] distances;
+
+    private LandmarkIndex(int capacity, int[] landmarks, int[][] distances) {
+        this.capacity = capacity;
+        this.landmarks = landmarks;
+        this.distances = distances;
+        checkInvariant();
+    }
+
+    /**
+     * Captures a graph's adjacency and returns a task that computes its landmark distances. The
+     * graph is only read during this call, so the returned task may run on another thread while
+     * the graph keeps changing.
+     *
+     * Precondition: graph is not null; landmarkCount > 0
+     * Postcondition: the supplier returns an index over the graph as it is now
+     *
+     * @param graph the graph to index
+     * @param landmarkCount the maximum number of landmarks to choose
+     * @return a task that builds the index
+     */
+    public static Supplier<LandmarkIndex> builder(PointGraph graph, int landmarkCount) {
+        Preconditions.checkNotNull(graph, "Graph cannot be null");
+        Preconditions.checkArgument(landmarkCount > 0, "Landmark count must be positive");
+
+        // Compressed adjacency: the neighbors of id are targets[offsets[id] .. offsets[id + 1])
+        int capacity = graph.capacity();
+        boolean[] present = new boolean[capacity];
+        int[] offsets = new int[capacity + 1];
+        int[] targets = new int[Math.max(capacity, 4)];
+        int[] neighbors = new int[4];
+        int edgeCount = 0;
+        for (int id = 0; id < capacity; id++) {
+            offsets[id] = edgeCount;
+            if (graph.indexOf(graph.x(id), graph.y(id)) != id) {
+                continue;
+            }
+            present[id] = true;
+            int neighborCount = graph.neighbors(id, neighbors);
+            if (edgeCount + neighborCount > targets.length) {
+                targets = Arrays.copyOf(targets, Math.max(targets.length * 2, edgeCount + neighborCount));
+            }
+            System.arraycopy(neighbors, 0, targets, edgeCount, neighborCount);
+            edgeCount += neighborCount;
+        }
+        offsets[capacity] = edgeCount;
+        int[] edges = targets;
+
+        return () -> select(capacity, present, offsets, edges, landmarkCount);
+    }
+
+    /**
+     * Gets the number of point ids the index covers.
+     *
+     * @return the capacity of the graph the index was built from
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of landmarks chosen.
+     *
+     * @return the landmark count, at most the count requested
+     */
+    public int landmarkCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * Gets a lower bound on the number of steps between two points.
+     *
+     * Precondition: 0 <= a, b < capacity()
+     *
+     * @param a the id of the first point
+     * @param b the id of the second point
+     * @return the largest |d(L, a) - d(L, b)| over landmarks L that reach both points, or 0
+     */
+    public int lowerBound(int a, int b) {
+        int bound = 0;
+        for (int[] fromLandmark : distances) {
+            int distanceA = fromLandmark[a];
+            int distanceB = fromLandmark[b];
+            if (distanceA >= 0 && distanceB >= 0) {
+                bound = Math.max(bound, Math.abs(distanceA - distanceB));
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Chooses landmarks by farthest-point selection over a captured adjacency and records the
+     * breadth-first distances from each.
+     */
+    private static LandmarkIndex select(int capacity, boolean[] present, int[] offsets, int[] targets,
+                                        int landmarkCount) {
+        int[] nearest = new int[capacity]; // Distance to the closest landmark so far, MAX_VALUE if none
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        int[] queue = new int[capacity];
+        int[] landmarks = new int[landmarkCount];
+        int[][] distances = new int[landmarkCount][];
+        int chosen = 0;
+
+        // Seed with the point farthest from an arbitrary one, a cheap approximation of a periphery
+        int seed = farthest(present, breadthFirst(firstPresent(present), capacity, offsets, targets, queue));
+        while (seed >= 0 && chosen < landmarkCount) {
+            int[] fromSeed = breadthFirst(seed, capacity, offsets, targets, queue);
+            landmarks[chosen] = seed;
+            distances[chosen] = fromSeed;
+            chosen++;
+            for (int id = 0; id < capacity; id++) {
+                if (fromSeed[id] >= 0) {
+                    nearest[id] = Math.min(nearest[id], fromSeed[id]);
+                }
+            }
+            seed = farthest(present, nearest);
+            if (seed >= 0 && nearest[seed] == 0) {
+                seed = -1; // Every point is already a landmark
+            }
+        }
+
+        return new LandmarkIndex(capacity, Arrays.copyOf(landmarks, chosen), Arrays.copyOf(distances, chosen));
+    }
+
+    /**
+     * Gets breadth-first distances from a source over the captured adjacency.
+     *
+     * @return distances indexed by id, -1 where unreached; all -1 if source is -1
+     */
+    private static int[] breadthFirst(int source, int capacity, int[] offsets, int[] targets, int[] queue) {
+        int[] distance = new int[capacity];
+        Arrays.fill(distance, -1);
+        if (source < 0) {
+            return distance;
+        }
+        int head = 0;
+        int tail = 0;
+        distance[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int edge = offsets[current]; edge < offsets[current + 1]; edge++) {
+                int neighbor = targets[edge];
+                if (distance[neighbor] < 0) {
+                    distance[neighbor] = distance[current] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return distance;
+    }
+
+    private static int firstPresent(boolean[] present) {
+        for (int id = 0; id < present.length; id++) {
+            if (present[id]) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the present point with the largest distance, or -1 if there is none.
+     */
+    private static int farthest(boolean[] present, int[] distance) {
+        int best = -1;
+        for (int id = 0; id < present.length; id++) {
+            if (present[id] && (best < 0 || distance[id] > distance[best])) {
+                best = id;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(landmarks.length == distances.length, "One distance array per landmark");
+        for (int i = 0; i < landmarks.length; i++) {
+            Preconditions.checkState(distances[i].length == capacity, "Distance array must cover every id");
+            Preconditions.checkState(distances[i][landmarks[i]] == 0, "Landmark must be at distance zero");
+        }
+    }
+}
@@ -3,16 +3,40 @@ package ca.umanitoba.cs.abdullmm.model;
 import com.google.common.base.Preconditions;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * A bounded grid world holding rectangular obstacles.
+ *
+ * Obstacle (x, y) of size w x h covers the cells [x, x + w) x [y, y + h). Coverage is kept in an
+ * occupancy grid that counts, for each in-bounds cell, how many obstacles cover it, so
+ * isValidPosition is a single array read however many obstacles there are. The grid is updated
+ * when obstacles are added, removed or moved with Obstacle.setPosition; each such change also
+ * advances the map's version and, once the map is consistent again, tells every MapListener which
+ * cells may have changed.
+ *
+ * Class Invariants:
+ * - dimension, obstacles and name are not null; name is not empty
+ * - coverage has one entry per cell, equal to the number of obstacles covering that cell
+ */
 public class Map {
     private Dimension dimension;
     private ArrayList<Obstacle> obstacles;
     private String name;
+    private int[] coverage;
+    private long version;
+    private List<MapListener> listeners;
 
     public Map(Dimension dimension, String name){
+        Preconditions.checkNotNull(dimension, "Map dimension cannot be null");
         this.dimension = dimension;
         this.name = name;
         this.obstacles = new ArrayList<>();
+        this.coverage = new int[Math.multiplyExact(dimension.width(), dimension.height())];
+        this.version = 0;
+        this.listeners = new CopyOnWriteArrayList<>();
         checkMap();
     }
 
@@ -20,30 +44,186 @@ public class Map {
         return dimension;
     }
 
-    public ArrayList<Obstacle> getObstacles() {
-        return obstacles;
+    /**
+     * Gets the obstacles on the map. The list cannot be modified; use addObstacle and
+     * removeObstacle so the occupancy grid stays correct.
+     *
+     * @return an unmodifiable view of the obstacles
+     */
+    public List<Obstacle> getObstacles() {
+        return Collections.unmodifiableList(obstacles);
     }
 
     public String getName(){
         return name;
 
     }
+
+    /**
+     * Gets a counter that changes whenever an obstacle is added, removed or moved.
+     *
+     * @return the current version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Registers a listener to be told about every later obstacle change.
+     *
+     * Precondition: listener is not null
+     * Postcondition: the listener is notified of changes until it is removed
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(MapListener listener) {
+        Preconditions.checkNotNull(listener, "Listener cannot be null");
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops notifying a listener.
+     *
+     * Postcondition: the listener is not notified of later changes
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(MapListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds an obstacle and marks the cells it covers.
+     *
+     * Precondition: obstacle is not null and not already on a map
+     * Postcondition: the obstacle is on this map and its in-bounds cells are covered
+     *
+     * @param obstacle the obstacle to add
+     */
     public void addObstacle(Obstacle obstacle){
+        Preconditions.checkNotNull(obstacle, "Obstacle cannot be null");
+        Preconditions.checkArgument(obstacle.getMap() == null, "Obstacle is already on a map");
         obstacles.add(obstacle);
+        obstacle.setMap(this);
+        cover(obstacle, 1);
+        checkMap();
+        notifyListeners(obstacle.getPosition(), obstacle.getSize());
     }
+
+    /**
+     * Removes an obstacle and clears the cells only it covered.
+     *
+     * Postcondition: the obstacle is no longer on this map
+     *
+     * @param obstacle the obstacle to remove
+     */
     public void removeObstacle(Obstacle obstacle){
-        obstacles.remove(obstacle);
+        if (obstacles.remove(obstacle)) {
+            cover(obstacle, -1);
+            obstacle.setMap(null);
+            checkMap();
+            notifyListeners(obstacle.getPosition(), obstacle.getSize());
+        }
     }
 
+    /**
+     * Checks whether a point lies inside the map and outside every obstacle.
+     *
+     * Precondition: point is not null
+     *
+     * @param point the point to check
+     * @return true if the point can be travelled through
+     */
     public boolean isValidPosition(GridPoint point){
-        // implemented later
-        return true;
+        Preconditions.checkNotNull(point, "Point cannot be null");
+        return isValidPosition(point.x(), point.y());
+    }
+
+    /**
+     * Checks whether a cell lies inside the map and outside every obstacle.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if the cell can be travelled through
+     */
+    public boolean isValidPosition(int x, int y) {
+        return contains(x, y) && coverage[y * dimension.width() + x] == 0;
+    }
+
+    /**
+     * Checks whether a cell is covered by an obstacle. Cells outside the map are never covered.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if at least one obstacle covers the cell
+     */
+    public boolean isBlocked(int x, int y) {
+        return contains(x, y) && coverage[y * dimension.width() + x] > 0;
+    }
+
+    /**
+     * Moves an obstacle's coverage from its old position to a new one.
+     *
+     * Precondition: obstacle is on this map
+     * Postcondition: the occupancy grid reflects the obstacle at its new position
+     *
+     * @param obstacle the obstacle being moved
+     * @param position its new position
+     */
+    void moveObstacle(Obstacle obstacle, GridPoint position) {
+        GridPoint previous = obstacle.getPosition();
+        cover(obstacle, -1);
+        obstacle.place(position);
+        cover(obstacle, 1);
+        checkMap();
+        notifyListeners(previous, obstacle.getSize());
+        notifyListeners(position, obstacle.getSize());
+    }
+
+    private boolean contains(int x, int y) {
+        return x >= 0 && x < dimension.width() && y >= 0 && y < dimension.height();
+    }
+
+    /**
+     * Tells every listener about the in-bounds part of a rectangle, if there is one.
+     */
+    private void notifyListeners(GridPoint position, Dimension size) {
+        int fromX = Math.max(position.x(), 0);
+        int fromY = Math.max(position.y(), 0);
+        int toX = (int) Math.min((long) position.x() + size.width(), dimension.width());
+        int toY = (int) Math.min((long) position.y() + size.height(), dimension.height());
+        if (fromX >= toX || fromY >= toY) {
+            return;
+        }
+        for (MapListener listener : listeners) {
+            listener.cellsChanged(this, fromX, fromY, toX, toY);
+        }
+    }
+
+    /**
+     * Adds delta to the coverage count of every in-bounds cell of an obstacle's rectangle.
+     */
+    private void cover(Obstacle obstacle, int delta) {
+        int width = dimension.width();
+        int fromX = Math.max(obstacle.getPosition().x(), 0);
+        int fromY = Math.max(obstacle.getPosition().y(), 0);
+        int toX = (int) Math.min((long) obstacle.getPosition().x() + obstacle.getSize().width(), width);
+        int toY = (int) Math.min((long) obstacle.getPosition().y() + obstacle.getSize().height(), dimension.height());
+        for (int y = fromY; y < toY; y++) {
+            for (int x = fromX; x < toX; x++) {
+                coverage[y * width + x] += delta;
+            }
+        }
+        version++;
     }
 
     private void checkMap(){
         Preconditions.checkNotNull(dimension, "Map dimension cannot be null");
         Preconditions.checkNotNull(obstacles, "Map obstacles cannot be null");
+        Preconditions.checkNotNull(listeners, "Map listeners cannot be null");
         Preconditions.checkNotNull(name, "Map name cannot be null");
         Preconditions.checkState(!name.isEmpty(), "Map name cannot be empty");
+        Preconditions.checkState(coverage.length == dimension.width() * dimension.height(),
+                "Occupancy grid must cover every cell");
     }
 }
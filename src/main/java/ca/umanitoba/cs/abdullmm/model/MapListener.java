@@ -0,0 +1,19 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+/**
+ * Receives notice of changes to the cells a Map's obstacles cover.
+ */
+public interface MapListener {
+
+    /**
+     * Called after an obstacle is added, removed or moved, once for each rectangle of cells whose
+     * coverage the change may have altered. The map is consistent when this is called.
+     *
+     * @param map the map that changed
+     * @param fromX the smallest x coordinate of the rectangle, inside the map
+     * @param fromY the smallest y coordinate of the rectangle, inside the map
+     * @param toX one past the largest x coordinate of the rectangle
+     * @param toY one past the largest y coordinate of the rectangle
+     */
+    void cellsChanged(Map map, int fromX, int fromY, int toX, int toY);
+}
@@ -6,6 +6,7 @@ public class Obstacle {
     private GridPoint position;
     private Dimension size;
     private String name;
+    private Map map; // The map whose occupancy grid tracks this obstacle, if any
 
     //constructor
     public Obstacle(String name,GridPoint position, Dimension size){
@@ -25,8 +26,37 @@ public class Obstacle {
         return name;
     }
 
+    /**
+     * Moves the obstacle, updating the occupancy grid of the map it is on.
+     *
+     * Precondition: position is not null
+     * Postcondition: the obstacle covers the cells at its new position
+     *
+     * @param position the new top-left position
+     */
     public void setPosition(GridPoint position){
+        Preconditions.checkNotNull(position, "Obstacle Position cannot be null");
+        if (map != null) {
+            map.moveObstacle(this, position);
+        } else {
+            place(position);
+        }
+    }
+
+    Map getMap(){
+        return map;
+    }
+
+    void setMap(Map map){
+        this.map = map;
+    }
+
+    /**
+     * Sets the position without notifying the map; only the map calls this while moving it.
+     */
+    void place(GridPoint position){
         this.position = position;
+        checkObstacle();
     }
 
     private void checkObstacle(){
@@ -0,0 +1,142 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * The number of steps from every cell of a Map to the nearest cell an obstacle covers, capped at a
+ * radius. Distances are found by one breadth-first search seeded with every covered cell at once
+ * and stopped at the radius, so building a field costs O(width * height) however many obstacles
+ * there are, and each lookup is one array read.
+ *
+ * A field describes the map as it was when built and records the map's version, so callers that
+ * cache it can tell when the obstacles have changed since.
+ *
+ * Class Invariants:
+ * - map is not null; radius >= 0
+ * - distances has one entry per cell of the map, each in [0, radius]
+ */
+public class ObstacleDistanceField {
+    private Map map;
+    private long mapVersion;
+    private int radius;
+    private int width;
+    private int height;
+    private int[] distances;
+
+    private ObstacleDistanceField(Map map, int radius) {
+        this.map = map;
+        this.mapVersion = map.getVersion();
+        this.radius = radius;
+        this.width = map.getDimension().width();
+        this.height = map.getDimension().height();
+        this.distances = new int[Math.multiplyExact(width, height)];
+        fill();
+        checkInvariant();
+    }
+
+    /**
+     * Builds the distance field of a map's obstacles as they are now.
+     *
+     * Precondition: map is not null; radius >= 0
+     * Postcondition: returns a field of the map's current obstacles
+     *
+     * @param map the map to measure
+     * @param radius the largest distance recorded; cells farther from every obstacle report it
+     * @return the new field
+     */
+    public static ObstacleDistanceField of(Map map, int radius) {
+        Preconditions.checkNotNull(map, "Map cannot be null");
+        Preconditions.checkArgument(radius >= 0, "Radius cannot be negative");
+        return new ObstacleDistanceField(map, radius);
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Checks whether this field was built from the given map and its obstacles have not changed
+     * since.
+     *
+     * @param current the map to compare against
+     * @return true if the field describes current as it is now
+     */
+    public boolean isCurrent(Map current) {
+        return current == map && map.getVersion() == mapVersion;
+    }
+
+    /**
+     * Gets the number of steps from a cell to the nearest obstacle-covered cell. Cells outside the
+     * map are treated as far from every obstacle.
+     *
+     * Postcondition: no state change
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the distance, 0 for a covered cell, at most the radius
+     */
+    public int distance(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return radius;
+        }
+        return distances[y * width + x];
+    }
+
+    /**
+     * Runs the breadth-first search outward from every covered cell, one ring of distance at a time.
+     */
+    private void fill() {
+        Arrays.fill(distances, radius);
+        int[] queue = new int[distances.length];
+        int tail = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (map.isBlocked(x, y)) {
+                    distances[y * width + x] = 0;
+                    queue[tail++] = y * width + x;
+                }
+            }
+        }
+
+        int head = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int next = distances[cell] + 1;
+            if (next >= radius) {
+                continue; // Cells this far out already hold the radius
+            }
+            int x = cell % width;
+            int y = cell / width;
+            tail = reach(x > 0 ? cell - 1 : -1, next, queue, tail);
+            tail = reach(x < width - 1 ? cell + 1 : -1, next, queue, tail);
+            tail = reach(y > 0 ? cell - width : -1, next, queue, tail);
+            tail = reach(y < height - 1 ? cell + width : -1, next, queue, tail);
+        }
+    }
+
+    /**
+     * Records a shorter distance for a cell and queues it, unless the cell is -1 or already nearer.
+     *
+     * @return the new queue tail
+     */
+    private int reach(int cell, int distance, int[] queue, int tail) {
+        if (cell < 0 || distances[cell] <= distance) {
+            return tail;
+        }
+        distances[cell] = distance;
+        queue[tail++] = cell;
+        return tail;
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkNotNull(map, "Map cannot be null");
+        Preconditions.checkState(radius >= 0, "Radius cannot be negative");
+        Preconditions.checkState(distances.length == map.getDimension().width() * map.getDimension().height(),
+                "Distance field must cover every cell");
+    }
+}
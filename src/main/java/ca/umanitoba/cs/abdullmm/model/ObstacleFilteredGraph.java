@@ -0,0 +1,96 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A view of a PointGraph without the points covered by a Map's obstacles. Ids are those of the
+ * underlying graph, so search state and connectivity indexes built over it still apply; covered
+ * points are simply never found or reported as neighbors. Coverage is read from the map's
+ * occupancy grid, so each check is one array read.
+ *
+ * The view records the map version it was created at, so callers that cache it can tell when
+ * the obstacles have changed since.
+ *
+ * Class Invariants:
+ * - base and map are not null
+ */
+public class ObstacleFilteredGraph implements PointGraph {
+    private PointGraph base;
+    private Map map;
+    private long mapVersion;
+
+    /**
+     * Constructs a view of a graph with a map's obstacles removed.
+     *
+     * Precondition: base and map are not null
+     * Postcondition: the view hides every point of base that an obstacle of map covers
+     *
+     * @param base the graph to filter
+     * @param map the map whose obstacles block points
+     */
+    public ObstacleFilteredGraph(PointGraph base, Map map) {
+        Preconditions.checkNotNull(base, "Base graph cannot be null");
+        Preconditions.checkNotNull(map, "Map cannot be null");
+        this.base = base;
+        this.map = map;
+        this.mapVersion = map.getVersion();
+    }
+
+    public PointGraph getBase() {
+        return base;
+    }
+
+    /**
+     * Checks whether the map's obstacles have changed since this view was created.
+     *
+     * @return true if the map's version still matches
+     */
+    public boolean isCurrent() {
+        return map.getVersion() == mapVersion;
+    }
+
+    @Override
+    public int capacity() {
+        return base.capacity();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Points covered by an obstacle are reported as missing.
+     */
+    @Override
+    public int indexOf(int x, int y) {
+        if (map.isBlocked(x, y)) {
+            return -1;
+        }
+        return base.indexOf(x, y);
+    }
+
+    @Override
+    public int x(int id) {
+        return base.x(id);
+    }
+
+    @Override
+    public int y(int id) {
+        return base.y(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Neighbors covered by an obstacle are left out; the rest keep the base graph's order.
+     */
+    @Override
+    public int neighbors(int id, int[] out) {
+        int count = base.neighbors(id, out);
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (!map.isBlocked(base.x(out[i]), base.y(out[i]))) {
+                out[kept++] = out[i];
+            }
+        }
+        return kept;
+    }
+}
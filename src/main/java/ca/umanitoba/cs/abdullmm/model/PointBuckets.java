@@ -0,0 +1,247 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * A uniform-grid bucket index over the ids of a PointGraph, answering "which points are nearest to
+ * (x, y)?" by Manhattan distance without scanning every point.
+ *
+ * The plane is cut into BUCKET_SIZE x BUCKET_SIZE buckets. A query scans rings of buckets around
+ * the query's own bucket, nearest ring first, and stops as soon as no point in a further ring could
+ * beat the k best found; rings are clipped to the box of occupied buckets, so queries far off the
+ * route network cost no more than ones beside it. Bucket coordinates are interned with a
+ * PointIndex, and each bucket holds its point ids in a growable int array.
+ *
+ * Like ConnectivityIndex, an index either tracks a growing PointIndex (see UserProfile) through
+ * update, or is built once over a fixed graph with of.
+ *
+ * Class Invariants:
+ * - members and memberCounts have the same length, at least the number of buckets
+ * - every processed point id is in exactly the bucket containing its coordinates
+ */
+public class PointBuckets {
+    private static final int BUCKET_SIZE = 8;
+
+    private PointIndex buckets;
+    private int[][] members;
+    private int[] memberCounts;
+    private int processed;
+    private int minBucketX;
+    private int maxBucketX;
+    private int minBucketY;
+    private int maxBucketY;
+
+    /**
+     * Constructs an empty bucket index.
+     *
+     * Postcondition: no ids have been processed
+     */
+    public PointBuckets() {
+        this.buckets = new PointIndex();
+        this.members = new int[16][];
+        this.memberCounts = new int[16];
+        this.processed = 0;
+        this.minBucketX = Integer.MAX_VALUE;
+        this.maxBucketX = Integer.MIN_VALUE;
+        this.minBucketY = Integer.MAX_VALUE;
+        this.maxBucketY = Integer.MIN_VALUE;
+        checkInvariant();
+    }
+
+    /**
+     * Builds a bucket index over every point of a graph.
+     *
+     * Precondition: graph is not null
+     * Postcondition: every point of the graph is in its bucket
+     *
+     * @param graph the graph to index
+     * @return the new bucket index
+     */
+    public static PointBuckets of(PointGraph graph) {
+        Preconditions.checkNotNull(graph, "Graph cannot be null");
+        PointBuckets index = new PointBuckets();
+        index.absorb(graph, graph.capacity());
+        return index;
+    }
+
+    /**
+     * Absorbs the points added to an index since the last update.
+     *
+     * Precondition: index is not null and is the same index passed to every earlier update
+     * Postcondition: every indexed point is in its bucket
+     *
+     * @param index the growing point index this bucket index tracks
+     */
+    void update(PointIndex index) {
+        Preconditions.checkNotNull(index, "Point index cannot be null");
+        absorb(index, index.size());
+    }
+
+    /**
+     * Finds the points of a graph nearest to the given coordinates.
+     *
+     * Precondition: graph is the graph this index was built over, or a view of it with the same
+     * ids (points the view does not contain are skipped); k > 0
+     * Postcondition: no state change
+     *
+     * @param graph the graph whose ids were indexed
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param k the number of points wanted
+     * @return up to k point ids ordered by Manhattan distance, then by id
+     */
+    public int[] nearest(PointGraph graph, int x, int y, int k) {
+        Preconditions.checkNotNull(graph, "Graph cannot be null");
+        Preconditions.checkArgument(k > 0, "Number of points must be positive");
+        if (buckets.size() == 0) {
+            return new int[0];
+        }
+
+        int[] bestIds = new int[k];
+        long[] bestDistances = new long[k];
+        int found = 0;
+
+        int bucketX = Math.floorDiv(x, BUCKET_SIZE);
+        int bucketY = Math.floorDiv(y, BUCKET_SIZE);
+        long firstRing = Math.max(0, Math.max(Math.max((long) minBucketX - bucketX, (long) bucketX - maxBucketX),
+                Math.max((long) minBucketY - bucketY, (long) bucketY - maxBucketY)));
+        long lastRing = Math.max(Math.max(Math.abs((long) bucketX - minBucketX), Math.abs((long) bucketX - maxBucketX)),
+                Math.max(Math.abs((long) bucketY - minBucketY), Math.abs((long) bucketY - maxBucketY)));
+
+        for (long ring = firstRing; ring <= lastRing; ring++) {
+            // Every point in ring r lies more than (r - 1) * BUCKET_SIZE steps away
+            if (found == k && bestDistances[k - 1] <= (ring - 1) * BUCKET_SIZE) {
+                break;
+            }
+
+            found = scanRing(graph, bucketX, bucketY, ring, x, y, bestIds, bestDistances, found);
+        }
+        return Arrays.copyOf(bestIds, found);
+    }
+
+    /**
+     * Offers every point in the buckets at Chebyshev distance ring from (bucketX, bucketY), within
+     * the occupied box, to the sorted best-k arrays.
+     *
+     * @return the new number of points held in the best-k arrays
+     */
+    private int scanRing(PointGraph graph, int bucketX, int bucketY, long ring, int x, int y,
+                         int[] bestIds, long[] bestDistances, int found) {
+        long fromX = Math.max(bucketX - ring, minBucketX);
+        long toX = Math.min(bucketX + ring, maxBucketX);
+        long fromY = Math.max(bucketY - ring + 1, minBucketY);
+        long toY = Math.min(bucketY + ring - 1, maxBucketY);
+        long bottom = bucketY - ring;
+        long top = bucketY + ring;
+        long left = bucketX - ring;
+        long right = bucketX + ring;
+
+        for (long bx = fromX; bx <= toX; bx++) {
+            if (bottom >= minBucketY) {
+                found = scanBucket(graph, (int) bx, (int) bottom, x, y, bestIds, bestDistances, found);
+            }
+            if (ring > 0 && top <= maxBucketY) {
+                found = scanBucket(graph, (int) bx, (int) top, x, y, bestIds, bestDistances, found);
+            }
+        }
+        for (long by = fromY; by <= toY; by++) {
+            if (left >= minBucketX) {
+                found = scanBucket(graph, (int) left, (int) by, x, y, bestIds, bestDistances, found);
+            }
+            if (ring > 0 && right <= maxBucketX) {
+                found = scanBucket(graph, (int) right, (int) by, x, y, bestIds, bestDistances, found);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Offers every point of one bucket to the sorted best-k arrays.
+     *
+     * @return the new number of points held in the best-k arrays
+     */
+    private int scanBucket(PointGraph graph, int bucketX, int bucketY, int x, int y,
+                           int[] bestIds, long[] bestDistances, int found) {
+        int bucket = buckets.indexOf(bucketX, bucketY);
+        if (bucket < 0) {
+            return found;
+        }
+        int[] ids = members[bucket];
+        for (int i = 0; i < memberCounts[bucket]; i++) {
+            int id = ids[i];
+            int px = graph.x(id);
+            int py = graph.y(id);
+            if (graph.indexOf(px, py) != id) {
+                continue;
+            }
+            long distance = Math.abs((long) px - x) + Math.abs((long) py - y);
+            found = insert(bestIds, bestDistances, found, id, distance);
+        }
+        return found;
+    }
+
+    /**
+     * Inserts a candidate into arrays sorted by (distance, id), dropping the worst if they are full.
+     */
+    private static int insert(int[] bestIds, long[] bestDistances, int found, int id, long distance) {
+        int k = bestIds.length;
+        int slot = found < k ? found : k - 1;
+        if (found == k && (distance > bestDistances[slot]
+                || (distance == bestDistances[slot] && id > bestIds[slot]))) {
+            return found;
+        }
+        while (slot > 0 && (bestDistances[slot - 1] > distance
+                || (bestDistances[slot - 1] == distance && bestIds[slot - 1] > id))) {
+            bestIds[slot] = bestIds[slot - 1];
+            bestDistances[slot] = bestDistances[slot - 1];
+            slot--;
+        }
+        bestIds[slot] = id;
+        bestDistances[slot] = distance;
+        return Math.min(found + 1, k);
+    }
+
+    /**
+     * Adds ids [processed, limit) of a graph to their buckets, skipping ids that the graph does
+     * not map back to themselves (unused ids of a composite graph).
+     */
+    private void absorb(PointGraph graph, int limit) {
+        for (int id = processed; id < limit; id++) {
+            int x = graph.x(id);
+            int y = graph.y(id);
+            if (graph.indexOf(x, y) != id) {
+                continue;
+            }
+            int bucketX = Math.floorDiv(x, BUCKET_SIZE);
+            int bucketY = Math.floorDiv(y, BUCKET_SIZE);
+            int bucket = buckets.add(bucketX, bucketY);
+            if (bucket == members.length) {
+                members = Arrays.copyOf(members, bucket * 2);
+                memberCounts = Arrays.copyOf(memberCounts, bucket * 2);
+            }
+            if (members[bucket] == null) {
+                members[bucket] = new int[4];
+            } else if (memberCounts[bucket] == members[bucket].length) {
+                members[bucket] = Arrays.copyOf(members[bucket], memberCounts[bucket] * 2);
+            }
+            members[bucket][memberCounts[bucket]++] = id;
+
+            minBucketX = Math.min(minBucketX, bucketX);
+            maxBucketX = Math.max(maxBucketX, bucketX);
+            minBucketY = Math.min(minBucketY, bucketY);
+            maxBucketY = Math.max(maxBucketY, bucketY);
+        }
+        processed = Math.max(processed, limit);
+        checkInvariant();
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(members.length == memberCounts.length, "Bucket arrays must match");
+        Preconditions.checkState(buckets.size() <= members.length, "More buckets than bucket slots");
+    }
+}
@@ -0,0 +1,87 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+/**
+ * A read-only set of grid points in which two points are connected when they are horizontally or
+ * vertically adjacent. Each point is identified by an int id so that searches can keep their
+ * per-point state in flat arrays.
+ *
+ * Ids lie in the range [0, capacity()). A graph may leave some ids in that range unused,
+ * but no two points share an id.
+ */
+public interface PointGraph {
+
+    /**
+     * Gets the exclusive upper bound of the ids used by this graph.
+     *
+     * @return a bound such that every id is less than it
+     */
+    int capacity();
+
+    /**
+     * Gets the id of the point at the given coordinates.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the point's id, or -1 if the point is not in the graph
+     */
+    int indexOf(int x, int y);
+
+    /**
+     * Gets the x coordinate of a point.
+     *
+     * @param id the point's id
+     * @return the x coordinate
+     */
+    int x(int id);
+
+    /**
+     * Gets the y coordinate of a point.
+     *
+     * @param id the point's id
+     * @return the y coordinate
+     */
+    int y(int id);
+
+    /**
+     * Collects the ids of the points adjacent to a point. Only the four candidate cells
+     * (x±1, y) and (x, y±1) are looked up.
+     *
+     * Precondition: id is a point in the graph; out has room for at least four ids
+     * Postcondition: out[0..count) holds the neighbor ids in ascending order
+     *
+     * @param id the id of the point whose neighbors to find
+     * @param out buffer receiving the neighbor ids
+     * @return the number of neighbors written to out
+     */
+    int neighbors(int id, int[] out);
+
+    /**
+     * Gets the id of a point.
+     *
+     * @param point the point to look up
+     * @return the point's id, or -1 if the point is not in the graph
+     */
+    default int indexOf(GridPoint point) {
+        return indexOf(point.x(), point.y());
+    }
+
+    /**
+     * Checks whether a point is in the graph.
+     *
+     * @param point the point to look up
+     * @return true if the point is in the graph, false otherwise
+     */
+    default boolean contains(GridPoint point) {
+        return indexOf(point.x(), point.y()) >= 0;
+    }
+
+    /**
+     * Gets a point by id.
+     *
+     * @param id the point's id
+     * @return a new GridPoint with the point's coordinates
+     */
+    default GridPoint point(int id) {
+        return new GridPoint(x(id), y(id));
+    }
+}
@@ -0,0 +1,299 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A spatial index over a set of grid points that answers "which of my four neighbors exist?"
+ * with hash lookups instead of a scan of the whole point set.
+ *
+ * Each point (x, y) is packed into a single long and stored in an open-addressing table with
+ * linear probing, so lookups never box coordinates or allocate. Every point is given a dense id
+ * in the order it was first added; ids never change once assigned, so an index can keep growing
+ * (see UserProfile.addActivity) while searches keep their per-point state in arrays indexed by
+ * these ids. Neighbors are always reported in ascending id order.
+ *
+ * Class Invariants:
+ * - 0 <= size <= xs.length == ys.length
+ * - slotKeys.length == slotIds.length is a power of two and at least twice size
+ * - every id in 0..size-1 occupies exactly one slot; empty slots hold id -1
+ */
+public class PointIndex implements PointGraph {
+    private static final int[] NEIGHBOR_DX = {1, -1, 0, 0};
+    private static final int[] NEIGHBOR_DY = {0, 0, 1, -1};
+    private static final int MIN_TABLE_SIZE = 16;
+
+    private long[] slotKeys;
+    private int[] slotIds;
+    private int[] xs;
+    private int[] ys;
+    private int size;
+
+    /**
+     * Builds an empty index.
+     *
+     * Postcondition: the index holds no points
+     */
+    public PointIndex() {
+        this(List.of());
+    }
+
+    /**
+     * Builds an index over the given points.
+     *
+     * Precondition: points is not null and contains no null elements
+     * Postcondition: every distinct point is indexed with its iteration ordinal as its id
+     *
+     * @param points the points to index
+     */
+    public PointIndex(Collection<GridPoint> points) {
+        Preconditions.checkNotNull(points, "Points cannot be null");
+
+        int capacity = Math.max(points.size(), 1);
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        allocateTable(tableSizeFor(capacity));
+
+        for (GridPoint point : points) {
+            Preconditions.checkNotNull(point, "Indexed point cannot be null");
+            add(point.x(), point.y());
+        }
+        checkInvariant();
+    }
+
+    /**
+     * Packs a coordinate pair into a single long key.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return x in the high 32 bits and y in the low 32 bits
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the number of distinct points in the index.
+     *
+     * @return the number of indexed points
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Ids are dense, so this is the number of indexed points.
+     */
+    @Override
+    public int capacity() {
+        return size;
+    }
+
+    /**
+     * Gets the id of the point at the given coordinates.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the point's id, or -1 if the point is not indexed
+     */
+    @Override
+    public int indexOf(int x, int y) {
+        long key = pack(x, y);
+        int mask = slotIds.length - 1;
+        int slot = mix(key) & mask;
+        while (slotIds[slot] >= 0) {
+            if (slotKeys[slot] == key) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the x coordinate of an indexed point.
+     *
+     * Precondition: 0 <= id < size()
+     *
+     * @param id the point's id
+     * @return the x coordinate
+     */
+    @Override
+    public int x(int id) {
+        return xs[id];
+    }
+
+    /**
+     * Gets the y coordinate of an indexed point.
+     *
+     * Precondition: 0 <= id < size()
+     *
+     * @param id the point's id
+     * @return the y coordinate
+     */
+    @Override
+    public int y(int id) {
+        return ys[id];
+    }
+
+    /**
+     * Gets an indexed point.
+     *
+     * Precondition: 0 <= id < size()
+     * Postcondition: returns a new GridPoint equal to the indexed one
+     *
+     * @param id the point's id
+     * @return the point with that id
+     */
+    @Override
+    public GridPoint point(int id) {
+        Preconditions.checkElementIndex(id, size, "Point id");
+        return new GridPoint(xs[id], ys[id]);
+    }
+
+    /**
+     * Collects the ids of the indexed points that are horizontally or vertically adjacent to a
+     * point. Only the four candidate cells (x±1, y) and (x, y±1) are looked up.
+     *
+     * Precondition: 0 <= id < size(); out has room for at least four ids
+     * Postcondition: out[0..count) holds the neighbor ids in ascending order
+     *
+     * @param id the id of the point whose neighbors to find
+     * @param out buffer receiving the neighbor ids
+     * @return the number of neighbors written to out
+     */
+    @Override
+    public int neighbors(int id, int[] out) {
+        int x = xs[id];
+        int y = ys[id];
+        int count = 0;
+        for (int i = 0; i < 4; i++) {
+            int neighbor = indexOf(x + NEIGHBOR_DX[i], y + NEIGHBOR_DY[i]);
+            if (neighbor < 0) {
+                continue;
+            }
+
+            // Insertion sort on at most four entries keeps neighbors in id order
+            int slot = count;
+            while (slot > 0 && out[slot - 1] > neighbor) {
+                out[slot] = out[slot - 1];
+                slot--;
+            }
+            out[slot] = neighbor;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Adds every point of a route that is not already indexed.
+     *
+     * Precondition: route is not null
+     * Postcondition: every point of the route is indexed; existing ids are unchanged
+     *
+     * @param route the route whose points to add
+     */
+    void addRoute(Route route) {
+        Preconditions.checkNotNull(route, "Route cannot be null");
+        for (GridPoint point : route.getPoints()) {
+            add(point.x(), point.y());
+        }
+        checkInvariant();
+    }
+
+    /**
+     * Adds a point if it is not already indexed.
+     *
+     * Postcondition: the point is indexed; existing ids are unchanged
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the id of the point
+     */
+    int add(int x, int y) {
+        long key = pack(x, y);
+        int mask = slotIds.length - 1;
+        int slot = mix(key) & mask;
+        while (slotIds[slot] >= 0) {
+            if (slotKeys[slot] == key) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        int id = size++;
+        xs[id] = x;
+        ys[id] = y;
+        slotKeys[slot] = key;
+        slotIds[slot] = id;
+
+        if (size * 2 > slotIds.length) {
+            rehash(slotIds.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Rebuilds the slot table at a new size from the id-ordered coordinate arrays.
+     */
+    private void rehash(int tableSize) {
+        allocateTable(tableSize);
+        int mask = tableSize - 1;
+        for (int id = 0; id < size; id++) {
+            long key = pack(xs[id], ys[id]);
+            int slot = mix(key) & mask;
+            while (slotIds[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = key;
+            slotIds[slot] = id;
+        }
+    }
+
+    private void allocateTable(int tableSize) {
+        slotKeys = new long[tableSize];
+        slotIds = new int[tableSize];
+        Arrays.fill(slotIds, -1);
+    }
+
+    static int tableSizeFor(int capacity) {
+        int tableSize = MIN_TABLE_SIZE;
+        while (tableSize < capacity * 2) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+
+    /**
+     * Spreads a packed key over the table (the 64-bit finalizer from MurmurHash3), so that
+     * neighboring cells do not cluster into neighboring slots.
+     */
+    static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(size >= 0 && size <= xs.length, "Index size out of range");
+        Preconditions.checkState(xs.length == ys.length, "Coordinate arrays must match");
+        Preconditions.checkState(slotKeys.length == slotIds.length, "Slot arrays must match");
+        Preconditions.checkState(Integer.bitCount(slotIds.length) == 1, "Slot table size must be a power of two");
+        Preconditions.checkState(size * 2 <= slotIds.length, "Slot table is overloaded");
+    }
+}
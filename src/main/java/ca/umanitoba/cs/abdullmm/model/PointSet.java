@@ -0,0 +1,161 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of points of a PointGraph stored as one bit per id, 64 ids to a long. A set over a feed of
+ * hundreds of thousands of points fits in a few tens of kilobytes, and membership is one hash
+ * lookup and one bit read.
+ *
+ * Points are only turned into GridPoints as an iterator reaches them; nextId walks the set by id
+ * without creating any objects.
+ *
+ * Class Invariants:
+ * - words has at least (capacity + 63) / 64 entries and no bits set at or beyond capacity
+ * - size equals the number of set bits
+ */
+public class PointSet implements Iterable<GridPoint> {
+    private PointGraph graph;
+    private int capacity;
+    private long[] words;
+    private int size;
+
+    /**
+     * Wraps a bitmap of graph ids as a set. The set takes ownership of the array.
+     *
+     * Precondition: graph and words are not null; words covers the graph's capacity and every
+     * set bit is a point of the graph
+     * Postcondition: the set holds exactly the points whose bits are set
+     *
+     * @param graph the graph whose ids the bits stand for
+     * @param words the bitmap, bit (id % 64) of words[id / 64] for each id
+     */
+    public PointSet(PointGraph graph, long[] words) {
+        Preconditions.checkNotNull(graph, "Graph cannot be null");
+        Preconditions.checkNotNull(words, "Bitmap cannot be null");
+        this.graph = graph;
+        this.capacity = graph.capacity();
+        this.words = words;
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        this.size = count;
+        checkInvariant();
+    }
+
+    /**
+     * Gets the number of points in the set.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks whether the set holds a point.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if the point is in the set
+     */
+    public boolean contains(int x, int y) {
+        int id = graph.indexOf(x, y);
+        return id >= 0 && id < capacity && (words[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * Checks whether the set holds a point.
+     *
+     * Precondition: point is not null
+     *
+     * @param point the point
+     * @return true if the point is in the set
+     */
+    public boolean contains(GridPoint point) {
+        Preconditions.checkNotNull(point, "Point cannot be null");
+        return contains(point.x(), point.y());
+    }
+
+    /**
+     * Gets the graph whose ids the set holds, for reading the coordinates of ids from nextId.
+     *
+     * @return the graph
+     */
+    public PointGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Gets the smallest id in the set that is at least fromId.
+     *
+     * Precondition: fromId >= 0
+     *
+     * @param fromId the id to start from
+     * @return the id, or -1 if there is none
+     */
+    public int nextId(int fromId) {
+        Preconditions.checkArgument(fromId >= 0, "Id cannot be negative");
+        if (fromId >= capacity) {
+            return -1;
+        }
+        int wordIndex = fromId >>> 6;
+        long word = words[wordIndex] & (-1L << fromId);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+            wordIndex++;
+            if (wordIndex >= words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    /**
+     * Iterates over the points in id order, creating each GridPoint only when it is reached.
+     *
+     * @return an iterator over the points
+     */
+    @Override
+    public Iterator<GridPoint> iterator() {
+        return new Iterator<>() {
+            private int next = nextId(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public GridPoint next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                GridPoint point = graph.point(next);
+                next = next + 1 < capacity ? nextId(next + 1) : -1;
+                return point;
+            }
+        };
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkState(words.length >= (capacity + 63) >>> 6, "Bitmap must cover every id");
+        if ((capacity & 63) != 0) {
+            Preconditions.checkState((words[capacity >>> 6] & (-1L << capacity)) == 0,
+                    "No bits may be set beyond the capacity");
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package ca.umanitoba.cs.abdullmm.model;
+
+import com.google.common.base.Preconditions;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A bounded, precomputed feed for one user: references to the most recent activities of the user
+ * and everyone they follow, kept in feed order so that reading a page is a binary search for the
+ * cursor followed by one array read per activity (fan-out on write).
+ *
+ * Entries sit in a ring buffer of fixed capacity, oldest at head. Activities usually arrive newest
+ * of all and are appended at the tail; a back-dated one is inserted at its place in date order.
+ * When the buffer is full the oldest entry is evicted, and its (date, userId, sequence) key
+ * becomes the floor: the timeline holds every feed activity newer than the floor, and anything at
+ * or below it has to be merged from the members' histories (see ActivityFeed).
+ *
+ * The timeline reflects one set of followed users. Following or unfollowing someone through
+ * ActivityManager backfills or purges their activities; a follow list changed any other way
+ * leaves the timeline out of sync. ActivityFeed does not read an out-of-sync timeline, and
+ * ActivityManager rebuilds it the next time the feed is requested or the user follows or
+ * unfollows someone through it.
+ *
+ * Followed users whose feed is pulled (see UserProfile.isFeedPulled) are left out: their
+ * activities are merged in on read. When a user starts or stops being pulled, ActivityManager
+ * purges or backfills them in the same way.
+ *
+ * Class Invariants:
+ * - owner is not null; 0 <= size <= capacity; 0 <= head < capacity
+ * - entries [0, size) from head are in strictly increasing age order (oldest first)
+ * - if truncated, every entry is newer than the floor
+ */
+public class Timeline {
+    private UserProfile owner;
+    private int capacity;
+    private Activity[] activities;
+    private String[] authorIds;
+    private int[] sequences;
+    private int head;
+    private int size;
+    private long syncedVersion;
+
+    private boolean truncated;
+    private LocalDate floorDate;
+    private String floorAuthorId;
+    private int floorSequence;
+
+    /**
+     * Constructs an empty timeline that is out of sync with its owner's follow list.
+     *
+     * Precondition: owner is not null; capacity > 0
+     * Postcondition: the timeline holds nothing and is rebuilt on its first read
+     *
+     * @param owner the user whose feed this is
+     * @param capacity the most activities held
+     */
+    Timeline(UserProfile owner, int capacity) {
+        Preconditions.checkNotNull(owner, "Owner cannot be null");
+        Preconditions.checkArgument(capacity > 0, "Timeline capacity must be positive");
+        this.owner = owner;
+        this.capacity = capacity;
+        this.activities = new Activity[capacity];
+        this.authorIds = new String[capacity];
+        this.sequences = new int[capacity];
+        this.syncedVersion = owner.followVersion() - 1;
+        checkInvariant();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of activities held.
+     *
+     * @return the timeline's size, at most its capacity
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the timeline reflects its owner's current follow list.
+     *
+     * @return true if no follow or unfollow has bypassed the timeline since it was last synced
+     */
+    public synchronized boolean isSynced() {
+        return syncedVersion == owner.followVersion();
+    }
+
+    /**
+     * Adds the activity an author recorded most recently.
+     *
+     * Precondition: author is not null, has an activity, and is the owner or a followed user
+     * Postcondition: the activity is held unless it is older than everything the full timeline holds
+     *
+     * @param author the user who recorded the activity
+     */
+    public synchronized void addLatest(UserProfile author) {
+        Preconditions.checkNotNull(author, "Author cannot be null");
+        ActivityView history = author.getActivities();
+        int sequence = history.size() - 1;
+        Preconditions.checkArgument(sequence >= 0, "Author has no activities");
+        insert(history.get(sequence), author.getUserId(), sequence);
+        checkInvariant();
+    }
+
+    /**
+     * Adds the activities of a user who has just joined the feed, newest first, until they no longer
+     * fit. Nothing is added for a user whose feed is pulled.
+     *
+     * Precondition: author is not null; the owner has just followed author, or author's feed has
+     * just stopped being pulled, and the timeline was in sync before that
+     * Postcondition: the timeline holds every pushed feed activity newer than its floor and is in sync
+     *
+     * @param author the user who joined the feed
+     */
+    public synchronized void backfill(UserProfile author) {
+        Preconditions.checkNotNull(author, "Author cannot be null");
+        if (author != owner && !author.isFeedPulled()) {
+            addHistory(author);
+        }
+        syncedVersion = owner.followVersion();
+        checkInvariant();
+    }
+
+    /**
+     * Removes every activity of a user who has just left the feed.
+     *
+     * Precondition: authorId is not null; the owner has just unfollowed the user, or the user's
+     * feed has just become pulled, and the timeline was in sync before that
+     * Postcondition: the timeline holds none of the user's activities and is in sync
+     *
+     * @param authorId the ID of the user who left the feed
+     */
+    public synchronized void purge(String authorId) {
+        Preconditions.checkNotNull(authorId, "Author ID cannot be null");
+        if (!authorId.equals(owner.getUserId())) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int from = slot(i);
+                if (!authorIds[from].equals(authorId)) {
+                    move(from, slot(kept++));
+                }
+            }
+            clearSlots(kept, size);
+            size = kept;
+        }
+        syncedVersion = owner.followVersion();
+        checkInvariant();
+    }
+
+    /**
+     * Refills the timeline from scratch from the histories of the feed's members, leaving out
+     * those whose feed is pulled.
+     *
+     * Precondition: members is not null and holds the owner and each existing followed user once
+     * Postcondition: the timeline is in sync
+     *
+     * @param members the profiles whose activities make up the feed
+     */
+    public synchronized void rebuild(List<UserProfile> members) {
+        Preconditions.checkNotNull(members, "Members cannot be null");
+        clearSlots(0, size);
+        head = 0;
+        size = 0;
+        truncated = false;
+        for (UserProfile member : members) {
+            if (member == owner || !member.isFeedPulled()) {
+                addHistory(member);
+            }
+        }
+        syncedVersion = owner.followVersion();
+        checkInvariant();
+    }
+
+    /**
+     * Appends the activities that follow a cursor to a page, newest first.
+     *
+     * Precondition: page is not null; pageSize >= page.size()
+     * Postcondition: page holds up to pageSize activities; no state change
+     *
+     * @param after the position to read from, or null for the newest activity
+     * @param pageSize the size the page may grow to
+     * @param page the page to fill
+     * @param keys the list to append the position of each activity to, or null if not needed
+     * @return the position of the last activity appended, or after if none was
+     */
+    synchronized FeedCursor read(FeedCursor after, int pageSize, List<Activity> page, List<FeedCursor> keys) {
+        int index = after == null ? size : countOlder(after.date(), after.userId(), after.sequence());
+        int last = -1;
+        while (page.size() < pageSize && index > 0) {
+            index--;
+            int at = slot(index);
+            page.add(activities[at]);
+            if (keys != null) {
+                keys.add(new FeedCursor(activities[at].getDate(), authorIds[at], sequences[at]));
+            }
+            last = index;
+        }
+        if (last < 0) {
+            return after;
+        }
+        int at = slot(last);
+        return new FeedCursor(activities[at].getDate(), authorIds[at], sequences[at]);
+    }
+
+    /**
+     * Checks whether the timeline holds an activity after a cursor.
+     *
+     * @param after the position to check from, or null for the start of the feed
+     * @return true if a read from the cursor would return something
+     */
+    synchronized boolean hasAfter(FeedCursor after) {
+        return after == null ? size > 0 : countOlder(after.date(), after.userId(), after.sequence()) > 0;
+    }
+
+    /**
+     * Checks whether activities older than those held have been left out, so that reading past the
+     * end of the timeline must fall back to the members' histories.
+     *
+     * @return true if the timeline has a floor
+     */
+    synchronized boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Adds a member's activities newest first, stopping at the first that is not held, since every
+     * older one would not be held either.
+     */
+    private void addHistory(UserProfile member) {
+        ActivityHistory history = member.history();
+        for (int rank = history.size() - 1; rank >= 0; rank--) {
+            int sequence = history.sequenceByDate(rank);
+            if (!insert(history.activityByDate(rank), member.getUserId(), sequence)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Inserts an entry at its place in age order, evicting the oldest entry if the timeline is full.
+     *
+     * @return true if the entry is held afterwards
+     */
+    private boolean insert(Activity activity, String authorId, int sequence) {
+        LocalDate date = activity.getDate();
+        if (truncated && compareAge(date, authorId, sequence, floorDate, floorAuthorId, floorSequence) <= 0) {
+            return false; // Reads past the floor come from the histories
+        }
+        if (size == capacity) {
+            int oldest = slot(0);
+            if (compareAge(date, authorId, sequence, activities[oldest].getDate(), authorIds[oldest], sequences[oldest]) < 0) {
+                setFloor(date, authorId, sequence);
+                return false;
+            }
+            setFloor(activities[oldest].getDate(), authorIds[oldest], sequences[oldest]);
+            clearSlots(0, 1);
+            head = slot(1);
+            size--;
+        }
+
+        int position = countOlder(date, authorId, sequence);
+        for (int i = size; i > position; i--) {
+            move(slot(i - 1), slot(i));
+        }
+        int at = slot(position);
+        activities[at] = activity;
+        authorIds[at] = authorId;
+        sequences[at] = sequence;
+        size++;
+        return true;
+    }
+
+    /**
+     * Counts the held entries older than a key, by binary search.
+     */
+    private int countOlder(LocalDate date, String authorId, int sequence) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int at = slot(middle);
+            if (compareAge(activities[at].getDate(), authorIds[at], sequences[at], date, authorId, sequence) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares two feed keys by age: negative if the first is older, that is, later in the feed.
+     * The feed runs newest date first, then by user ID, then most recently recorded first.
+     */
+    private static int compareAge(LocalDate date, String authorId, int sequence,
+                                  LocalDate otherDate, String otherAuthorId, int otherSequence) {
+        int compared = date.compareTo(otherDate);
+        if (compared != 0) {
+            return compared;
+        }
+        compared = otherAuthorId.compareTo(authorId);
+        return compared != 0 ? compared : Integer.compare(sequence, otherSequence);
+    }
+
+    private void setFloor(LocalDate date, String authorId, int sequence) {
+        truncated = true;
+        floorDate = date;
+        floorAuthorId = authorId;
+        floorSequence = sequence;
+    }
+
+    private int slot(int index) {
+        int at = head + index;
+        return at >= capacity ? at - capacity : at;
+    }
+
+    private void move(int from, int to) {
+        activities[to] = activities[from];
+        authorIds[to] = authorIds[from];
+        sequences[to] = sequences[from];
+    }
+
+    /**
+     * Drops the references held by entries [from, to), so evicted activities can be collected.
+     */
+    private void clearSlots(int from, int to) {
+        for (int i = from; i < to; i++) {
+            activities[slot(i)] = null;
+            authorIds[slot(i)] = null;
+        }
+    }
+
+    /**
+     * Verifies the class invariants.
+     */
+    private void checkInvariant() {
+        Preconditions.checkNotNull(owner, "Owner cannot be null");
+        Preconditions.checkState(size >= 0 && size <= capacity, "Size must be within capacity");
+        Preconditions.checkState(head >= 0 && head < capacity, "Head must be a slot of the buffer");
+        Preconditions.checkState(activities.length == capacity && authorIds.length == capacity
+                && sequences.length == capacity, "Buffers must match the capacity");
+        Preconditions.checkState(!truncated || size == 0 || compareAge(activities[slot(0)].getDate(),
+                authorIds[slot(0)], sequences[slot(0)], floorDate, floorAuthorId, floorSequence) > 0, "Entries must be newer than the floor");
+    }
+}
@@ -1,22 +1,61 @@
 package ca.umanitoba.cs.abdullmm.model;
 
 import com.google.common.base.Preconditions;
+
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a user profile with personal gear and activity history.
  *
+ * Besides the history in the order it was recorded, a profile keeps the positions of its
+ * activities sorted by (date, sequence), where an activity's sequence is its position in the
+ * history. Activities are often back-dated, so the two orders differ; the date order lets
+ * ActivityFeed merge several users' histories newest first without sorting them, and it answers
+ * date range queries with two binary searches.
+ *
+ * Both orders live in an immutable ActivityHistory, which addActivity replaces through a volatile
+ * field only once the new activity is fully written. getActivities returns an ActivityView of the
+ * current snapshot: read-only, costing no copy, and valid while later activities are recorded.
+ * Readers that need both orders at once, such as ActivityFeed, take one snapshot with history()
+ * and read everything from it.
+ *
+ * A profile may also keep a Timeline, its feed precomputed on write. Every change to the follow
+ * list advances followVersion, which is how a timeline tells that a follow bypassed it.
+ *
+ * The reverse of the follow lists is kept too: each profile knows the IDs of its followers, so an
+ * activity can be delivered to them without scanning every profile. followUser(UserProfile) and
+ * unfollowUser(UserProfile) update both sides; the overloads taking an ID only update this
+ * profile, and a follower they add is registered by ActivityManager the next time it rebuilds the
+ * follower's timeline. A profile whose followers are too many to push to is marked feedPulled, and its
+ * activities are merged into their feeds on read instead.
+ *
  * Class Invariants:
  * - gearInventory is never null (may be empty)
- * - activities is never null (may be empty)
+ * - history is never null
  * - followedUsers is never null (may be empty)
+ * - followerIds is never null (may be empty)
+ * - routePoints is never null and indexes every point of every recorded activity's route
+ * - routeConnectivity is never null and covers every point in routePoints
+ * - routeBuckets is never null and holds every point in routePoints
  * - userId is not null and not empty
  */
 public class UserProfile {
     private String userId;
     private ArrayList<Gear> gearInventory;
-    private ArrayList<Activity> activities;
+    private volatile ActivityHistory history;
     private ArrayList<String> followedUserIds;
+    private long followVersion;
+    private Set<String> followerIds;
+    private boolean feedPulled;
+    private Timeline timeline;
+    private PointIndex routePoints;
+    private ConnectivityIndex routeConnectivity;
+    private PointBuckets routeBuckets;
 
     /**
      * Constructs a UserProfile for a given user.
@@ -29,8 +68,12 @@ public class UserProfile {
     public UserProfile(String userId) {
         this.userId = userId;
         this.gearInventory = new ArrayList<>();
-        this.activities = new ArrayList<>();
+        this.history = ActivityHistory.EMPTY;
         this.followedUserIds = new ArrayList<>();
+        this.followerIds = new LinkedHashSet<>();
+        this.routePoints = new PointIndex();
+        this.routeConnectivity = new ConnectivityIndex();
+        this.routeBuckets = new PointBuckets();
         checkInvariant();
     }
 
@@ -42,14 +85,137 @@ public class UserProfile {
         return gearInventory;
     }
 
-    public ArrayList<Activity> getActivities() {
-        return activities;
+    /**
+     * Gets the user's activities in the order they were recorded.
+     *
+     * Postcondition: no state change
+     *
+     * @return a read-only snapshot of the history, unaffected by activities recorded later
+     */
+    public ActivityView getActivities() {
+        return history.view();
+    }
+
+    public int getActivityCount() {
+        return history.size();
+    }
+
+    /**
+     * Gets the current snapshot of the history, in recording and date order.
+     *
+     * @return the snapshot, unaffected by activities recorded later
+     */
+    ActivityHistory history() {
+        return history;
     }
 
     public ArrayList<String> getFollowedUserIds() {
         return followedUserIds;
     }
 
+    /**
+     * Gets the IDs of the users following this user, as far as the reverse follow index knows.
+     *
+     * Postcondition: no state change
+     *
+     * @return an unmodifiable view of the follower IDs
+     */
+    public Set<String> getFollowerIds() {
+        return Collections.unmodifiableSet(followerIds);
+    }
+
+    public int getFollowerCount() {
+        return followerIds.size();
+    }
+
+    /**
+     * Checks whether this user's activities are merged into their followers' feeds on read rather
+     * than pushed onto their timelines.
+     *
+     * @return true if followers pull this user's activities
+     */
+    public boolean isFeedPulled() {
+        return feedPulled;
+    }
+
+    /**
+     * Sets whether followers pull this user's activities on read. The caller is responsible for
+     * purging them from, or backfilling them into, the followers' timelines.
+     *
+     * @param feedPulled true if followers should pull this user's activities
+     */
+    public void setFeedPulled(boolean feedPulled) {
+        this.feedPulled = feedPulled;
+    }
+
+    /**
+     * Gets the index of every point on this user's recorded routes. The index is kept up to date
+     * as activities are added, so route searches never have to re-walk the activity history.
+     *
+     * Postcondition: no state change
+     *
+     * @return the user's route point index
+     */
+    public PointIndex getRoutePoints() {
+        return routePoints;
+    }
+
+    /**
+     * Gets the connected components of this user's route points, indexed by the ids of
+     * getRoutePoints(). Kept up to date as activities are added.
+     *
+     * Postcondition: no state change
+     *
+     * @return the user's route connectivity index
+     */
+    public ConnectivityIndex getRouteConnectivity() {
+        return routeConnectivity;
+    }
+
+    /**
+     * Gets the nearest-point index over this user's route points, indexed by the ids of
+     * getRoutePoints(). Kept up to date as activities are added.
+     *
+     * Postcondition: no state change
+     *
+     * @return the user's route point buckets
+     */
+    public PointBuckets getRouteBuckets() {
+        return routeBuckets;
+    }
+
+    /**
+     * Gets the timeline that precomputes this user's feed.
+     *
+     * Postcondition: no state change
+     *
+     * @return the timeline, or null if feeds for this user are merged on read
+     */
+    public Timeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Gives this user a timeline, so that their feed is precomputed as activities are recorded.
+     * The timeline is filled on the first read of the feed.
+     *
+     * Precondition: capacity > 0
+     * Postcondition: getTimeline() returns a timeline of at least the given capacity
+     *
+     * @param capacity the most activities the timeline holds
+     */
+    public void enableTimeline(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Timeline capacity must be positive");
+        if (timeline == null || timeline.getCapacity() < capacity) {
+            timeline = new Timeline(this, capacity);
+        }
+        checkInvariant();
+    }
+
+    long followVersion() {
+        return followVersion;
+    }
+
     /**
      * Adds gear to the user's inventory.
      *
@@ -82,16 +248,63 @@ public class UserProfile {
      * Adds an activity to the user's history.
      *
      * Precondition: activity is not null
-     * Postcondition: activity has been added to activities
+     * Postcondition: activity has been added to activities, its route points to routePoints,
+     * and routeConnectivity and routeBuckets reflect the new points
      *
      * @param activity the activity to record
      */
     public void addActivity(Activity activity) {
         Preconditions.checkNotNull(activity, "Activity cannot be null");
-        activities.add(activity);
+        history = history.append(activity); // Publishes the activity to snapshots taken from now on
+        routePoints.addRoute(activity.getRoute());
+        routeConnectivity.update(routePoints);
+        routeBuckets.update(routePoints);
         checkInvariant();
     }
 
+    /**
+     * Gets the activities dated within a range, oldest first. The range is found by binary search
+     * in the date order, so only the activities inside it are visited.
+     *
+     * Precondition: from and to are not null; from is not after to
+     * Postcondition: returns a new list of the activities dated from through to; no state change
+     *
+     * @param from the first date of the range
+     * @param to the last date of the range, inclusive
+     * @return the activities in the range, by (date, sequence)
+     */
+    public List<Activity> getActivitiesBetween(LocalDate from, LocalDate to) {
+        Preconditions.checkNotNull(from, "Start date cannot be null");
+        Preconditions.checkNotNull(to, "End date cannot be null");
+        Preconditions.checkArgument(!from.isAfter(to), "Start date cannot be after end date");
+        ActivityHistory snapshot = history;
+        int first = snapshot.countBeforeByDate(from, 0);
+        int end = snapshot.countBeforeByDate(to, Integer.MAX_VALUE);
+        List<Activity> range = new ArrayList<>(end - first);
+        for (int rank = first; rank < end; rank++) {
+            range.add(snapshot.activityByDate(rank));
+        }
+        return range;
+    }
+
+    /**
+     * Counts the activities dated within a range, by binary search.
+     *
+     * Precondition: from and to are not null; from is not after to
+     * Postcondition: no state change
+     *
+     * @param from the first date of the range
+     * @param to the last date of the range, inclusive
+     * @return the number of activities dated from through to
+     */
+    public int countActivitiesBetween(LocalDate from, LocalDate to) {
+        Preconditions.checkNotNull(from, "Start date cannot be null");
+        Preconditions.checkNotNull(to, "End date cannot be null");
+        Preconditions.checkArgument(!from.isAfter(to), "Start date cannot be after end date");
+        ActivityHistory snapshot = history;
+        return snapshot.countBeforeByDate(to, Integer.MAX_VALUE) - snapshot.countBeforeByDate(from, 0);
+    }
+
     /**
      * Checks if this user is following another user.
      *
@@ -121,9 +334,39 @@ public class UserProfile {
         Preconditions.checkState(!followedUserIds.contains(targetUserId),
                 "Already following this user");
         followedUserIds.add(targetUserId);
+        followVersion++;
         checkInvariant();
     }
 
+    /**
+     * Follows another user, recording this user as one of their followers.
+     *
+     * Precondition: target is not null, is not this profile, and is not already being followed
+     * Postcondition: target's ID is in followedUserIds and this user's ID is in target's followers
+     *
+     * @param target the profile to follow
+     */
+    public void followUser(UserProfile target) {
+        Preconditions.checkNotNull(target, "Target profile cannot be null");
+        Preconditions.checkArgument(target != this, "Users cannot follow themselves");
+        followUser(target.getUserId());
+        target.addFollower(userId);
+    }
+
+    /**
+     * Unfollows another user, removing this user from their followers.
+     *
+     * Precondition: target is not null and is currently being followed
+     * Postcondition: target's ID is not in followedUserIds and this user's ID is not in target's followers
+     *
+     * @param target the profile to unfollow
+     */
+    public void unfollowUser(UserProfile target) {
+        Preconditions.checkNotNull(target, "Target profile cannot be null");
+        unfollowUser(target.getUserId());
+        target.removeFollower(userId);
+    }
+
     /**
      * Unfollows a user.
      *
@@ -137,16 +380,44 @@ public class UserProfile {
         Preconditions.checkState(followedUserIds.contains(targetUserId),
                 "Not currently following this user");
         followedUserIds.remove(targetUserId);
+        followVersion++;
         checkInvariant();
     }
 
+    /**
+     * Records a user in the reverse follow index.
+     *
+     * Precondition: followerId is not null and is the ID of a user following this one
+     * Postcondition: followerId is in this user's followers
+     *
+     * @param followerId the ID of a user following this one
+     * @return true if the follower was not recorded before
+     */
+    public boolean addFollower(String followerId) {
+        Preconditions.checkNotNull(followerId, "Follower ID cannot be null");
+        return followerIds.add(followerId);
+    }
+
+    /**
+     * Removes a user from the reverse follow index.
+     *
+     * @param followerId the ID of a user no longer following this one
+     */
+    void removeFollower(String followerId) {
+        followerIds.remove(followerId);
+    }
+
     /**
      * Verifies the class invariants.
      */
     private void checkInvariant() {
         Preconditions.checkState(gearInventory != null, "Gear inventory cannot be null");
-        Preconditions.checkState(activities != null, "Activities list cannot be null");
+        Preconditions.checkState(history != null, "Activity history cannot be null");
         Preconditions.checkState(followedUserIds != null, "Followed users list cannot be null");
+        Preconditions.checkState(followerIds != null, "Follower set cannot be null");
+        Preconditions.checkState(routePoints != null, "Route point index cannot be null");
+        Preconditions.checkState(routeConnectivity != null, "Route connectivity index cannot be null");
+        Preconditions.checkState(routeBuckets != null, "Route point buckets cannot be null");
         Preconditions.checkNotNull(userId, "User ID cannot be null");
         Preconditions.checkState(!userId.isEmpty(), "User ID cannot be empty");
     }
@@ -1,8 +1,17 @@
 package ca.umanitoba.cs.abdullmm.ui;
 
 import ca.umanitoba.cs.abdullmm.exceptions.*;
+import ca.umanitoba.cs.abdullmm.logic.AStarSearch;
 import ca.umanitoba.cs.abdullmm.logic.ActivityManager;
+import ca.umanitoba.cs.abdullmm.logic.BoundedGridSearch;
+import ca.umanitoba.cs.abdullmm.logic.FeedMode;
 import ca.umanitoba.cs.abdullmm.logic.PathFinder;
+import ca.umanitoba.cs.abdullmm.logic.PathRepair;
+import ca.umanitoba.cs.abdullmm.logic.PathSearchResult;
+import ca.umanitoba.cs.abdullmm.logic.PathSearchStrategy;
+import ca.umanitoba.cs.abdullmm.logic.RoutePlanningSession;
+import ca.umanitoba.cs.abdullmm.logic.SearchScope;
+import ca.umanitoba.cs.abdullmm.logic.SnappedSearchResult;
 import ca.umanitoba.cs.abdullmm.logic.UserManager;
 import ca.umanitoba.cs.abdullmm.model.*;
 
@@ -27,20 +36,27 @@ public class MainRepl {
     private static final String HARDCODED_MAP_NAME = "City Map";
     private static final int HARDCODED_MAP_WIDTH = 50;
     private static final int HARDCODED_MAP_HEIGHT = 50;
+    private static final PathSearchStrategy ROUTE_SEARCH = new BoundedGridSearch(
+            new Dimension(HARDCODED_MAP_HEIGHT, HARDCODED_MAP_WIDTH), new AStarSearch()); // Shortest paths for Find Route
+    private static final int FEED_PAGE_SIZE = 10;
+    private static final int FEED_RECENT_DAYS = 7; // Days shown when the feed is limited to the past week
+    private static final int FEED_TIMELINE_CAPACITY = 200; // Recent activities precomputed per feed
+    private static final int FEED_PULL_THRESHOLD = 500; // Followers beyond which a user's activities are pulled
 
     private UserManager userManager;
     private ActivityManager activityManager;
     private PathFinder pathFinder;
     private Map globalMap;
     private String currentUserId;
+    private RoutePlanningSession routeSession; // Keeps the last found route current as obstacles are added
 
     /**
      * Constructs the MainRepl with all necessary managers and the hardcoded map.
      */
     public MainRepl() {
         this.userManager = new UserManager();
-        this.activityManager = new ActivityManager(userManager);
-        this.pathFinder = new PathFinder(userManager, activityManager);
+        this.activityManager = new ActivityManager(userManager, FeedMode.HYBRID, FEED_TIMELINE_CAPACITY,
+                FEED_PULL_THRESHOLD);
         this.currentUserId = null;
 
         // Initialize hardcoded world map
@@ -50,6 +66,9 @@ public class MainRepl {
         } catch (Exception e) {
             System.out.println("Failed to initialize map: " + e.getMessage());
         }
+
+        // Route finding avoids the map's obstacles (none if the map failed to initialize)
+        this.pathFinder = new PathFinder(userManager, activityManager, globalMap);
     }
 
     /**
@@ -150,18 +169,37 @@ public class MainRepl {
 
         try {
             ActivityFeed feed = activityManager.getActivityFeed(currentUserId);
-            ArrayList<Activity> activities = feed.getAllActivities();
-
-            if (activities.isEmpty()) {
-                System.out.println("No activities in your feed yet.");
+            System.out.print("Only show the past week? (y/n): ");
+            boolean pastWeek = scanner.nextLine().trim().toLowerCase().equals("y");
+            LocalDate to = LocalDate.now();
+            LocalDate from = to.minusDays(FEED_RECENT_DAYS - 1);
+            FeedPage page = pastWeek ? feed.getPage(null, FEED_PAGE_SIZE, from, to)
+                    : feed.getPage(null, FEED_PAGE_SIZE);
+
+            if (page.activities().isEmpty()) {
+                System.out.println(pastWeek ? "No activities in your feed this past week."
+                        : "No activities in your feed yet.");
                 return;
             }
 
+            // Pages are shown newest first; every activity shown so far can be opened below
+            ArrayList<Activity> activities = new ArrayList<>();
             System.out.println("Activities in your feed:");
-            for (int i = 0; i < activities.size(); i++) {
-                Activity a = activities.get(i);
-                System.out.printf("%d) %s | Date: %s | Distance: %.2f | Gear: %s\n",
-                        i, a.getName(), a.getDate(), a.getDistance(), a.gearUsed().getName());
+            while (true) {
+                for (Activity a : page.activities()) {
+                    System.out.printf("%d) %s | Date: %s | Distance: %.2f | Gear: %s\n",
+                            activities.size(), a.getName(), a.getDate(), a.getDistance(), a.gearUsed().getName());
+                    activities.add(a);
+                }
+                if (!page.hasMore()) {
+                    break;
+                }
+                System.out.print("Show older activities? (y/n): ");
+                if (!scanner.nextLine().trim().toLowerCase().equals("y")) {
+                    break;
+                }
+                page = pastWeek ? feed.getPage(page.nextCursor(), FEED_PAGE_SIZE, from, to)
+                        : feed.getPage(page.nextCursor(), FEED_PAGE_SIZE);
             }
 
             System.out.print("View detailed activity? (y/n): ");
@@ -204,12 +242,12 @@ public class MainRepl {
             Route route;
 
             if (routeChoice == 1) {
-                if (profile.getActivities().isEmpty()) {
+                ActivityView activities = profile.getActivities();
+                if (activities.isEmpty()) {
                     System.out.println("No previous activities to duplicate from.");
                     return;
                 }
 
-                ArrayList<Activity> activities = profile.getActivities();
                 System.out.println("Select activity to duplicate route from:");
                 for (int i = 0; i < activities.size(); i++) {
                     Activity a = activities.get(i);
@@ -426,9 +464,9 @@ public class MainRepl {
             System.out.println("You're already following this user.");
         } else {
             try {
-                profile.followUser(targetUserId);
+                activityManager.followUser(currentUserId, targetUserId);
                 System.out.println("Now following " + targetUserId);
-            } catch (IllegalStateException e) {
+            } catch (InvalidUserException | IllegalStateException e) {
                 System.out.println("Error: " + e.getMessage());
             }
         }
@@ -461,9 +499,9 @@ public class MainRepl {
 
         try {
             String targetUserId = followedUsers.get(idx);
-            profile.unfollowUser(targetUserId);
+            activityManager.unfollowUser(currentUserId, targetUserId);
             System.out.println("Unfollowed " + targetUserId);
-        } catch (IllegalStateException e) {
+        } catch (InvalidUserException | IllegalStateException e) {
             System.out.println("Error: " + e.getMessage());
         }
     }
@@ -489,15 +527,23 @@ public class MainRepl {
         GridPoint end = new GridPoint(endX, endY);
 
         try {
-            Route foundRoute;
-            if (choice == 1) {
-                foundRoute = pathFinder.findPathUserOnly(currentUserId, start, end);
-            } else {
-                foundRoute = pathFinder.findPathFromFeed(currentUserId, start, end);
+            SearchScope scope = choice == 1 ? SearchScope.USER_ONLY : SearchScope.FEED;
+            SnappedSearchResult snapped = pathFinder.searchSnapped(scope, currentUserId, start, end, ROUTE_SEARCH);
+            PathSearchResult result = snapped.result();
+            Route foundRoute = result.route();
+
+            if (snapped.startSnapDistance() > 0) {
+                System.out.println("Start moved to nearest route point " + snapped.start()
+                        + " (" + snapped.startSnapDistance() + " step(s) away)");
+            }
+            if (snapped.endSnapDistance() > 0) {
+                System.out.println("End moved to nearest route point " + snapped.end()
+                        + " (" + snapped.endSnapDistance() + " step(s) away)");
             }
-
             System.out.println("Route found with " + foundRoute.getPoints().size() + " points!");
+            System.out.println("Points searched: " + result.nodesExpanded());
             System.out.println("Points: " + foundRoute.getPoints());
+            trackRoute(scope, snapped.start(), snapped.end());
 
             System.out.print("Use this route for a new activity? (y/n): ");
             String response = scanner.nextLine().trim().toLowerCase();
@@ -510,6 +556,26 @@ public class MainRepl {
         }
     }
 
+    /**
+     * Replaces the tracked route with a session for the route just found, so that adding an
+     * obstacle can report whether the route had to change.
+     */
+    private void trackRoute(SearchScope scope, GridPoint start, GridPoint end) {
+        closeRouteSession();
+        try {
+            routeSession = pathFinder.openRouteSession(scope, currentUserId, start, end);
+        } catch (InvalidUserException | PathNotFoundException e) {
+            routeSession = null;
+        }
+    }
+
+    private void closeRouteSession() {
+        if (routeSession != null) {
+            routeSession.close();
+            routeSession = null;
+        }
+    }
+
     private void handleViewMap() {
         System.out.println("\n=== Map ===");
         if (globalMap == null) {
@@ -549,11 +615,33 @@ public class MainRepl {
             Obstacle obstacle = new Obstacle(name, position, size);
             globalMap.addObstacle(obstacle);
             System.out.println("Obstacle '" + name + "' added successfully!");
+            reportRouteRepair();
         } catch (IllegalStateException | IllegalArgumentException e) {
             System.out.println("Error adding obstacle: " + e.getMessage());
         }
     }
 
+    /**
+     * Repairs the last found route after an obstacle change and tells the user if it moved.
+     */
+    private void reportRouteRepair() {
+        if (routeSession == null) {
+            return;
+        }
+        PathRepair repair = routeSession.repair();
+        if (!repair.routeChanged()) {
+            return;
+        }
+        try {
+            Route repaired = routeSession.getRoute();
+            System.out.println("Your last found route was rerouted around the obstacle ("
+                    + repair.nodesTouched() + " points updated).");
+            System.out.println("New route has " + repaired.getPoints().size() + " points: " + repaired.getPoints());
+        } catch (PathNotFoundException e) {
+            System.out.println("Your last found route is now blocked: " + e.getMessage());
+        }
+    }
+
     private void handleViewProfile() {
         System.out.println("\n=== My Profile ===");
         System.out.println("Username: " + currentUserId);
@@ -561,8 +649,10 @@ public class MainRepl {
         try {
             UserProfile profile = userManager.getUser(currentUserId);
             System.out.println("Gear count: " + profile.getGearInventory().size());
-            System.out.println("Activities: " + profile.getActivities().size());
+            System.out.println("Activities: " + profile.getActivityCount());
             System.out.println("Following: " + profile.getFollowedUserIds().size());
+            System.out.println("Route network: " + profile.getRoutePoints().size() + " points in "
+                    + profile.getRouteConnectivity().componentCount() + " connected piece(s)");
         } catch (InvalidUserException e) {
             System.out.println("Error: " + e.getMessage());
         }
@@ -570,6 +660,7 @@ public class MainRepl {
 
     private void handleSignOut() {
         System.out.println("Signing out from " + currentUserId);
+        closeRouteSession();
         currentUserId = null;
     }
 